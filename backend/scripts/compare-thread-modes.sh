@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+#
+# Compares request throughput and latency of the default platform-thread mode
+# against the virtual-threads profile. Boots the packaged WAR once per mode
+# against the configured database, fires the same concurrent load at an
+# I/O-bound endpoint and prints requests/second and latency percentiles.
+#
+# Usage: scripts/compare-thread-modes.sh [requests] [concurrency] [path]
+#   JAVA       Java 21+ binary (required for virtual threads; default: java)
+#   WAR        Packaged application (default: target/*.war)
+#   USERNAME / PASSWORD   Account used to obtain a token (default: seeded admin)
+#   PORT / MANAGEMENT_PORT  Ports to boot on; readiness is polled on the latter
+#
+# Example: JAVA=/opt/jdk-21/bin/java scripts/compare-thread-modes.sh 2000 200
+
+set -euo pipefail
+
+REQUESTS=${1:-1000}
+CONCURRENCY=${2:-100}
+REQUEST_PATH=${3:-/api/tariffs/search?keyword=sugar}
+JAVA=${JAVA:-java}
+WAR=${WAR:-$(ls target/*.war | head -n 1)}
+PORT=${PORT:-18080}
+MANAGEMENT_PORT=${MANAGEMENT_PORT:-18081}
+USERNAME=${USERNAME:-admin}
+PASSWORD=${PASSWORD:-AdminTarrific12345!}
+BASE_URL="http://localhost:${PORT}"
+
+run_mode() {
+    local mode=$1 profiles=$2
+    local log
+    log=$(mktemp)
+
+    "$JAVA" -jar "$WAR" --server.port="$PORT" --management.server.port="$MANAGEMENT_PORT" \
+        --spring.profiles.active="$profiles" >"$log" 2>&1 &
+    local pid=$!
+
+    for _ in $(seq 1 120); do
+        # Ready only once seeding has created the login account
+        if curl -sf -o /dev/null "http://localhost:${MANAGEMENT_PORT}/actuator/health/readiness"; then
+            break
+        fi
+        sleep 1
+    done
+
+    local token
+    token=$(curl -s -X POST "$BASE_URL/login" -H 'Content-Type: application/json' \
+        -d "{\"username\":\"$USERNAME\",\"password\":\"$PASSWORD\"}" | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+    if [[ -z "$token" ]]; then
+        echo "[$mode] could not log in, see $log" >&2
+        kill "$pid"
+        return 1
+    fi
+
+    # Warm up JIT, connection pools and caches before measuring
+    seq 1 "$CONCURRENCY" | xargs -P "$CONCURRENCY" -I{} \
+        curl -s -o /dev/null -H "Authorization: Bearer $token" "$BASE_URL$REQUEST_PATH"
+
+    local times start end
+    times=$(mktemp)
+    start=$(date +%s.%N)
+    seq 1 "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+        curl -s -o /dev/null -w '%{time_total}\n' -H "Authorization: Bearer $token" \
+        "$BASE_URL$REQUEST_PATH" >>"$times"
+    end=$(date +%s.%N)
+
+    sort -n "$times" | awk -v mode="$mode" -v elapsed="$(echo "$end - $start" | bc)" '
+        { t[NR] = $1 }
+        END {
+            printf "%-8s %8.1f req/s   p50 %6.0f ms   p95 %6.0f ms   p99 %6.0f ms\n", mode, NR / elapsed,
+                t[int(NR * 0.50)] * 1000, t[int(NR * 0.95)] * 1000, t[int(NR * 0.99)] * 1000
+        }'
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    rm -f "$times" "$log"
+}
+
+echo "$REQUESTS requests, concurrency $CONCURRENCY, GET $REQUEST_PATH"
+run_mode platform default
+run_mode virtual virtual-threads
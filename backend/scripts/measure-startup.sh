@@ -0,0 +1,84 @@
+#!/usr/bin/env bash
+#
+# Measures time to first request of the plain WAR against the AOT-processed
+# jar with a CDS archive, the way a scale-out event sees it: from launching
+# the JVM to the first HTTP response on the app port, and to readiness on the
+# management port. Boots each mode several times against the configured
+# database and prints the median of each.
+#
+# Usage: scripts/measure-startup.sh [runs]
+#   Build both first: mvn clean package -P aot (produces target/*.war and target/aot/)
+#   JAVA     Java binary; the CDS archive is created with and only valid for it (default: java)
+#   PORT / MANAGEMENT_PORT  Ports to boot on (default: 18080 / 18081)
+#
+# Example: SPRING_DATASOURCE_URL=jdbc:mysql://localhost:3307/TarrificDB JWT_SECRET=... scripts/measure-startup.sh 5
+
+set -euo pipefail
+
+RUNS=${1:-5}
+JAVA=${JAVA:-java}
+WAR=${WAR:-$(ls target/*.war | head -n 1)}
+AOT_DIR=${AOT_DIR:-target/aot}
+AOT_JAR=$(ls "$AOT_DIR"/*-aot.jar | head -n 1)
+PORT=${PORT:-18080}
+MANAGEMENT_PORT=${MANAGEMENT_PORT:-18081}
+PORTS=(--server.port="$PORT" --management.server.port="$MANAGEMENT_PORT")
+
+now_ms() {
+    date +%s%3N
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+# Boots one command, prints "<first response ms> <ready ms>" and stops it
+boot_once() {
+    local log start first='' pid
+    log=$(mktemp)
+    start=$(now_ms)
+    "$@" "${PORTS[@]}" >"$log" 2>&1 &
+    pid=$!
+    for _ in $(seq 1 1200); do
+        if [[ -z "$first" ]] && [[ $(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/login") != 000 ]]; then
+            first=$(( $(now_ms) - start ))
+        fi
+        if [[ -n "$first" ]] && curl -sf -o /dev/null "http://localhost:$MANAGEMENT_PORT/actuator/health/readiness"; then
+            echo "$first $(( $(now_ms) - start ))"
+            kill "$pid"
+            wait "$pid" 2>/dev/null || true
+            rm -f "$log"
+            return 0
+        fi
+        sleep 0.05
+    done
+    echo "did not become ready, see $log" >&2
+    kill "$pid"
+    return 1
+}
+
+run_mode() {
+    local mode=$1
+    shift
+    local results
+    results=$(mktemp)
+    boot_once "$@" >/dev/null # warms the OS page cache so every mode starts from the same state
+    for _ in $(seq 1 "$RUNS"); do
+        boot_once "$@" >>"$results"
+    done
+    printf "%-10s first response %6s ms   ready %6s ms\n" "$mode" \
+        "$(cut -d' ' -f1 "$results" | median)" "$(cut -d' ' -f2 "$results" | median)"
+    rm -f "$results"
+}
+
+if [[ ! -f "$AOT_DIR/app.jsa" ]]; then
+    echo "Creating CDS archive with a training run"
+    (cd "$AOT_DIR" && "$JAVA" -XX:ArchiveClassesAtExit=app.jsa -Dspring.aot.enabled=true \
+        -Dspring.context.exit=onRefresh -Dspring.profiles.active=cds-training -jar "$(basename "$AOT_JAR")")
+fi
+
+echo "Median of $RUNS starts"
+run_mode war "$JAVA" -jar "$WAR"
+# Started from the same directory as the training run, so the classpath matches the archive
+run_mode aot+cds bash -c 'cd "$0" && exec "$1" -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -jar "$2" "${@:3}"' \
+    "$AOT_DIR" "$JAVA" "$(basename "$AOT_JAR")"
@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+#
+# Rebuilds the catalog snapshot that DataSeeder loads into an empty database.
+# Runs the same keyword searches as the weekly ProductService.fetchExternal
+# job against the HTS API and stores the raw responses, gzipped, together with
+# the capture date.
+#
+# Usage: scripts/refresh-catalog-snapshot.sh
+#   HTS_BASE_URL  HTS API to query (default: https://hts.usitc.gov)
+#   OUT           Snapshot to write (default: src/main/resources/seed/catalog-snapshot.json.gz)
+
+set -euo pipefail
+
+HTS_BASE_URL=${HTS_BASE_URL:-https://hts.usitc.gov}
+OUT=${OUT:-src/main/resources/seed/catalog-snapshot.json.gz}
+KEYWORDS=(sugar bread milk egg rice)
+
+tmp=$(mktemp)
+trap 'rm -f "$tmp"' EXIT
+
+{
+    printf '{"capturedOn":"%s","categories":{' "$(date -u +%F)"
+    separator=''
+    for keyword in "${KEYWORDS[@]}"; do
+        printf '%s"%s":' "$separator" "$keyword"
+        curl -fsS "$HTS_BASE_URL/reststop/search?keyword=$keyword"
+        separator=','
+    done
+    printf '}}'
+} >"$tmp"
+
+gzip -9 -n -c "$tmp" >"$OUT"
+echo "Wrote $OUT ($(wc -c <"$tmp") bytes of JSON)"
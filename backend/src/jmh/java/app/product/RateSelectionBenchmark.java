@@ -0,0 +1,86 @@
+package app.product;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import app.query.RecordedPayloads;
+
+/**
+ * Benchmarks per-country rate selection in {@link ProductService} over the
+ * products of a recorded "milk" search. The repository is an in-memory stand
+ * in, so only the selection itself is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateSelectionBenchmark {
+
+    // Has both a free FTA list and a reduced rate for one partner
+    private static final String HTS_CODE = "0401.50.75.00";
+    private static final String[] COUNTRIES = { "AU", "KR", "SG", "CA", "DE", "CN" };
+
+    private List<Product> products;
+    private ProductService productService;
+
+    @Setup
+    public void setUp() {
+        products = new ArrayList<>();
+        Map<String, Product> latest = new HashMap<>();
+        for (Map<String, Object> article : RecordedPayloads.load("milk")) {
+            String general = (String) article.get("general");
+            if (general == null || general.isEmpty()) {
+                continue;
+            }
+            Product product = new Product((String) article.get("htsno"), LocalDate.of(2025, 1, 6),
+                    (String) article.get("description"), general, (String) article.get("special"), "milk");
+            products.add(product);
+            latest.put(product.getHtsCode(), product);
+        }
+
+        ProductRepository repository = (ProductRepository) Proxy.newProxyInstance(
+                ProductRepository.class.getClassLoader(), new Class<?>[] { ProductRepository.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findTopByHtsCodeOrderByFetchDateDesc")) {
+                        return Optional.ofNullable(latest.get((String) args[0]));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        // Rate selection only reads the repository
+        productService = new ProductService(repository, null, null, null, null, null, null, null, "0 0 0 * * MON");
+    }
+
+    @Benchmark
+    public void selectPrice(Blackhole blackhole) {
+        for (Product product : products) {
+            for (String country : COUNTRIES) {
+                blackhole.consume(productService.selectPrice(product, country));
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> mapCountryToPrice() {
+        return productService.mapCountryToPrice(HTS_CODE);
+    }
+}
@@ -0,0 +1,67 @@
+package app.query;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Loads HTS search responses recorded from the upstream REST API, so the
+ * benchmarks run against the same shape and size of data as production.
+ */
+public final class RecordedPayloads {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private RecordedPayloads() {
+    }
+
+    /**
+     * Reads a recorded search response from {@code /hts/<name>.json}.
+     *
+     * @param name Name of the recording
+     * @return Tariff articles in the order the API returned them
+     */
+    public static List<Map<String, Object>> load(String name) {
+        try (InputStream in = RecordedPayloads.class.getResourceAsStream("/hts/" + name + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("No recorded payload named " + name);
+            }
+            return MAPPER.readValue(in, new TypeReference<List<Map<String, Object>>>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a client that answers searches from a recording instead of the
+     * network. A code search returns the articles under that code, like the
+     * upstream API; a keyword search returns the whole recording.
+     *
+     * @param articles Recorded articles
+     * @return Offline API client
+     */
+    public static TariffApiClient client(List<Map<String, Object>> articles) {
+        // No scheduler, circuit, hedger or fallback: the overridden search never reaches the network
+        return new TariffApiClient("http://localhost", Duration.ofSeconds(10), new SimpleMeterRegistry(), MAPPER,
+                null, null, null, null, null) {
+            @Override
+            public List<Map<String, Object>> searchTariffArticles(String keyword) {
+                if (!keyword.matches("\\d+(\\.\\d+)*")) {
+                    return articles;
+                }
+                return articles.stream()
+                        .filter(item -> item.get("htsno").toString().startsWith(keyword))
+                        .toList();
+            }
+        };
+    }
+}
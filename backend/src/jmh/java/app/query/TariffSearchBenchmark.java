@@ -0,0 +1,94 @@
+package app.query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the search, ranking and rate parsing paths of
+ * {@link TariffService} against a recorded "milk" search (HTS chapter 04).
+ * The upstream API is replaced by the recording, so only our own code is
+ * measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TariffSearchBenchmark {
+
+    private List<Map<String, Object>> articles;
+    private TariffService tariffService;
+    private List<Map<String, Object>> summaries;
+    private List<String> rates;
+
+    /**
+     * Keyword and code queries, which take different filtering paths.
+     */
+    @State(Scope.Benchmark)
+    public static class Query {
+        @Param({ "milk", "0402", "0401.50" })
+        String value;
+    }
+
+    @Setup
+    public void setUp() {
+        articles = RecordedPayloads.load("milk");
+        tariffService = new TariffService(RecordedPayloads.client(articles), Runnable::run);
+
+        // Every article with its description chain, as the ranking sees them
+        Map<Object, Map<String, Object>> byCode = new LinkedHashMap<>();
+        for (Map<String, Object> article : articles) {
+            for (Map<String, Object> summary : tariffService.extractTariffSummary(article.get("htsno").toString())) {
+                byCode.putIfAbsent(summary.get("htsno"), summary);
+            }
+        }
+        summaries = new ArrayList<>(byCode.values());
+
+        rates = new ArrayList<>();
+        for (Map<String, Object> article : articles) {
+            rates.add((String) article.get("general"));
+            rates.add((String) article.get("other"));
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getNextLevelHtsCodes(Query query) {
+        return tariffService.getNextLevelHtsCodes(query.value);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> sortByKeywordPosition() {
+        return TariffService.sortByKeywordPosition(summaries, "milk");
+    }
+
+    @Benchmark
+    public void parseTariffValue(Blackhole blackhole) {
+        for (String rate : rates) {
+            blackhole.consume(TariffUtils.parseTariffValue(rate));
+        }
+    }
+
+    @Benchmark
+    public void extractCountryTariffs(Blackhole blackhole) {
+        for (Map<String, Object> article : articles) {
+            blackhole.consume(tariffService.extractCountryTariffs(article));
+        }
+    }
+}
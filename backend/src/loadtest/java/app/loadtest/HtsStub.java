@@ -0,0 +1,140 @@
+package app.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded stand-in for the USITC {@code /reststop/search} endpoint, serving
+ * the recorded responses in {@code /hts/*.json}. A keyword search returns the
+ * recording of that name, a code search returns every recorded article under
+ * the code, and anything else returns an empty result like the real API.
+ */
+final class HtsStub implements AutoCloseable {
+
+    static final List<String> RECORDINGS = List.of("milk", "egg", "sugar");
+
+    private static final byte[] EMPTY = "[]".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, byte[]> byKeyword = new HashMap<>();
+    private final List<Map<String, Object>> articles = new ArrayList<>();
+    private final long latencyMillis;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpServer server;
+
+    /**
+     * Starts the stub on a free loopback port.
+     *
+     * @param latencyMillis Delay added to every response, to mimic the real
+     *                      upstream round trip
+     */
+    HtsStub(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        for (String name : RECORDINGS) {
+            try (InputStream in = HtsStub.class.getResourceAsStream("/hts/" + name + ".json")) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing recording /hts/" + name + ".json");
+                }
+                List<Map<String, Object>> recorded = mapper.readValue(in,
+                        new TypeReference<List<Map<String, Object>>>() {
+                        });
+                articles.addAll(recorded);
+                byKeyword.put(name, mapper.writeValueAsBytes(recorded));
+            }
+        }
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/reststop/search", this::search);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String baseUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    /**
+     * Returns the recorded codes that carry a rate, i.e. the codes the backend
+     * stores as products after seeding.
+     */
+    List<String> productCodes() {
+        List<String> codes = new ArrayList<>();
+        for (Map<String, Object> article : articles) {
+            Object general = article.get("general");
+            if (general != null && !general.toString().isEmpty()) {
+                codes.add(article.get("htsno").toString());
+            }
+        }
+        return codes;
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = respond(keyword(exchange.getRequestURI().getRawQuery()));
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private byte[] respond(String keyword) throws IOException {
+        if (keyword == null) {
+            return EMPTY;
+        }
+        byte[] recorded = byKeyword.get(keyword.toLowerCase());
+        if (recorded != null) {
+            return recorded;
+        }
+        if (!keyword.matches("\\d+(\\.\\d+)*")) {
+            return EMPTY;
+        }
+        List<Map<String, Object>> matches = articles.stream()
+                .filter(article -> article.get("htsno").toString().startsWith(keyword))
+                .toList();
+        return mapper.writeValueAsBytes(matches);
+    }
+
+    private static String keyword(String rawQuery) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.startsWith("keyword=")) {
+                return URLDecoder.decode(pair.substring("keyword=".length()), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,94 @@
+package app.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects response times per endpoint. Each virtual user owns one recorder,
+ * so recording is never contended; the recorders are merged once the run is
+ * over.
+ */
+final class LatencyRecorder {
+
+    private final Map<String, Samples> byEndpoint = new TreeMap<>();
+
+    void record(String endpoint, long nanos, boolean error) {
+        byEndpoint.computeIfAbsent(endpoint, key -> new Samples()).add(nanos, error);
+    }
+
+    void mergeFrom(LatencyRecorder other) {
+        other.byEndpoint.forEach((endpoint, samples) ->
+                byEndpoint.computeIfAbsent(endpoint, key -> new Samples()).addAll(samples));
+    }
+
+    /**
+     * Prints requests, errors, throughput and p50/p99/p999 latency for every
+     * endpoint, followed by the totals.
+     *
+     * @param out          Where to print the table
+     * @param elapsedNanos Length of the measured window
+     */
+    void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        String format = "%-36s %9s %7s %9s %9s %9s %9s%n";
+        out.printf(format, "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        Samples total = new Samples();
+        for (Map.Entry<String, Samples> entry : byEndpoint.entrySet()) {
+            print(out, format, entry.getKey(), entry.getValue(), seconds);
+            total.addAll(entry.getValue());
+        }
+        print(out, format, "TOTAL", total, seconds);
+    }
+
+    private static void print(PrintStream out, String format, String endpoint, Samples samples, double seconds) {
+        long[] sorted = samples.sorted();
+        out.printf(format, endpoint, sorted.length, samples.errors,
+                String.format("%.1f", sorted.length / seconds),
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)), millis(percentile(sorted, 0.999)));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private int errors;
+
+        void add(long value, boolean error) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+            if (error) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            if (size + other.size > nanos.length) {
+                nanos = Arrays.copyOf(nanos, Math.max(size + other.size, nanos.length * 2));
+            }
+            System.arraycopy(other.nanos, 0, nanos, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package app.loadtest;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import app.RunApplication;
+
+/**
+ * End-to-end load test. Starts an {@link HtsStub} in place of the USITC API,
+ * boots the backend in-process against it and an in-memory H2 database, then
+ * drives it with {@link VirtualUser}s and prints latency percentiles and
+ * throughput per endpoint.
+ *
+ * <p>
+ * Options, all {@code --name=value}:
+ * <ul>
+ * <li>{@code users} concurrent virtual users (default 50)</li>
+ * <li>{@code warmup} seconds of load before measuring starts (default 15)</li>
+ * <li>{@code duration} seconds measured (default 60)</li>
+ * <li>{@code upstream-latency-ms} delay added by the HTS stub (default 0)</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int users = Integer.parseInt(options.getOrDefault("users", "50"));
+        long warmupSeconds = Long.parseLong(options.getOrDefault("warmup", "15"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "60"));
+        long upstreamLatency = Long.parseLong(options.getOrDefault("upstream-latency-ms", "0"));
+
+        try (HtsStub stub = new HtsStub(upstreamLatency);
+                ConfigurableApplicationContext app = new SpringApplicationBuilder(RunApplication.class)
+                        .profiles("loadtest")
+                        .run("--server.port=0", "--management.server.port=0",
+                                "--app.hts.base-url=" + stub.baseUrl())) {
+            int port = ((ServletWebServerApplicationContext) app).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+            System.out.printf("Backend on %s, HTS stub on %s%n", baseUrl, stub.baseUrl());
+
+            HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            List<String> codes = stub.productCodes();
+            List<VirtualUser> virtualUsers = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                VirtualUser user = new VirtualUser(http, baseUrl, codes, i);
+                user.signUp();
+                virtualUsers.add(user);
+            }
+
+            // Sign-ups hash passwords, so only start the clock once they are done
+            long measureFrom = System.nanoTime() + Duration.ofSeconds(warmupSeconds).toNanos();
+            long end = measureFrom + Duration.ofSeconds(durationSeconds).toNanos();
+            for (VirtualUser user : virtualUsers) {
+                user.schedule(measureFrom, end);
+            }
+
+            System.out.printf("Running %d users: %ds warmup, %ds measured%n", users, warmupSeconds,
+                    durationSeconds);
+            ExecutorService pool = Executors.newFixedThreadPool(users);
+            try {
+                List<Future<?>> running = new ArrayList<>();
+                for (VirtualUser user : virtualUsers) {
+                    running.add(pool.submit(user));
+                }
+                for (Future<?> future : running) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            LatencyRecorder total = new LatencyRecorder();
+            for (VirtualUser user : virtualUsers) {
+                total.mergeFrom(user.recorder());
+            }
+            total.print(System.out, end - measureFrom);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,196 @@
+package app.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * One simulated client. It signs up its own account, then issues requests
+ * back to back in a fixed mix until the run ends:
+ *
+ * <pre>
+ *   30%  tariff search          GET  /api/tariffs/search
+ *   20%  product lookup         GET  /product/hts/{code}
+ *   10%  country price history  GET  /product/price/{code}/{country}
+ *   15%  country price map      GET  /product/price/map/{code}
+ *   12%  list favourites        GET  /accounts/{id}/favourites
+ *    8%  add/remove favourite   POST/DELETE /accounts/{id}/favourites
+ *    5%  login                  POST /login
+ * </pre>
+ */
+final class VirtualUser implements Runnable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> KEYWORDS = List.of("milk", "egg", "sugar", "0402", "1704");
+    private static final List<String> COUNTRIES = List.of("AU", "KR", "SG", "CA", "DE", "CN");
+    private static final String PASSWORD = "LoadTest12345!";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final List<String> codes;
+    private final String username;
+    private final Random random;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final Set<String> favourites = new LinkedHashSet<>();
+
+    private String token;
+    private int userId;
+    private long measureFromNanos;
+    private long endNanos;
+
+    VirtualUser(HttpClient http, String baseUrl, List<String> codes, int index) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.codes = codes;
+        this.username = "loaduser" + index;
+        this.random = new Random(index);
+    }
+
+    LatencyRecorder recorder() {
+        return recorder;
+    }
+
+    /**
+     * Creates the account and logs in. Not measured.
+     */
+    void signUp() throws IOException, InterruptedException {
+        String account = MAPPER.writeValueAsString(Map.of(
+                "username", username,
+                "email", username + "@loadtest.local",
+                "password", PASSWORD));
+        HttpResponse<String> created = http.send(post("/accounts", account), HttpResponse.BodyHandlers.ofString());
+        if (created.statusCode() >= 400) {
+            throw new IllegalStateException("Could not create " + username + ": " + created.body());
+        }
+        token = token(http.send(login(), HttpResponse.BodyHandlers.ofString()));
+        HttpResponse<String> current = http.send(get("/accounts/current"), HttpResponse.BodyHandlers.ofString());
+        userId = MAPPER.readTree(current.body()).get("userId").asInt();
+    }
+
+    /**
+     * Sets the window in which responses are recorded and when to stop.
+     */
+    void schedule(long measureFromNanos, long endNanos) {
+        this.measureFromNanos = measureFromNanos;
+        this.endNanos = endNanos;
+    }
+
+    @Override
+    public void run() {
+        while (System.nanoTime() < endNanos) {
+            step();
+        }
+    }
+
+    private void step() {
+        int roll = random.nextInt(100);
+        String code = pick(codes);
+        if (roll < 30) {
+            call("GET /api/tariffs/search", get("/api/tariffs/search?keyword=" + pick(KEYWORDS)));
+        } else if (roll < 50) {
+            call("GET /product/hts/{code}", get("/product/hts/" + code));
+        } else if (roll < 60) {
+            call("GET /product/price/{code}/{country}", get("/product/price/" + code + "/" + pick(COUNTRIES)));
+        } else if (roll < 75) {
+            call("GET /product/price/map/{code}", get("/product/price/map/" + code));
+        } else if (roll < 87) {
+            call("GET /accounts/{id}/favourites", get(favouritesPath()));
+        } else if (roll < 95) {
+            toggleFavourite(code);
+        } else {
+            HttpResponse<String> response = call("POST /login", login());
+            if (response != null && response.statusCode() == 200) {
+                token = token(response);
+            }
+        }
+    }
+
+    private void toggleFavourite(String code) {
+        if (favourites.size() >= 5 || (!favourites.isEmpty() && random.nextBoolean())) {
+            String remove = pick(new ArrayList<>(favourites));
+            HttpResponse<String> response = call("DELETE /accounts/{id}/favourites",
+                    request(favouritesPath() + "?htsCode=" + remove).DELETE().build());
+            if (response != null && response.statusCode() == 200) {
+                favourites.remove(remove);
+            }
+        } else if (!favourites.contains(code)) {
+            HttpResponse<String> response = call("POST /accounts/{id}/favourites",
+                    request(favouritesPath() + "?htsCode=" + code).POST(HttpRequest.BodyPublishers.noBody()).build());
+            if (response != null && response.statusCode() == 200) {
+                favourites.add(code);
+            }
+        }
+    }
+
+    private HttpResponse<String> call(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            // Counted as an error below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long end = System.nanoTime();
+        if (start >= measureFromNanos) {
+            recorder.record(endpoint, end - start, response == null || response.statusCode() >= 400);
+        }
+        return response;
+    }
+
+    private String favouritesPath() {
+        return "/accounts/" + userId + "/favourites";
+    }
+
+    private HttpRequest login() {
+        try {
+            return post("/login", MAPPER.writeValueAsString(Map.of("username", username, "password", PASSWORD)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static String token(HttpResponse<String> response) {
+        try {
+            return MAPPER.readTree(response.body()).get("token").asText();
+        } catch (IOException e) {
+            throw new IllegalStateException("Login failed: " + response.body(), e);
+        }
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
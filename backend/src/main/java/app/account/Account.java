@@ -1,11 +1,8 @@
 package app.account;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
-import app.favourites.Favourites;
 import app.query.Query;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.CascadeType;
@@ -13,9 +10,6 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.JoinTable;
-import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
@@ -29,8 +23,8 @@ import lombok.ToString;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@EqualsAndHashCode(exclude = {"queries", "favourites"})
-@ToString(exclude = {"queries", "favourites"})
+@EqualsAndHashCode(exclude = {"queries"})
+@ToString(exclude = {"queries"})
 public class Account {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer userID;
@@ -43,13 +37,6 @@ public class Account {
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL)
     private List<Query> queries = new ArrayList<>();
 
-    // User favourited hts codes
-    @JsonIgnore
-    @ManyToMany
-    @JoinTable(
-        name = "account_favourites",
-        joinColumns = @JoinColumn(name = "account_id"),
-        inverseJoinColumns = @JoinColumn(name = "hts_code")
-    )
-    private Set<Favourites> favourites = new HashSet<>();
+    // User favourited hts codes live in AccountFavourite join rows, so adding
+    // one never loads this account's other favourites
 }
\ No newline at end of file
@@ -48,7 +48,7 @@ public class AccountController {
                 "roles", auth.getAuthorities().stream()
                         .map(GrantedAuthority::getAuthority)
                         .toList(),
-                "favouriteHtsCodesCount", currentUser.getFavourites().size());
+                "favouriteHtsCodesCount", accountService.getFavouriteCount(currentUser.getUserID()));
 
         return ResponseEntity.ok(userDetails);
     }
@@ -101,8 +101,8 @@ public class AccountController {
      */
     @DeleteMapping("/{userID}")
     public ResponseEntity<String> deleteAccount(@PathVariable Integer userID) {
-        accountService.deleteAccount(userID);
-        return ResponseEntity.ok().body("Successfully deleted user.");
+        int deleted = accountService.deleteAccount(userID);
+        return ResponseEntity.ok().body("Successfully deleted user (" + deleted + " records removed).");
     }
 
     @PostMapping("/password-resets")
@@ -5,10 +5,31 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Integer> {
     Optional<Account> findByUsername(String username);
     Optional<Account> findByUserID(Integer userID);
     Optional<Account> findByEmail(String email);
+
+    /**
+     * Locks an account row until the transaction ends, so that changes to the
+     * account's favourites made under the lock cannot interleave.
+     *
+     * @return The user ID, if the account exists
+     */
+    @Query(value = "SELECT userid FROM account WHERE userid = :userID FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockByUserID(Integer userID);
+
+    /**
+     * Deletes an account row directly, bypassing cascades. Dependent queries and
+     * favourites must be removed beforehand.
+     *
+     * @return Number of accounts deleted (0 or 1)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Account a WHERE a.userID = :userID")
+    int deleteByUserID(Integer userID);
 }
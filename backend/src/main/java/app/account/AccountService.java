@@ -2,11 +2,16 @@ package app.account;
 
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import app.config.ResponseCache;
 import app.controller.AdminController.RoleUpdateRequest;
 import app.exception.InvalidPasswordException;
 import app.exception.UserConflictException;
 import app.exception.UserNotFoundException;
+import app.favourites.AccountFavouriteRepository;
+import app.favourites.FavouritesRepository;
+import app.query.QueryRepository;
 import app.security.PasswordChecker;
 
 import java.util.List;
@@ -19,15 +24,25 @@ import javax.security.auth.login.AccountNotFoundException;
 public class AccountService {
     private final AccountRepository accountRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final QueryRepository queryRepository;
+    private final FavouritesRepository favouritesRepository;
+    private final AccountFavouriteRepository accountFavouriteRepository;
+    private final ResponseCache responseCache;
 
     /**
      * Constructor-based injection.
      * 
      * @param accountRepository Repository dependency.
      */
-    public AccountService(AccountRepository accountRepository, BCryptPasswordEncoder passwordEncoder) {
+    public AccountService(AccountRepository accountRepository, BCryptPasswordEncoder passwordEncoder,
+            QueryRepository queryRepository, FavouritesRepository favouritesRepository,
+            AccountFavouriteRepository accountFavouriteRepository, ResponseCache responseCache) {
         this.accountRepository = accountRepository;
         this.passwordEncoder = passwordEncoder;
+        this.queryRepository = queryRepository;
+        this.favouritesRepository = favouritesRepository;
+        this.accountFavouriteRepository = accountFavouriteRepository;
+        this.responseCache = responseCache;
     }
 
     /**
@@ -46,6 +61,18 @@ public class AccountService {
         return account.get();
     }
 
+    /**
+     * Locks the account until the transaction ends.
+     *
+     * @param userID Target user ID.
+     * @throws UserNotFoundException if there is no such account
+     */
+    public void lockAccount(int userID) {
+        if (accountRepository.lockByUserID(userID).isEmpty()) {
+            throw new UserNotFoundException("Account with user ID " + userID + " not found!");
+        }
+    }
+
     /**
      * Retrieves the account given the username.
      * 
@@ -78,6 +105,16 @@ public class AccountService {
         return account.get();
     }
 
+    /**
+     * Counts the HTS codes a user has favourited without loading them.
+     * 
+     * @param userId Target user ID
+     * @return Number of favourited HTS codes
+     */
+    public long getFavouriteCount(Integer userId) {
+        return accountFavouriteRepository.countByAccountId(userId);
+    }
+
     /**
      * Gets all accounts in the system.
      * 
@@ -118,13 +155,31 @@ public class AccountService {
     }
 
     /**
-     * Deletes an Account by User ID.
+     * Deletes an Account by User ID, together with its query history and
+     * favourites. Each table is cleared with one set-based DELETE instead of
+     * loading the account's collections for cascading.
      * 
      * @param userId Target User ID.
+     * @return Total number of rows deleted across all tables.
+     * @throws UserNotFoundException if the account does not exist.
      */
-    public void deleteAccount(Integer userId) {
-        Account existing = getAccountByUserID(userId);
-        accountRepository.delete(existing);
+    @Transactional
+    public int deleteAccount(Integer userId) {
+        int queriesDeleted = queryRepository.deleteAllByUserId(userId);
+        // Locked first, so each counter drops once per link actually deleted
+        List<String> favourited = accountFavouriteRepository.lockAllForAccount(userId);
+        int favouritesDeleted = accountFavouriteRepository.deleteAllForAccount(userId);
+        if (!favourited.isEmpty()) {
+            favouritesRepository.addToCount(favourited, -1);
+        }
+        int accountsDeleted = accountRepository.deleteByUserID(userId);
+
+        if (accountsDeleted == 0) {
+            throw new UserNotFoundException("Account with user ID " + userId + " not found!");
+        }
+        responseCache.invalidate(ResponseCache.QUERIES);
+
+        return queriesDeleted + favouritesDeleted + accountsDeleted;
     }
 
     /**
@@ -0,0 +1,230 @@
+package app.config;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Keeps the in-process caches of several instances coherent through the
+ * database, without a message broker.
+ * <p>
+ * A cache that changes publishes the affected domain and key. Once the
+ * surrounding transaction commits, the change is queued and then written to
+ * the {@code cache_change_log} table together with the other queued changes,
+ * so a burst of identical invalidations becomes one row. Every instance polls
+ * the table for versions past its cursor and hands the changes made by other
+ * instances to the handler registered for the domain. A change therefore
+ * reaches the other instances within about two sync intervals; the measured
+ * delay is published as {@code cache.invalidation.lag}. Other changes that
+ * every instance has to hear about, such as the tariff changes streamed to
+ * clients, travel the same way under a domain of their own.
+ * <p>
+ * Versions are auto-increment ids, which concurrent writers may commit out of
+ * order. The cursor only moves past versions that have been read, and waits
+ * for a missing version for {@code app.cache-bus.gap-timeout} before assuming
+ * it was rolled back.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long gapTimeoutNanos;
+    private final Duration retention;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+    private final Set<Change> pending = ConcurrentHashMap.newKeySet();
+
+    // Only touched by sync(), which the scheduler never runs concurrently
+    private Long cursor;
+    private final NavigableSet<Long> readPastCursor = new TreeSet<>();
+    private long gapSince;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${app.cache-bus.gap-timeout:10s}") Duration gapTimeout,
+            @Value("${app.cache-bus.retention:1h}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.retention = retention;
+    }
+
+    /**
+     * Registers how this instance applies a change made by another instance.
+     *
+     * @param domain  Cache domain, at most 32 characters
+     * @param handler Called with the changed key, or null if the whole domain
+     *                changed
+     */
+    public void register(String domain, Consumer<String> handler) {
+        handlers.put(domain, handler);
+    }
+
+    /**
+     * Tells the other instances that cached data changed. The caller applies
+     * the change to its own caches itself. Inside a transaction the change is
+     * only sent once it commits, and not at all if it rolls back.
+     *
+     * @param domain Cache domain the data belongs to
+     * @param key    Changed key, or null if the whole domain changed
+     */
+    public void publish(String domain, String key) {
+        Change change = new Change(domain, key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.add(change);
+                }
+            });
+        } else {
+            pending.add(change);
+        }
+    }
+
+    /**
+     * Writes the queued changes, then applies those of other instances.
+     */
+    @Scheduled(fixedDelayString = "${app.cache-bus.sync-ms:1000}")
+    public void sync() {
+        try {
+            flush();
+            poll();
+        } catch (DataAccessException e) {
+            logger.warn(SamplingTurboFilter.SAMPLED, "Cache invalidation sync failed: {}", e.getMessage());
+        }
+    }
+
+    private void flush() {
+        List<Change> changes = new ArrayList<>(pending);
+        if (changes.isEmpty()) {
+            return;
+        }
+        pending.removeAll(changes);
+        try {
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO cache_change_log (cache_domain, cache_key, origin, changed_at)
+                    VALUES (?, ?, ?, CURRENT_TIMESTAMP(3))
+                    """, changes, changes.size(), (statement, change) -> {
+                statement.setString(1, change.domain());
+                statement.setString(2, change.key());
+                statement.setString(3, nodeId);
+            });
+        } catch (DataAccessException e) {
+            // Sent with the next sync instead
+            pending.addAll(changes);
+            throw e;
+        }
+    }
+
+    private void poll() {
+        if (cursor == null) {
+            // Caches start empty, so earlier changes do not matter
+            cursor = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(version), 0) FROM cache_change_log",
+                    Long.class);
+            return;
+        }
+
+        List<LoggedChange> changes = jdbcTemplate.query("""
+                SELECT version, cache_domain, cache_key, origin, changed_at, CURRENT_TIMESTAMP(3) AS db_now
+                FROM cache_change_log
+                WHERE version > ?
+                ORDER BY version
+                LIMIT ?
+                """, (rs, row) -> new LoggedChange(rs.getLong("version"), rs.getString("cache_domain"),
+                rs.getString("cache_key"), rs.getString("origin"),
+                Duration.between(rs.getTimestamp("changed_at").toInstant(), rs.getTimestamp("db_now").toInstant())),
+                cursor, BATCH_SIZE);
+
+        for (LoggedChange change : changes) {
+            if (readPastCursor.add(change.version()) && !nodeId.equals(change.origin())) {
+                apply(change);
+            }
+        }
+        advanceCursor();
+    }
+
+    private void apply(LoggedChange change) {
+        Consumer<String> handler = handlers.get(change.domain());
+        if (handler == null) {
+            return;
+        }
+        handler.accept(change.key());
+        Timer.builder("cache.invalidation.lag")
+                .description("Time from a cache change on one instance to its eviction on another")
+                .tag("domain", change.domain())
+                .register(meterRegistry)
+                .record(change.age());
+    }
+
+    private void advanceCursor() {
+        while (readPastCursor.remove(cursor + 1)) {
+            cursor++;
+        }
+        if (readPastCursor.isEmpty()) {
+            gapSince = 0;
+            return;
+        }
+
+        // Versions past a missing one have been read: wait for it to commit
+        long now = System.nanoTime();
+        if (gapSince == 0) {
+            gapSince = now;
+        } else if (now - gapSince > gapTimeoutNanos) {
+            logger.debug("Skipping cache change log versions {} to {}, never committed", cursor + 1,
+                    readPastCursor.first() - 1);
+            cursor = readPastCursor.first() - 1;
+            gapSince = 0;
+            advanceCursor();
+        }
+    }
+
+    /**
+     * Deletes log entries older than the retention, long after every running
+     * instance has read them.
+     */
+    @Scheduled(fixedDelayString = "${app.cache-bus.prune-ms:600000}",
+            initialDelayString = "${app.cache-bus.prune-ms:600000}")
+    public void prune() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM cache_change_log WHERE changed_at < ?",
+                    Timestamp.from(Instant.now().minus(retention)));
+            logger.debug("Pruned {} cache change log entries", deleted);
+        } catch (DataAccessException e) {
+            logger.warn(SamplingTurboFilter.SAMPLED, "Cache change log pruning failed: {}", e.getMessage());
+        }
+    }
+
+    private record Change(String domain, String key) {
+    }
+
+    private record LoggedChange(long version, String domain, String key, String origin, Duration age) {
+    }
+}
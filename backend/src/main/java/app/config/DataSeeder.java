@@ -1,9 +1,16 @@
 package app.config;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,103 +20,145 @@ import app.account.Account;
 import app.account.AccountRepository;
 import app.fta.FTA;
 import app.fta.FTARepository;
+import app.fta.FTAScheduleIndex;
+import app.product.CatalogSnapshot;
 import app.product.Product;
 import app.product.ProductRepository;
-import app.product.ProductService;
+import app.product.TariffSeriesStore;
 import app.query.Query;
 import app.query.QueryRepository;
 
 /**
  * Database seeder that runs after Spring Boot starts and Hibernate creates tables.
  * Populates database with initial data on first startup.
+ *
+ * Products come from the bundled {@link CatalogSnapshot}, so startup never
+ * waits on the HTS API. Seeding runs on the application task executor unless
+ * app.seed.async is false, and {@link SeedingHealthIndicator} keeps the
+ * instance out of the readiness group until it is done.
  */
 @Configuration
 public class DataSeeder {
 
+    private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
+
+    // Synthetic history rows, so the price charts have more than one point
+    private static final List<LocalDate> HISTORY_DATES = List.of(LocalDate.of(2022, 1, 1), LocalDate.of(2023, 1, 1));
+
     @Bean
     CommandLineRunner seedDatabase(
             AccountRepository accountRepo, 
             QueryRepository queryRepo,
-            ProductService productService,
+            CatalogSnapshot catalogSnapshot,
             ProductRepository productRepo,
-            FTARepository ftaRepo) {
-        return args -> {
-            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-            
-            System.out.println("=== Starting Database Seeding ===");
-            
-            // ========== SEED PRODUCTS ==========
-            System.out.println("Seeding products...");
-            seedProducts(productService, productRepo);
-            
-            // ========== SEED FTAs ==========
-            System.out.println("Seeding FTA data...");
-            seedFTAs(ftaRepo);
-            
-            // ========== SEED ADMIN ACCOUNT ==========
-            System.out.println("Seeding admin account...");
-            seedUser(accountRepo, "admin@tarrific.com", "AdminTarrific12345!", "admin", "ADMIN", encoder);
-            
-            // ========== SEED REGULAR ACCOUNTS ==========
-            System.out.println("Seeding user accounts...");
-            Account rachel = seedUser(accountRepo, "rachel@tarrific.com", "PasswordRachel12345!", "rachel", "USER", encoder);
-            Account elodie = seedUser(accountRepo, "elodie@tarrific.com", "PasswordElodie12345!", "elodie", "USER", encoder);
-            Account xinyu = seedUser(accountRepo, "xinyu@tarrific.com", "PasswordXinyu12345!", "xinyu", "USER", encoder);
-            Account amos = seedUser(accountRepo, "amos@tarrific.com", "PasswordAmos12345!", "amos", "USER", encoder);
-            Account roopa = seedUser(accountRepo, "roopa@tarrific.com", "PasswordRoopa12345!", "roopa", "USER", encoder);
-            Account jordan = seedUser(accountRepo, "jordan@tarrific.com", "PasswordJordan12345!", "jordan", "USER", encoder);
-            
-            // ========== SEED HISTORICAL QUERIES ==========
-            System.out.println("Seeding historical queries...");
-            if (rachel != null) {
-                seedQuery(queryRepo, "0404.90.10.00", rachel);
-                seedQuery(queryRepo, "0404.90.10.00", rachel);
-                seedQuery(queryRepo, "0407.11.00.00", rachel);
-                seedQuery(queryRepo, "1905.90.10", rachel);
+            FTARepository ftaRepo,
+            FTAScheduleIndex ftaScheduleIndex,
+            ResponseCache responseCache,
+            TariffSeriesStore seriesStore,
+            SeedingHealthIndicator seedingHealth,
+            @Qualifier("applicationTaskExecutor") Executor executor,
+            @Value("${app.seed.async:true}") boolean async) {
+        Runnable seed = () -> {
+            long start = System.nanoTime();
+            seedingHealth.started();
+            try {
+                seed(accountRepo, queryRepo, catalogSnapshot, productRepo, ftaRepo);
+            } catch (RuntimeException e) {
+                logger.error("Database seeding failed", e);
+                seedingHealth.failed(e);
+                return;
+            } finally {
+                // Seeded rows bypass the services, so drop anything cached meanwhile
+                responseCache.invalidate(ResponseCache.CATALOG);
+                responseCache.invalidate(ResponseCache.QUERIES);
+                seriesStore.clear();
+                // Asynchronous seeding finishes after the index was first built
+                ftaScheduleIndex.rebuild();
             }
-            
-            if (elodie != null) {
-                seedQuery(queryRepo, "1905.90.10", elodie);
-                seedQuery(queryRepo, "1006.10.00.00", elodie);
-                seedQuery(queryRepo, "0404.90.10.00", elodie);
-                seedQuery(queryRepo, "2303.20.00", elodie);
+            Duration took = Duration.ofNanos(System.nanoTime() - start);
+            logger.info("Database seeding complete in {} ms", took.toMillis());
+            seedingHealth.completed(took);
+        };
+        return args -> {
+            if (async) {
+                executor.execute(seed);
+            } else {
+                seed.run();
             }
-            
-            System.out.println("=== Database Seeding Complete ===");
         };
     }
-    
+
+    private void seed(AccountRepository accountRepo, QueryRepository queryRepo, CatalogSnapshot catalogSnapshot,
+            ProductRepository productRepo, FTARepository ftaRepo) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+
+        logger.info("Starting database seeding");
+
+        // ========== SEED PRODUCTS ==========
+        logger.info("Seeding products");
+        seedProducts(catalogSnapshot, productRepo);
+
+        // ========== SEED FTAs ==========
+        logger.info("Seeding FTA data");
+        seedFTAs(ftaRepo);
+
+        // ========== SEED ADMIN ACCOUNT ==========
+        logger.info("Seeding accounts");
+        seedUser(accountRepo, "admin@tarrific.com", "AdminTarrific12345!", "admin", "ADMIN", encoder);
+
+        // ========== SEED REGULAR ACCOUNTS ==========
+        Account rachel = seedUser(accountRepo, "rachel@tarrific.com", "PasswordRachel12345!", "rachel", "USER", encoder);
+        Account elodie = seedUser(accountRepo, "elodie@tarrific.com", "PasswordElodie12345!", "elodie", "USER", encoder);
+        seedUser(accountRepo, "xinyu@tarrific.com", "PasswordXinyu12345!", "xinyu", "USER", encoder);
+        seedUser(accountRepo, "amos@tarrific.com", "PasswordAmos12345!", "amos", "USER", encoder);
+        seedUser(accountRepo, "roopa@tarrific.com", "PasswordRoopa12345!", "roopa", "USER", encoder);
+        seedUser(accountRepo, "jordan@tarrific.com", "PasswordJordan12345!", "jordan", "USER", encoder);
+
+        // ========== SEED HISTORICAL QUERIES ==========
+        logger.info("Seeding historical queries");
+        if (rachel != null) {
+            seedQuery(queryRepo, "0404.90.10.00", rachel);
+            seedQuery(queryRepo, "0404.90.10.00", rachel);
+            seedQuery(queryRepo, "0407.11.00.00", rachel);
+            seedQuery(queryRepo, "1905.90.10", rachel);
+        }
+
+        if (elodie != null) {
+            seedQuery(queryRepo, "1905.90.10", elodie);
+            seedQuery(queryRepo, "1006.10.00.00", elodie);
+            seedQuery(queryRepo, "0404.90.10.00", elodie);
+            seedQuery(queryRepo, "2303.20.00", elodie);
+        }
+    }
+
     /**
-     * Seeds products with historical data.
+     * Seeds products from the catalog snapshot, with historical data.
      */
-    private void seedProducts(ProductService productService, ProductRepository productRepo) {
+    private void seedProducts(CatalogSnapshot catalogSnapshot, ProductRepository productRepo) {
         // Check if products already seeded
         if (productRepo.count() > 0) {
-            System.out.println("  ✓ Products already seeded (count: " + productRepo.count() + ")");
+            logger.info("Products already seeded");
             return;
         }
-        
-        // Fetch products from external API
-        productService.fetchExternal();
-        List<Product> products = productRepo.findAll();
-        
-        System.out.println("  + Fetched " + products.size() + " products from external API");
-        
-        // Create historical data for 2022 and 2023
-        for (Product product : products) {
-            // 2022 version
-            product.setFetchDate(LocalDate.of(2022, 1, 1));
-            productRepo.save(product);
-            
-            // 2023 version with special handling
-            product.setFetchDate(LocalDate.of(2023, 1, 1));
-            if (product.getHtsCode().equals("0407.11.00.00")) {
-                product.setGeneral("2.6¢/doz.");
+
+        List<Product> current = catalogSnapshot.products();
+        List<Product> rows = new ArrayList<>(current.size() * (HISTORY_DATES.size() + 1));
+        rows.addAll(current);
+        for (LocalDate date : HISTORY_DATES) {
+            for (Product product : current) {
+                Product past = new Product(product.getHtsCode(), date, product.getDescription(),
+                        product.getGeneral(), product.getSpecial(), product.getCategory());
+                // 2023 version with special handling
+                if (date.getYear() == 2023 && past.getHtsCode().equals("0407.11.00.00")) {
+                    past.setGeneral("2.6¢/doz.");
+                }
+                rows.add(past);
             }
-            productRepo.save(product);
         }
-        
-        System.out.println("  + Created historical product data for 2022 and 2023");
+        productRepo.insertAll(rows);
+
+        logger.info("Loaded {} products from the catalog snapshot with history for {}", current.size(),
+                HISTORY_DATES);
     }
     
     /**
@@ -118,7 +167,7 @@ public class DataSeeder {
     private void seedFTAs(FTARepository ftaRepo) {
         // Check if FTAs already seeded
         if (ftaRepo.count() > 0) {
-            System.out.println("  ✓ FTAs already seeded (count: " + ftaRepo.count() + ")");
+            logger.info("FTAs already seeded");
             return;
         }
         
@@ -132,11 +181,9 @@ public class DataSeeder {
             new FTA("NZ", "0407.11.00.00", "Free", LocalDate.of(2035, 1, 1))
         );
         
-        for (FTA fta : ftas) {
-            ftaRepo.save(fta);
-        }
+        ftaRepo.saveAll(ftas);
         
-        System.out.println("  + Created " + ftas.size() + " FTA records");
+        logger.info("Created {} FTA records", ftas.size());
     }
     
     /**
@@ -148,7 +195,7 @@ public class DataSeeder {
         
         if (existing.isPresent()) {
             Account acc = existing.get();
-            System.out.println("  ✓ User already exists: " + email + " (Role: " + acc.getRole() + ")");
+            logger.debug("User already exists: {} (role {})", email, acc.getRole());
             return acc;
         }
         
@@ -159,7 +206,7 @@ public class DataSeeder {
         account.setRole(role);
         
         Account saved = repo.save(account);
-        System.out.println("  + Created " + role + ": " + email + " (ID: " + saved.getUserID() + ")");
+        logger.debug("Created {} account {} (ID {})", role, email, saved.getUserID());
         return saved;
     }
     
@@ -171,7 +218,7 @@ public class DataSeeder {
         query.setHtsCode(htsCode);
         query.setAccount(user);
         
-        Query saved = repo.save(query);
-        System.out.println("  + Created query: " + htsCode + " for user " + user.getUsername());
+        repo.save(query);
+        logger.debug("Created query {} for user {}", htsCode, user.getUsername());
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package app.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Builds the application DataSource in place of Boot's, so read-only
+ * transactions can go to read replicas. Without {@code app.datasource.replicas.urls}
+ * it is the same single Hikari pool Boot would build.
+ * <p>
+ * With replicas, the primary and every replica get their own pool, configured
+ * from {@code spring.datasource.*} and {@code spring.datasource.hikari.*} but
+ * with the replica's URL. They sit behind one
+ * {@link LazyConnectionDataSourceProxy}: the connection is only fetched at the
+ * first statement, once the transaction has marked it read-only, and
+ * read-only connections come from the {@link ReplicaSet}. The pools are not
+ * beans, so {@link SqlMonitoringConfig} wraps only the DataSource in front of
+ * them and every statement is counted once.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+            MeterRegistry meterRegistry, TaskScheduler taskScheduler,
+            @Value("${app.datasource.replicas.urls:}") List<String> replicaUrls,
+            @Value("${app.datasource.replicas.max-lag:2s}") Duration maxLag,
+            @Value("${app.datasource.replicas.check-interval:5s}") Duration checkInterval,
+            @Value("${app.datasource.replicas.allow-non-replicas:false}") boolean allowNonReplicas) {
+        HikariDataSource primary = pool(properties, environment, properties.determineUrl());
+        if (primary.getPoolName() == null && StringUtils.hasText(properties.getName())) {
+            primary.setPoolName(properties.getName());
+        }
+        if (replicaUrls.isEmpty()) {
+            return primary;
+        }
+
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = pool(properties, environment, replicaUrls.get(i));
+            replica.setPoolName("replica-" + (i + 1));
+            // Boot only binds pool metrics for DataSource beans
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicaPools.add(replica);
+        }
+        ReplicaSet replicas = new ReplicaSet(primary, replicaPools, maxLag, allowNonReplicas);
+        replicas.bindTo(meterRegistry);
+        ScheduledFuture<?> lagChecks = taskScheduler.scheduleWithFixedDelay(replicas::checkLag, checkInterval);
+        return new ReadWriteDataSource(primary, replicas, lagChecks);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment, String url) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        return pool;
+    }
+
+    /**
+     * Routes read-only connections to the replicas, and closes all pools with
+     * the context.
+     */
+    static final class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final HikariDataSource primary;
+        private final ReplicaSet replicas;
+        private final ScheduledFuture<?> lagChecks;
+
+        ReadWriteDataSource(HikariDataSource primary, ReplicaSet replicas, ScheduledFuture<?> lagChecks) {
+            super(primary);
+            setReadOnlyDataSource(replicas);
+            this.primary = primary;
+            this.replicas = replicas;
+            this.lagChecks = lagChecks;
+        }
+
+        @Override
+        public void close() {
+            lagChecks.cancel(false);
+            replicas.close();
+            primary.close();
+        }
+    }
+}
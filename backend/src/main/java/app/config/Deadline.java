@@ -0,0 +1,94 @@
+package app.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which a request must be answered. Controllers start one for
+ * the work they hand off with {@link #call}; code below them finds it with
+ * {@link #current} and gives up on work that would finish too late, returning
+ * what it has instead.
+ * <p>
+ * Like {@link ServerTiming}, the deadline belongs to the thread that is
+ * running the work. Work handed to other threads, such as parallel parent
+ * lookups, only observes it if it is passed on with {@link #call}. Outside a
+ * deadline, {@link #current} returns one that never expires.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+    private static final Deadline NONE = new Deadline(0, false);
+
+    private final long expiresAt;
+    private final boolean bounded;
+
+    private Deadline(long expiresAt, boolean bounded) {
+        this.expiresAt = expiresAt;
+        this.bounded = bounded;
+    }
+
+    /**
+     * @param budget Time from now that the work may take
+     * @return A deadline that expires once the budget has been spent
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), true);
+    }
+
+    /**
+     * @return The deadline of the work running on this thread, or one that
+     *         never expires
+     */
+    public static Deadline current() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null ? deadline : NONE;
+    }
+
+    /**
+     * Runs work on the current thread under this deadline.
+     *
+     * @param work The work; {@link #current} returns this deadline within it
+     * @return The work's result
+     */
+    public <T> T call(Supplier<T> work) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * @return Whether the deadline can expire at all
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - expiresAt >= 0;
+    }
+
+    /**
+     * @return Nanoseconds left, at least 0, or {@link Long#MAX_VALUE} if the
+     *         deadline never expires
+     */
+    public long remainingNanos() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, expiresAt - System.nanoTime());
+    }
+
+    @Override
+    public String toString() {
+        return bounded ? "Deadline in " + TimeUnit.NANOSECONDS.toMillis(remainingNanos()) + " ms" : "No deadline";
+    }
+}
@@ -0,0 +1,164 @@
+package app.config;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs scheduled jobs on exactly one instance, with leases held in the
+ * {@code job_lease} table.
+ * <p>
+ * Every instance polls {@link #runIfDue}. A job is due once the next time its
+ * schedule fires after its last successful run has passed. The first instance
+ * to claim the lease of a due job runs it and renews the lease every third of
+ * {@code app.jobs.lease-ttl} while it does; the others skip it. Renewals run
+ * on a thread of their own, so they cannot be held up by the job, which often
+ * runs on the only thread of the {@code @Scheduled} scheduler. If the owner
+ * dies, the lease runs out and the next instance to poll takes the job over
+ * and runs it again. A job that fails is retried after
+ * {@code app.jobs.retry-delay}, by whichever instance claims it.
+ * <p>
+ * A job split into partitions, each leased under its own name, is spread over
+ * the instances polling while it runs.
+ */
+@Component
+public class JobLeases {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLeases.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService heartbeats;
+    private final Duration ttl;
+    private final Duration retryDelay;
+
+    private final String owner;
+
+    public JobLeases(JdbcTemplate jdbcTemplate,
+            @Value("${app.jobs.lease-ttl:2m}") Duration ttl,
+            @Value("${app.jobs.retry-delay:15m}") Duration retryDelay,
+            @Value("${HOSTNAME:local}") String hostname) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ttl = ttl;
+        this.retryDelay = retryDelay;
+        String instance = hostname + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.owner = instance.length() > 64 ? instance.substring(instance.length() - 64) : instance;
+    }
+
+    /**
+     * Runs a job here if it is due and no other instance is running it. A job
+     * seen for the first time is not due until its schedule next fires.
+     *
+     * @param job      Job or partition name, at most 64 characters
+     * @param schedule When the job should run
+     * @param task     The job; throwing marks the run as failed
+     * @return Whether the job ran here, successfully or not
+     */
+    public boolean runIfDue(String job, CronExpression schedule, Runnable task) {
+        LocalDateTime completedAt = lastCompleted(job);
+        LocalDateTime dueAt = schedule.next(completedAt);
+        if (dueAt == null || dueAt.isAfter(LocalDateTime.now())) {
+            return false;
+        }
+        if (!acquire(job, completedAt)) {
+            return false;
+        }
+
+        logger.info("Running job {} on {}", job, owner);
+        long renewEvery = ttl.dividedBy(3).toMillis();
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> renew(job), renewEvery, renewEvery,
+                TimeUnit.MILLISECONDS);
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            heartbeat.cancel(false);
+            logger.error("Job {} failed, retrying in {}", job, retryDelay, e);
+            jdbcTemplate.update("""
+                    UPDATE job_lease
+                    SET owner = NULL, lease_until = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP(3))
+                    WHERE job_name = ? AND owner = ?
+                    """, retryDelay.toSeconds(), job, owner);
+            return true;
+        }
+        heartbeat.cancel(false);
+        jdbcTemplate.update("""
+                UPDATE job_lease SET owner = NULL, lease_until = NULL, completed_at = ?
+                WHERE job_name = ? AND owner = ?
+                """, Timestamp.valueOf(LocalDateTime.now()), job, owner);
+        logger.info("Job {} complete", job);
+        return true;
+    }
+
+    private LocalDateTime lastCompleted(String job) {
+        List<Timestamp> completed = jdbcTemplate.queryForList(
+                "SELECT completed_at FROM job_lease WHERE job_name = ?", Timestamp.class, job);
+        if (!completed.isEmpty()) {
+            return completed.get(0).toLocalDateTime();
+        }
+
+        // Millisecond precision, as stored
+        Timestamp now = Timestamp.from(Instant.ofEpochMilli(System.currentTimeMillis()));
+        try {
+            jdbcTemplate.update("INSERT INTO job_lease (job_name, completed_at) VALUES (?, ?)", job, now);
+            return now.toLocalDateTime();
+        } catch (DuplicateKeyException e) {
+            // Another instance registered it first
+            return lastCompleted(job);
+        }
+    }
+
+    /**
+     * Claims the lease if it is free or expired and nobody has completed the
+     * job since it was found due.
+     */
+    private boolean acquire(String job, LocalDateTime completedAt) {
+        return jdbcTemplate.update("""
+                UPDATE job_lease
+                SET owner = ?, lease_until = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP(3))
+                WHERE job_name = ? AND completed_at = ?
+                AND (lease_until IS NULL OR lease_until < CURRENT_TIMESTAMP(3))
+                """, owner, ttl.toSeconds(), job, Timestamp.valueOf(completedAt)) == 1;
+    }
+
+    private void renew(String job) {
+        try {
+            int renewed = jdbcTemplate.update("""
+                    UPDATE job_lease SET lease_until = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP(3))
+                    WHERE job_name = ? AND owner = ?
+                    """, ttl.toSeconds(), job, owner);
+            if (renewed == 0) {
+                logger.warn("Lost the lease of job {}; another instance may run it too", job);
+            }
+        } catch (DataAccessException e) {
+            // Tried again at the next renewal, which is still within the lease
+            logger.warn("Could not renew the lease of job {}: {}", job, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+}
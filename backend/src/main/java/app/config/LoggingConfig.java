@@ -0,0 +1,41 @@
+package app.config;
+
+import java.util.Map;
+
+import org.slf4j.MDC;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Carries the logging MDC, and with it the request id set by
+ * {@link RequestIdFilter}, onto the threads of Spring Boot's application task
+ * executor, so log lines from parallel parent lookups can be traced back to
+ * the request that caused them.
+ */
+@Configuration
+public class LoggingConfig {
+
+    @Bean
+    public TaskDecorator mdcTaskDecorator() {
+        return task -> {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            if (context == null) {
+                return task;
+            }
+            return () -> {
+                Map<String, String> previous = MDC.getCopyOfContextMap();
+                MDC.setContextMap(context);
+                try {
+                    task.run();
+                } finally {
+                    if (previous != null) {
+                        MDC.setContextMap(previous);
+                    } else {
+                        MDC.clear();
+                    }
+                }
+            };
+        };
+    }
+}
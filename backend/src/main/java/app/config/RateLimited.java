@@ -0,0 +1,21 @@
+package app.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate limits a controller method per user and per client IP; see
+ * {@link RateLimiter}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    /**
+     * Endpoint class whose limits apply, configured under
+     * {@code app.rate-limit.<class>}. Endpoints of one class share buckets.
+     */
+    String value();
+}
@@ -0,0 +1,224 @@
+package app.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import app.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Token-bucket rate limits for requests that call the upstream HTS API, so a
+ * single client cannot use up its capacity.
+ * <p>
+ * Each endpoint class has a bucket per user (JWT subject) and a larger one per
+ * client IP, configured under {@code app.rate-limit.<class>}: {@code capacity}
+ * requests may be made at once, refilled at {@code refill-per-minute}. A
+ * request takes a token from both buckets or from neither, and is otherwise
+ * rejected with a {@link RateLimitExceededException} telling the client when
+ * the next token arrives. Buckets are updated by compare-and-set, so requests
+ * never wait on each other, and buckets that have refilled completely are
+ * dropped.
+ * <p>
+ * Controller methods are limited with {@link RateLimited}; code that only
+ * sometimes calls upstream uses {@link #check(String)} before it does.
+ */
+@Component
+public class RateLimiter implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    // Endpoint classes
+    public static final String SEARCH = "tariff-search";
+    public static final String COUNTRIES = "tariff-countries";
+    public static final String PRODUCT_FALLBACK = "product-fallback";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    private final boolean enabled;
+    private final double ipMultiplier;
+
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimiter(Environment environment, MeterRegistry meterRegistry) {
+        this(environment, meterRegistry, System::nanoTime);
+    }
+
+    RateLimiter(Environment environment, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.enabled = environment.getProperty("app.rate-limit.enabled", Boolean.class, true);
+        this.ipMultiplier = environment.getProperty("app.rate-limit.ip-multiplier", Double.class, 4.0);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            RateLimited rateLimited = method.getMethodAnnotation(RateLimited.class);
+            if (rateLimited != null) {
+                check(rateLimited.value(), request);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes a token for the current request. Does nothing outside a request,
+     * e.g. in scheduled jobs.
+     *
+     * @param endpointClass Endpoint class whose limits apply
+     * @throws RateLimitExceededException if the user or client IP is over the
+     *                                    limit
+     */
+    public void check(String endpointClass) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            check(endpointClass, attributes.getRequest());
+        }
+    }
+
+    private void check(String endpointClass, HttpServletRequest request) {
+        if (!enabled) {
+            return;
+        }
+        Limit limit = limits.computeIfAbsent(endpointClass, this::loadLimit);
+        String user = currentUser();
+        // Behind a proxy, server.forward-headers-strategy makes this the client's address
+        String ip = request.getRemoteAddr();
+        long now = nanoClock.getAsLong();
+
+        Bucket userBucket = user == null ? null
+                : buckets.computeIfAbsent(endpointClass + "|user|" + user, key -> new Bucket(limit, 1, now));
+        if (userBucket != null) {
+            reject(endpointClass, "user", userBucket.tryTake(now));
+        }
+        Bucket ipBucket = buckets.computeIfAbsent(endpointClass + "|ip|" + ip,
+                key -> new Bucket(limit, ipMultiplier, now));
+        long ipWait = ipBucket.tryTake(now);
+        if (ipWait > 0 && userBucket != null) {
+            userBucket.giveBack(now);
+        }
+        reject(endpointClass, "ip", ipWait);
+    }
+
+    private void reject(String endpointClass, String keyedBy, long waitNanos) {
+        if (waitNanos <= 0) {
+            return;
+        }
+        Counter.builder("rate_limit.rejections")
+                .description("Requests rejected for exceeding a rate limit")
+                .tag("endpoint_class", endpointClass)
+                .tag("keyed_by", keyedBy)
+                .register(meterRegistry)
+                .increment();
+        long retryAfter = Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        logger.debug("Rate limit of {} exceeded per {}, retry after {}s", endpointClass, keyedBy, retryAfter);
+        throw new RateLimitExceededException("Too many requests, retry in " + retryAfter + " seconds",
+                retryAfter);
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private Limit loadLimit(String endpointClass) {
+        String prefix = "app.rate-limit." + endpointClass + ".";
+        int capacity = environment.getProperty(prefix + "capacity", Integer.class, 20);
+        double perMinute = environment.getProperty(prefix + "refill-per-minute", Double.class, 20.0);
+        if (capacity < 1 || perMinute <= 0) {
+            throw new IllegalStateException("Invalid rate limit for " + endpointClass + ": capacity " + capacity
+                    + ", refill-per-minute " + perMinute);
+        }
+        return new Limit(capacity, perMinute / TimeUnit.MINUTES.toNanos(1));
+    }
+
+    /**
+     * Drops buckets that have refilled completely, which behave exactly like
+     * new ones.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.evict-ms:60000}")
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    private record Limit(int capacity, double tokensPerNano) {
+    }
+
+    private record State(double tokens, long refilledAt) {
+    }
+
+    private static final class Bucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private final AtomicReference<State> state;
+
+        Bucket(Limit limit, double multiplier, long now) {
+            this.capacity = limit.capacity() * multiplier;
+            this.tokensPerNano = limit.tokensPerNano() * multiplier;
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        private double tokensAt(State current, long now) {
+            return Math.min(capacity, current.tokens() + Math.max(0, now - current.refilledAt()) * tokensPerNano);
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise nanoseconds until one is
+         *         available
+         */
+        long tryTake(long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = tokensAt(current, now);
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) / tokensPerNano);
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, Math.max(now, current.refilledAt())))) {
+                    return 0;
+                }
+            }
+        }
+
+        void giveBack(long now) {
+            state.updateAndGet(current -> new State(Math.min(capacity, tokensAt(current, now) + 1),
+                    Math.max(now, current.refilledAt())));
+        }
+
+        boolean isFull(long now) {
+            return tokensAt(state.get(), now) >= capacity;
+        }
+    }
+}
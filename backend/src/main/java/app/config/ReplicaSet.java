@@ -0,0 +1,158 @@
+package app.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Read replicas behind one DataSource, used for read-only transactions. Hands
+ * out connections from the replicas in turn, skipping any that is unreachable
+ * or further behind the primary than the allowed lag; with none left,
+ * connections come from the primary instead.
+ * <p>
+ * Lag is measured by {@link #checkLag()} with {@code SHOW REPLICA STATUS}. A
+ * MySQL server that is not replicating, for example because its replication
+ * was reset, could serve diverging data indefinitely, so it is kept out of the
+ * rotation, as is a database other than MySQL. Only with
+ * {@code app.datasource.replicas.allow-non-replicas} set does such a server
+ * merely have to be reachable, so two independent local databases can stand
+ * in for a primary and replica when testing.
+ */
+public class ReplicaSet extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final boolean allowNonReplicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary  Used when no replica is usable
+     * @param replicas Replica pools; closed with this set
+     * @param maxLag           Replicas further behind than this are skipped
+     * @param allowNonReplicas Whether a server that is not replicating may be
+     *                         used as a replica; for local testing only
+     */
+    public ReplicaSet(DataSource primary, List<HikariDataSource> replicas, Duration maxLag,
+            boolean allowNonReplicas) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+        this.allowNonReplicas = allowNonReplicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return pick().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return pick().getConnection(username, password);
+    }
+
+    /**
+     * @return The next usable replica in turn, or the primary if there is none
+     */
+    DataSource pick() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.usable) {
+                return replica.pool;
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * Measures every replica's lag and takes it out of, or back into, the
+     * rotation. Replicas start out of the rotation until their first check.
+     */
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            double lagSeconds;
+            try {
+                lagSeconds = lagSeconds(replica.pool);
+            } catch (SQLException e) {
+                logger.warn(SamplingTurboFilter.SAMPLED, "Replica {} unreachable: {}",
+                        replica.pool.getPoolName(), e.getMessage());
+                lagSeconds = Double.NaN;
+            }
+            replica.lagSeconds = lagSeconds;
+
+            // NaN, for unreachable, stopped or missing replication, fails the comparison
+            boolean usable = lagSeconds <= maxLag.toMillis() / 1000.0;
+            if (usable != replica.usable) {
+                logger.info("Replica {} {} (lag {} s)", replica.pool.getPoolName(),
+                        usable ? "back in rotation" : "out of rotation", lagSeconds);
+            }
+            replica.usable = usable;
+        }
+    }
+
+    private double lagSeconds(DataSource replica) throws SQLException {
+        // What a server that is not replicating counts as
+        double notReplicating = allowNonReplicas ? 0 : Double.NaN;
+        try (Connection connection = replica.getConnection()) {
+            if (!"MySQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return notReplicating;
+            }
+            try (Statement statement = connection.createStatement();
+                    ResultSet status = statement.executeQuery("SHOW REPLICA STATUS")) {
+                if (!status.next()) {
+                    return notReplicating;
+                }
+                long seconds = status.getLong("Seconds_Behind_Source");
+                // NULL while the replication threads are stopped
+                return status.wasNull() ? Double.NaN : seconds;
+            }
+        }
+    }
+
+    /**
+     * Publishes each replica's last measured lag as {@code db.replica.lag},
+     * NaN while it is unreachable or not replicating.
+     */
+    public void bindTo(MeterRegistry meterRegistry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("db.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Seconds the replica is behind the primary")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.pool.getPoolName())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private volatile boolean usable;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package app.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serves hot, rarely changing GET responses with strong ETags and keeps them
+ * as pre-serialized, pre-gzipped byte arrays.
+ *
+ * The ETag is a hash of the serialized body, so every instance gives the same
+ * body the same tag and a client moving between instances still gets 304s.
+ * Each response depends on one or more data domains (the product catalog, the
+ * query history). Every domain has a local revision counter that is bumped
+ * whenever its data changes; cached bodies are stamped with the revisions
+ * they were built from and are ignored once any of them moves on. While the
+ * cached body is current, a request whose {@code If-None-Match} matches its
+ * tag is answered with 304 before the body supplier runs, so it never touches
+ * the repository. Invalidations are passed on to the other instances through
+ * the {@link CacheInvalidationBus}. Bodies must be built from the primary
+ * database, not a read replica, which may not have the change that moved the
+ * revision on yet.
+ */
+@Component
+public class ResponseCache {
+
+    /** Products, as written by the weekly ingest and the seeder. */
+    public static final String CATALOG = "catalog";
+
+    /** Query history, which drives the most-queried ranking. */
+    public static final String QUERIES = "queries";
+
+    private static final int MAX_ENTRIES = 2048;
+
+    // Gzip is skipped for bodies too small to benefit from it
+    private static final int MIN_GZIP_SIZE = 512;
+
+    private final ObjectMapper objectMapper;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Map<String, AtomicLong> revisions = new ConcurrentHashMap<>();
+    private final Map<String, CachedBody> bodies = new ConcurrentHashMap<>();
+
+    public ResponseCache(ObjectMapper objectMapper, CacheInvalidationBus invalidationBus) {
+        this.objectMapper = objectMapper;
+        this.invalidationBus = invalidationBus;
+        for (String domain : new String[] {CATALOG, QUERIES}) {
+            invalidationBus.register(domain, key -> revision(domain).incrementAndGet());
+        }
+    }
+
+    /**
+     * Marks a data domain as changed, on every instance, invalidating every
+     * cached body that depends on it. Inside a transaction the revision only moves on once
+     * it commits, as with {@link CacheInvalidationBus#publish}; bumped earlier,
+     * a concurrent GET could cache the rows from before the commit under the
+     * new revision.
+     *
+     * @param domain Domain that changed, e.g. {@link #CATALOG}
+     */
+    public void invalidate(String domain) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revision(domain).incrementAndGet();
+                }
+            });
+        } else {
+            revision(domain).incrementAndGet();
+        }
+        invalidationBus.publish(domain, null);
+    }
+
+    /**
+     * Marks a data domain as changed on this instance only, so its bodies are
+     * rebuilt on next use. For data whose changes are not tracked one by one,
+     * such as the query ranking, refreshed periodically on every instance.
+     *
+     * @param domain Domain to rebuild, e.g. {@link #QUERIES}
+     */
+    public void expire(String domain) {
+        revision(domain).incrementAndGet();
+    }
+
+    /**
+     * Answers a GET request from the cache, building the body only when no
+     * cached body exists for the current revisions.
+     *
+     * @param request Current request, for its conditional and encoding headers
+     * @param key     Identifies the resource, e.g. "product/hts/0407.11.00.00"
+     * @param body    Builds the response body; only called on a cache miss
+     * @param domains Data domains the body depends on
+     * @return 304 if the client's ETag matches the current body, otherwise 200
+     *         with the JSON body, gzipped if the client accepts it
+     */
+    public ResponseEntity<byte[]> respond(WebRequest request, String key, Supplier<Object> body,
+            String... domains) {
+        String stamp;
+        CachedBody cached;
+        try (ServerTiming.Span span = ServerTiming.start(ServerTiming.Phase.CACHE)) {
+            stamp = stamp(domains);
+            cached = bodies.get(key);
+            if (cached != null && cached.stamp().equals(stamp) && request.checkNotModified(cached.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.etag()).build();
+            }
+        }
+
+        if (cached == null || !cached.stamp().equals(stamp)) {
+            Object value = body.get();
+            try (ServerTiming.Span span = ServerTiming.start(ServerTiming.Phase.SERIALIZE)) {
+                cached = serialize(stamp, value);
+            }
+            if (bodies.size() >= MAX_ENTRIES) {
+                bodies.clear();
+            }
+            bodies.put(key, cached);
+            // The data may have changed back, or another instance built the same body
+            if (request.checkNotModified(cached.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.etag()).build();
+            }
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(cached.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (cached.gzip() != null && acceptsGzip(request)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzip());
+        }
+        return response.body(cached.json());
+    }
+
+    private String stamp(String... domains) {
+        StringBuilder stamp = new StringBuilder();
+        for (String domain : domains) {
+            stamp.append(revision(domain).get()).append('-');
+        }
+        return stamp.toString();
+    }
+
+    private AtomicLong revision(String domain) {
+        return revisions.computeIfAbsent(domain, d -> new AtomicLong());
+    }
+
+    private CachedBody serialize(String stamp, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            return new CachedBody(stamp, etag, json, json.length < MIN_GZIP_SIZE ? null : gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize cached response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsGzip(WebRequest request) {
+        String accepted = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return accepted != null && Arrays.stream(accepted.split(","))
+                .map(String::trim)
+                .anyMatch(encoding -> encoding.startsWith("gzip") && !encoding.endsWith("q=0"));
+    }
+
+    private record CachedBody(String stamp, String etag, byte[] json, byte[] gzip) {
+    }
+}
@@ -0,0 +1,46 @@
+package app.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Thins out log events that can fire on every request when something goes
+ * wrong, such as upstream failures or slow queries during a database stall.
+ * Events logged with the {@link #SAMPLED} marker are kept the first time and
+ * then once every {@code keepOneIn} times per logger and message; all other
+ * events are left alone. Registered in logback-spring.xml.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    /** Marks an event as safe to sample. */
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private final Map<String, AtomicLong> occurrences = new ConcurrentHashMap<>();
+    private int keepOneIn = 100;
+
+    public void setKeepOneIn(int keepOneIn) {
+        this.keepOneIn = Math.max(1, keepOneIn);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+            Throwable t) {
+        if (marker == null || !marker.contains(SAMPLED) || level == null
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        // Keyed by call site rather than by formatted message, so the map stays small
+        long seen = occurrences.computeIfAbsent(logger.getName() + '|' + format, key -> new AtomicLong())
+                .getAndIncrement();
+        return seen % keepOneIn == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
@@ -0,0 +1,36 @@
+package app.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports whether {@link DataSeeder} has finished. Part of the readiness
+ * health group, so the instance only takes traffic once the catalog and
+ * seeded accounts are in place: out of service while seeding runs, up once it
+ * completes, down if it failed.
+ */
+@Component
+public class SeedingHealthIndicator implements HealthIndicator {
+
+    private volatile Health health = Health.outOfService().withDetail("seeding", "pending").build();
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    void started() {
+        health = Health.outOfService().withDetail("seeding", "running").build();
+    }
+
+    void completed(Duration took) {
+        health = Health.up().withDetail("seeding", "complete").withDetail("tookMs", took.toMillis()).build();
+    }
+
+    void failed(Exception e) {
+        health = Health.down(e).withDetail("seeding", "failed").build();
+    }
+}
@@ -0,0 +1,170 @@
+package app.config;
+
+import java.util.Locale;
+
+/**
+ * Per-request breakdown of where the time went, by {@link Phase}. A timing is
+ * only collected for requests that {@link ServerTimingFilter} opted in; on all
+ * other requests {@link #start} and {@link #record} find nothing on the
+ * current thread and return straight away.
+ *
+ * Phases are timed on the request thread only. Time spent waiting for work on
+ * other threads, such as parallel parent lookups, is attributed by timing the
+ * wait. A phase started while the same phase is already running on the thread
+ * is not counted again, so callers can time at whichever level they like.
+ */
+public final class ServerTiming {
+
+    /**
+     * Where request time goes. Phases are not exclusive: upstream time spent
+     * inside a cache miss counts towards both.
+     */
+    public enum Phase {
+        /** SQL statements, as measured by the JDBC driver proxy. */
+        DB,
+        /** Calls to the HTS API, including waits for parallel lookups. */
+        UPSTREAM,
+        /** ETag checks and cached body lookups. */
+        CACHE,
+        /** Filtering, summarizing and ranking of search results. */
+        COMPUTE,
+        /** Writing response bodies as JSON. */
+        SERIALIZE;
+
+        /** Metric name as it appears in the header and log line, e.g. "db". */
+        public String metricName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+    private static final Span NOT_TIMED = () -> {
+    };
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[Phase.values().length];
+    private final int[] counts = new int[Phase.values().length];
+    private final boolean[] running = new boolean[Phase.values().length];
+
+    private ServerTiming() {
+    }
+
+    /**
+     * Starts collecting a timing on the current thread.
+     */
+    static ServerTiming begin() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Stops collecting on the current thread.
+     */
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Starts timing a phase on the current thread.
+     *
+     * @param phase Phase to time
+     * @return Stops the timer when closed; use in a try-with-resources block
+     */
+    public static Span start(Phase phase) {
+        ServerTiming timing = CURRENT.get();
+        if (timing == null || timing.running[phase.ordinal()]) {
+            return NOT_TIMED;
+        }
+        timing.running[phase.ordinal()] = true;
+        long start = System.nanoTime();
+        return () -> {
+            timing.running[phase.ordinal()] = false;
+            timing.add(phase, System.nanoTime() - start);
+        };
+    }
+
+    /**
+     * Adds time that was measured elsewhere, e.g. by the JDBC driver proxy, to
+     * a phase of the current thread's timing.
+     *
+     * @param phase Phase the time belongs to
+     * @param nanos Time taken
+     */
+    public static void record(Phase phase, long nanos) {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null && !timing.running[phase.ordinal()]) {
+            timing.add(phase, nanos);
+        }
+    }
+
+    private void add(Phase phase, long elapsed) {
+        nanos[phase.ordinal()] += elapsed;
+        counts[phase.ordinal()]++;
+    }
+
+    long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    int count(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    /**
+     * @return Time since the timing began
+     */
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Formats the timing as a {@code Server-Timing} header value, e.g.
+     * {@code db;dur=3.20;desc="4 calls", ..., total;dur=48.75}. Phases that
+     * never ran are left out.
+     *
+     * @param totalNanos Time the whole request took
+     */
+    String header(long totalNanos) {
+        StringBuilder header = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            int count = count(phase);
+            if (count > 0) {
+                header.append(phase.metricName())
+                        .append(";dur=").append(millis(nanos(phase)))
+                        .append(";desc=\"").append(count).append(count == 1 ? " call\"" : " calls\"")
+                        .append(", ");
+            }
+        }
+        return header.append("total;dur=").append(millis(totalNanos)).toString();
+    }
+
+    /**
+     * Formats the timing as space-separated key=value pairs for the log, e.g.
+     * {@code db_ms=3.20 db_count=4 upstream_ms=0.00 upstream_count=0 ...}.
+     * Every phase is included so log queries can rely on the keys.
+     *
+     * @param totalNanos Time the whole request took
+     */
+    String logFields(long totalNanos) {
+        StringBuilder fields = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            fields.append(phase.metricName()).append("_ms=").append(millis(nanos(phase))).append(' ')
+                    .append(phase.metricName()).append("_count=").append(count(phase)).append(' ');
+        }
+        return fields.append("total_ms=").append(millis(totalNanos)).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1e6);
+    }
+
+    /**
+     * A running phase timer.
+     */
+    @FunctionalInterface
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
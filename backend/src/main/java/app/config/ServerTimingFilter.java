@@ -0,0 +1,82 @@
+package app.config;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Breaks an admin's request down by {@link ServerTiming.Phase} when it carries
+ * an {@code X-Server-Timing} header. The breakdown is returned in a standard
+ * {@code Server-Timing} header, which browser devtools show in the request's
+ * Timing tab, and logged as one line of key=value pairs.
+ *
+ * Runs after the security filters so the caller's roles are known. The body
+ * of a timed response is buffered so the header can still be set once
+ * serialization has been measured; server-sent event streams are never timed
+ * for that reason.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    /** Request header that asks for a timing; any value will do. */
+    public static final String REQUEST_HEADER = "X-Server-Timing";
+
+    public static final String RESPONSE_HEADER = "Server-Timing";
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!wantsTiming(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        ServerTiming timing = ServerTiming.begin();
+        try {
+            chain.doFilter(request, buffered);
+        } finally {
+            ServerTiming.end();
+            long total = timing.elapsedNanos();
+            buffered.setHeader(RESPONSE_HEADER, timing.header(total));
+
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            logger.info("server_timing method={} uri={} status={} {}", request.getMethod(),
+                    pattern != null ? pattern : "UNKNOWN", buffered.getStatus(), timing.logFields(total));
+            buffered.copyBodyToResponse();
+        }
+    }
+
+    private static boolean wantsTiming(HttpServletRequest request) {
+        if (request.getHeader(REQUEST_HEADER) == null) {
+            return false;
+        }
+        // Event streams are asynchronous and must not be buffered
+        String accept = request.getHeader("Accept");
+        if (request.getRequestURI().endsWith("/stream")
+                || (accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE))) {
+            return false;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+}
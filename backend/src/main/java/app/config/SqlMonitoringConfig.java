@@ -0,0 +1,38 @@
+package app.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the application DataSource so every statement passes through a
+ * {@link SqlStatementCounter}. Replaces {@code spring.jpa.show-sql} as the way
+ * to see what the database is doing: per-request counts instead of every
+ * statement, and only the slow statements in full, with their parameters.
+ */
+@Configuration
+public class SqlMonitoringConfig {
+
+    @Bean
+    static BeanPostProcessor sqlStatementCountingPostProcessor(Environment environment) {
+        long slowQueryMillis = environment.getProperty("app.sql.slow-query-ms", Long.class, 200L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new SqlStatementCounter(slowQueryMillis))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
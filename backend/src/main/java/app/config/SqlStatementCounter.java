@@ -0,0 +1,115 @@
+package app.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+
+/**
+ * Counts the SQL statements executed on the current thread and logs the slow
+ * ones with their bound parameters. Attached to the application DataSource by
+ * {@link SqlMonitoringConfig}; {@link SqlStatementFilter} resets the count at
+ * the start of every request and reads it at the end. Statement times also
+ * feed the db phase of a {@link ServerTiming}.
+ */
+public class SqlStatementCounter implements QueryExecutionListener {
+
+    private static final Logger slowQueryLogger = LoggerFactory.getLogger("app.sql.slow");
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+    private static final ThreadLocal<List<RequestStatements>> RECORDING = new ThreadLocal<>();
+
+    private final long slowQueryMillis;
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+
+    /**
+     * @param slowQueryMillis Statements taking at least this long are logged
+     */
+    public SqlStatementCounter(long slowQueryMillis) {
+        this.slowQueryMillis = slowQueryMillis;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        COUNT.get()[0] += queryInfoList.size();
+        ServerTiming.record(ServerTiming.Phase.DB, TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime()));
+        if (execInfo.getElapsedTime() >= slowQueryMillis) {
+            slowQueryLogger.warn(SamplingTurboFilter.SAMPLED, "{}",
+                    logEntryCreator.getLogEntry(execInfo, queryInfoList, true, true, false));
+        }
+    }
+
+    /**
+     * Starts counting from zero on the current thread.
+     */
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * @return Statements executed on the current thread since the last reset
+     */
+    public static int current() {
+        return COUNT.get()[0];
+    }
+
+    /**
+     * Reports the statement count of a finished request to the recording
+     * running on the current thread, if any.
+     */
+    static void requestCompleted(String endpoint, int statements) {
+        List<RequestStatements> recording = RECORDING.get();
+        if (recording != null) {
+            recording.add(new RequestStatements(endpoint, statements));
+        }
+    }
+
+    /**
+     * Starts collecting the statement count of every request handled on the
+     * current thread, e.g. by MockMvc in an integration test.
+     *
+     * @return Requests completed so far; collection stops when it is closed
+     */
+    public static Recording record() {
+        List<RequestStatements> requests = new ArrayList<>();
+        RECORDING.set(requests);
+        return new Recording(requests);
+    }
+
+    /**
+     * Statement count of one request.
+     *
+     * @param endpoint   HTTP method and matched path pattern
+     * @param statements Statements executed while handling it
+     */
+    public record RequestStatements(String endpoint, int statements) {
+    }
+
+    public static final class Recording implements AutoCloseable {
+        private final List<RequestStatements> requests;
+
+        private Recording(List<RequestStatements> requests) {
+            this.requests = requests;
+        }
+
+        public List<RequestStatements> requests() {
+            return List.copyOf(requests);
+        }
+
+        @Override
+        public void close() {
+            RECORDING.remove();
+        }
+    }
+}
@@ -1,17 +1,57 @@
 package app.config;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    private final RateLimiter rateLimiter;
+
+    public WebConfig(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimiter);
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
-        registry.addMapping("/**") 
-                .allowedOrigins("https://tariffics.org") 
+        registry.addMapping("/**")
+                .allowedOrigins("https://tariffics.org")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS") // Add OPTIONS
                 .allowedHeaders("*")
+                .exposedHeaders(ServerTimingFilter.RESPONSE_HEADER, HttpHeaders.RETRY_AFTER)
                 .allowCredentials(true);
     }
+
+    /**
+     * Replaces Spring Boot's JSON converter with one that times how long
+     * response bodies take to write, for {@link ServerTiming}.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException {
+                try (ServerTiming.Span span = ServerTiming.start(ServerTiming.Phase.SERIALIZE)) {
+                    super.writeInternal(object, type, outputMessage);
+                }
+            }
+        };
+    }
 }
@@ -16,6 +16,9 @@ import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import java.util.Collections;
 
 import javax.security.auth.login.AccountNotFoundException;
@@ -28,6 +31,7 @@ public class EmailService {
     private final JwtUtils jwtUtils;
     private final JavaMailSender mailSender;
     private final AccountService accountService;
+    private final MeterRegistry meterRegistry;
 
     @Value("${app.email.from:no-reply@tariffics.org}")
     private String fromAddress;
@@ -38,10 +42,12 @@ public class EmailService {
     private static final String PASSWORD_RESET_SUBJECT = "Password Reset Request";
     private static final String NOTIFICATION_SUBJECT = "Notification from Tariffics";
 
-    public EmailService(JavaMailSender mailSender, JwtUtils jwtUtils, AccountService accountService) {
+    public EmailService(JavaMailSender mailSender, JwtUtils jwtUtils, AccountService accountService,
+            MeterRegistry meterRegistry) {
         this.mailSender = mailSender;
         this.jwtUtils = jwtUtils;
         this.accountService = accountService;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -175,7 +181,9 @@ public class EmailService {
     }
 
     /**
-     * Sends an email using configured mail sender.
+     * Sends an email using configured mail sender. The time spent handing the
+     * message to the mail server is recorded as {@code email.send}, tagged with
+     * the subject and outcome.
      * 
      * @param to Recipient email address
      * @param subject Email subject
@@ -189,7 +197,19 @@ public class EmailService {
         message.setSubject(subject);
         message.setText(body);
 
-        mailSender.send(message);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            mailSender.send(message);
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder("email.send")
+                    .description("Time to hand an email to the mail server")
+                    .tag("subject", subject)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
         logger.debug("Email sent to: {}", to);
     }
 
@@ -0,0 +1,7 @@
+package app.exception;
+
+public class DeadlineExceededException extends UpstreamUnavailableException {
+    public DeadlineExceededException(String msg) {
+        super(msg);
+    }
+}
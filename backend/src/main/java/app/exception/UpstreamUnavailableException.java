@@ -0,0 +1,11 @@
+package app.exception;
+
+public class UpstreamUnavailableException extends RuntimeException {
+    public UpstreamUnavailableException(String msg) {
+        super(msg);
+    }
+
+    public UpstreamUnavailableException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
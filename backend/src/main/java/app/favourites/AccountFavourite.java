@@ -0,0 +1,28 @@
+package app.favourites;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One row per (account, HTS code) pair a user has favourited. Rows are only
+ * ever inserted or deleted; the composite primary key doubles as the unique
+ * constraint that stops a code being favourited twice.
+ */
+@Entity
+@Table(name = "account_favourites")
+@IdClass(AccountFavouriteId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class AccountFavourite {
+    @Id
+    @Column(name = "account_id")
+    private Integer accountId;
+
+    @Id
+    @Column(name = "hts_code")
+    private String htsCode;
+}
@@ -0,0 +1,21 @@
+package app.favourites;
+
+import java.util.Collection;
+
+/**
+ * Multi-row insert of account links, mixed into
+ * {@link AccountFavouriteRepository}.
+ */
+public interface AccountFavouriteBulkInsert {
+
+    /**
+     * Links an account to HTS codes it has not favourited yet, in one INSERT
+     * statement. The Favourites counter rows must already exist.
+     *
+     * @param accountId Target account
+     * @param htsCodes  Codes not linked to the account; an existing link fails
+     *                  the whole call
+     * @return Number of links added
+     */
+    int insertAll(Integer accountId, Collection<String> htsCodes);
+}
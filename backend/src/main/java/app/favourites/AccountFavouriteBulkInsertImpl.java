@@ -0,0 +1,42 @@
+package app.favourites;
+
+import java.util.Collection;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+/**
+ * Picked up by Spring Data as the implementation of
+ * {@link AccountFavouriteBulkInsert} for {@link AccountFavouriteRepository}.
+ */
+class AccountFavouriteBulkInsertImpl implements AccountFavouriteBulkInsert {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int insertAll(Integer accountId, Collection<String> htsCodes) {
+        if (htsCodes.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO account_favourites (account_id, hts_code) VALUES ");
+        for (int i = 0; i < htsCodes.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        Query insert = entityManager.createNativeQuery(sql.toString());
+        int position = 1;
+        for (String htsCode : htsCodes) {
+            insert.setParameter(position++, accountId);
+            insert.setParameter(position++, htsCode);
+        }
+
+        entityManager.flush();
+        int inserted = insert.executeUpdate();
+        entityManager.clear();
+        return inserted;
+    }
+}
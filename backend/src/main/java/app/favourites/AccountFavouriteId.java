@@ -0,0 +1,15 @@
+package app.favourites;
+
+import java.io.Serializable;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class AccountFavouriteId implements Serializable {
+    private Integer accountId;
+    private String htsCode;
+}
@@ -0,0 +1,69 @@
+package app.favourites;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface AccountFavouriteRepository
+        extends JpaRepository<AccountFavourite, AccountFavouriteId>, AccountFavouriteBulkInsert {
+
+    long countByAccountId(Integer accountId);
+
+    /**
+     * Links an account to an HTS code unless it is linked already. The
+     * Favourites counter row must already exist. Of two concurrent inserts of
+     * the same link, the second waits for the first and then inserts nothing.
+     *
+     * @return 1 if the link was added, 0 if it already existed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            INSERT IGNORE INTO account_favourites (account_id, hts_code)
+            VALUES (:accountId, :htsCode)
+            """, nativeQuery = true)
+    int insertIfAbsent(Integer accountId, String htsCode);
+
+    /**
+     * Locks the account's links to the given HTS codes until the transaction
+     * ends, so no one else can delete them in the meantime.
+     *
+     * @return The codes the account has favourited, out of those given
+     */
+    @Query(value = """
+            SELECT hts_code FROM account_favourites
+            WHERE account_id = :accountId AND hts_code IN (:htsCodes)
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<String> lockForAccount(Integer accountId, Collection<String> htsCodes);
+
+    /**
+     * Locks all of the account's links until the transaction ends. On MySQL's
+     * default REPEATABLE READ this also keeps new links from being inserted.
+     *
+     * @return Every code the account has favourited
+     */
+    @Query(value = "SELECT hts_code FROM account_favourites WHERE account_id = :accountId FOR UPDATE",
+            nativeQuery = true)
+    List<String> lockAllForAccount(Integer accountId);
+
+    /**
+     * Unlinks the given HTS codes from an account in one DELETE statement.
+     *
+     * @return Number of favourites removed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AccountFavourite af WHERE af.accountId = :accountId AND af.htsCode IN :htsCodes")
+    int deleteForAccount(Integer accountId, Collection<String> htsCodes);
+
+    /**
+     * Unlinks every favourite from an account in one DELETE statement.
+     *
+     * @return Number of favourites removed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AccountFavourite af WHERE af.accountId = :accountId")
+    int deleteAllForAccount(Integer accountId);
+}
@@ -1,23 +1,26 @@
 package app.favourites;
 
-import java.util.HashSet;
-import java.util.Set;
-
-import app.account.Account;
 import jakarta.persistence.*;
 import lombok.*;
 
+/**
+ * Popularity counter for a favourited HTS code. The count is only changed with
+ * atomic UPDATE statements in FavouritesRepository, never read-modify-write.
+ */
 @Entity
 @Getter 
 @Setter 
 @NoArgsConstructor 
 @AllArgsConstructor 
-@EqualsAndHashCode(exclude = {"accounts"})
-@ToString(exclude =  {"accounts"})
+@EqualsAndHashCode
+@ToString
 public class Favourites {
     @Id
     private String htsCode;
 
-    @ManyToMany(mappedBy = "favourites")
-    private Set<Account> accounts = new HashSet<>();
-}
\ No newline at end of file
+    private long favouriteCount;
+
+    public Favourites(String htsCode) {
+        this.htsCode = htsCode;
+    }
+}
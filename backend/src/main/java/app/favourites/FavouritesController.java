@@ -1,12 +1,14 @@
 package app.favourites;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -38,4 +40,30 @@ public class FavouritesController {
         return ResponseEntity.ok(favouritesService.getFavouritesHtsCodes(userID));
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> addFavourites(@PathVariable Integer userID,
+            @RequestBody List<String> htsCodes) {
+        int added = favouritesService.addFavourites(userID, htsCodes);
+        return ResponseEntity.ok(Map.of(
+                "message", "Added " + added + " favourites",
+                "added", added));
+    }
+
+    @DeleteMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> removeFavourites(@PathVariable Integer userID,
+            @RequestBody List<String> htsCodes) {
+        int removed = favouritesService.removeFavourites(userID, htsCodes);
+        return ResponseEntity.ok(Map.of(
+                "message", "Removed " + removed + " favourites",
+                "removed", removed));
+    }
+
+    @DeleteMapping("/all")
+    public ResponseEntity<Map<String, Object>> clearFavourites(@PathVariable Integer userID) {
+        int removed = favouritesService.clearFavourites(userID);
+        return ResponseEntity.ok(Map.of(
+                "message", "Cleared favourites for user " + userID,
+                "removed", removed));
+    }
+
 }
\ No newline at end of file
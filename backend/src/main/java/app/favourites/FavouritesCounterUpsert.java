@@ -0,0 +1,18 @@
+package app.favourites;
+
+import java.util.Collection;
+
+/**
+ * Multi-row counter upsert, mixed into {@link FavouritesRepository}.
+ */
+public interface FavouritesCounterUpsert {
+
+    /**
+     * Adds one to the counters of the given codes in one statement, creating
+     * the counters that do not exist yet with a count of one. Called with
+     * exactly the codes about to be linked to an account.
+     *
+     * @param htsCodes Codes gaining a favourite, without duplicates
+     */
+    void incrementOrCreate(Collection<String> htsCodes);
+}
@@ -0,0 +1,41 @@
+package app.favourites;
+
+import java.util.Collection;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+/**
+ * Picked up by Spring Data as the implementation of
+ * {@link FavouritesCounterUpsert} for {@link FavouritesRepository}.
+ */
+class FavouritesCounterUpsertImpl implements FavouritesCounterUpsert {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void incrementOrCreate(Collection<String> htsCodes) {
+        if (htsCodes.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO favourites (hts_code, favourite_count) VALUES ");
+        for (int i = 0; i < htsCodes.size(); i++) {
+            sql.append(i == 0 ? "(?, 1)" : ", (?, 1)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE favourite_count = favourite_count + 1");
+        Query upsert = entityManager.createNativeQuery(sql.toString());
+        int position = 1;
+        for (String htsCode : htsCodes) {
+            upsert.setParameter(position++, htsCode);
+        }
+
+        entityManager.flush();
+        upsert.executeUpdate();
+        entityManager.clear();
+    }
+}
@@ -1,30 +1,62 @@
 package app.favourites;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
-public interface FavouritesRepository extends JpaRepository<Favourites, String> {
+public interface FavouritesRepository extends JpaRepository<Favourites, String>, FavouritesCounterUpsert {
     @Query("""
             SELECT new app.favourites.FavouritesDTO(
-                f.htsCode,
+                af.htsCode,
                 COALESCE(p.description, 'No description available'),
                 COALESCE(p.category, 'Unknown'),
                 COALESCE(p.general, ''),
                 COALESCE(p.special, '')
             )
-            FROM Favourites f
-            JOIN f.accounts a
-            LEFT JOIN Product p ON p.htsCode = f.htsCode
-            WHERE a.id = :accountId
+            FROM AccountFavourite af
+            LEFT JOIN Product p ON p.htsCode = af.htsCode
+            WHERE af.accountId = :accountId
             AND (p.fetchDate IS NULL OR p.fetchDate = (
                 SELECT MAX(p2.fetchDate)
                 FROM Product p2
-                WHERE p2.htsCode = f.htsCode
+                WHERE p2.htsCode = af.htsCode
             ))
             """)
     Optional<List<FavouritesDTO>> findFavouritesByAccountId(Integer accountId);
 
+    /**
+     * Returns the most favourited HTS codes, highest count first.
+     */
+    @Query("SELECT f FROM Favourites f WHERE f.favouriteCount > 0 ORDER BY f.favouriteCount DESC")
+    List<Favourites> findMostFavourited(Pageable pageable);
+
+    /**
+     * Creates the counter row for an HTS code if it does not exist yet. Safe to
+     * run concurrently for the same code.
+     *
+     * @return Number of rows touched
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO favourites (hts_code, favourite_count)
+            VALUES (:htsCode, 0)
+            ON DUPLICATE KEY UPDATE favourite_count = favourite_count
+            """, nativeQuery = true)
+    int createCounterIfAbsent(String htsCode);
+
+    /**
+     * Atomically adds a delta to the counters of the given codes. Called with
+     * exactly the codes whose account links were just inserted or deleted, so
+     * the counters move by the number of links actually changed.
+     *
+     * @return Number of counters changed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Favourites f SET f.favouriteCount = f.favouriteCount + :delta WHERE f.htsCode IN :htsCodes")
+    int addToCount(Collection<String> htsCodes, long delta);
 }
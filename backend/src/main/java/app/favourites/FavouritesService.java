@@ -1,30 +1,34 @@
 package app.favourites;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import app.account.*;
 import app.exception.FavouritesNotFoundException;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Service
 public class FavouritesService {
-    private final AccountRepository accountRepository;
     private final AccountService accountService;
     private final FavouritesRepository favouritesRepository;
+    private final AccountFavouriteRepository accountFavouriteRepository;
 
     /**
      * Constructor-based injection.
      * 
-     * @param accountRepository Repository dependency.
+     * @param favouritesRepository       Counter repository dependency.
+     * @param accountFavouriteRepository Join row repository dependency.
      */
-    public FavouritesService(AccountRepository accountRepository, AccountService accountService,
-            FavouritesRepository favouritesRepository) {
-        this.accountRepository = accountRepository;
+    public FavouritesService(AccountService accountService, FavouritesRepository favouritesRepository,
+            AccountFavouriteRepository accountFavouriteRepository) {
         this.accountService = accountService;
         this.favouritesRepository = favouritesRepository;
+        this.accountFavouriteRepository = accountFavouriteRepository;
     }
 
     public Favourites getFavouritesByHtsCode(String htsCode) {
@@ -38,36 +42,24 @@ public class FavouritesService {
     }
 
     /**
-     * Saves the favourite hts code of user into their account
+     * Saves the favourite hts code of user into their account. Adding a code
+     * that is already favourited is a no-op. Locks the account like
+     * {@link #addFavourites}, which relies on no other link being added
+     * meanwhile.
      * 
      * @param userId  Target user ID
      * @param htsCode Target HTS code
      */
+    @Transactional
     public void addFavourite(Integer userId, String htsCode) {
-        // retrieve account
-        Account account = accountService.getAccountByUserID(userId);
-
-        // add account to favourites
-        Favourites favourites;
-        try {
-            // check if favourite exists
-            favourites = getFavouritesByHtsCode(htsCode);
-            Set<Account> accountsFavourited = favourites.getAccounts();
-            accountsFavourited.add(account);
-
-            // update the list of accounts with this item favourited
-            favourites.setAccounts(accountsFavourited);
-        } catch (FavouritesNotFoundException e) {
-            // create new favourited record if it is new
-            favourites = new Favourites(htsCode, Set.of(account));
-        }
-
-        // add favourites to account
-        account.getFavourites().add(favourites);
+        // lock the account, which also makes sure it exists
+        accountService.lockAccount(userId);
 
-        // save changes
-        favouritesRepository.save(favourites);
-        accountRepository.save(account);
+        // make sure the counter row exists, then link, and count only if linked
+        favouritesRepository.createCounterIfAbsent(htsCode);
+        if (accountFavouriteRepository.insertIfAbsent(userId, htsCode) > 0) {
+            favouritesRepository.addToCount(List.of(htsCode), 1);
+        }
     }
 
     /**
@@ -75,33 +67,27 @@ public class FavouritesService {
      * 
      * @param userId  Target user ID
      * @param htsCode Target HTS code
+     * @throws FavouritesNotFoundException if the user has not favourited the code
      */
+    @Transactional
     public void removeFavourite(Integer userId, String htsCode) {
-        // retrieve account
-        Account account = accountService.getAccountByUserID(userId);
-
-        // remove account from favourite
-        Favourites favourites = getFavouritesByHtsCode(htsCode);
-        Set<Account> accountsFavourited = favourites.getAccounts();
-        accountsFavourited.remove(account);
-        favourites.setAccounts(accountsFavourited);
-
-        // remove favourite from account
-        Set<Favourites> favourited = account.getFavourites();
-        favourited.remove(favourites);
-        account.setFavourites(favourited);
-
-        // save changes
-        favouritesRepository.save(favourites);
-        accountRepository.save(account);
+        // make sure the account exists
+        accountService.getAccountByUserID(userId);
+
+        if (unlink(userId, accountFavouriteRepository.lockForAccount(userId, List.of(htsCode))) == 0) {
+            throw new FavouritesNotFoundException(htsCode);
+        }
     }
 
     /**
-     * Retrieves the favourite hts codes of a user from their account
+     * Retrieves the favourite hts codes of a user from their account. Runs on a
+     * read replica when there is one, so a change may take up to
+     * app.datasource.replicas.max-lag to show.
      * 
      * @param userId Target user ID
      * @return Set containing all the favouried HTS codes
      */
+    @Transactional(readOnly = true)
     public List<FavouritesDTO> getFavouritesHtsCodes(Integer userId) {
         Optional<List<FavouritesDTO>> favourites = favouritesRepository.findFavouritesByAccountId(userId);
 
@@ -111,4 +97,91 @@ public class FavouritesService {
 
         return favourites.get();
     }
+
+    /**
+     * Returns the most favourited HTS codes across all users.
+     * 
+     * @param limit Maximum number of codes to return
+     * @return Counters ordered by favourite count, highest first
+     */
+    @Transactional(readOnly = true)
+    public List<Favourites> getMostFavourited(int limit) {
+        return favouritesRepository.findMostFavourited(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Favourites many HTS codes at once with a fixed number of statements.
+     * The account is locked so no link can be added to it meanwhile, then the
+     * codes it has not favourited yet are counted with one multi-row upsert,
+     * which creates missing counters, and linked with one multi-row insert.
+     * Codes the user already favourited are skipped.
+     * 
+     * @param userId   Target user ID
+     * @param htsCodes HTS codes to favourite
+     * @return Number of favourites actually added
+     */
+    @Transactional
+    public int addFavourites(Integer userId, List<String> htsCodes) {
+        accountService.lockAccount(userId);
+
+        Set<String> codes = new LinkedHashSet<>(htsCodes);
+        if (codes.isEmpty()) {
+            return 0;
+        }
+
+        codes.removeAll(accountFavouriteRepository.lockForAccount(userId, codes));
+        if (codes.isEmpty()) {
+            return 0;
+        }
+        // counters first, since the links reference them
+        favouritesRepository.incrementOrCreate(codes);
+        return accountFavouriteRepository.insertAll(userId, codes);
+    }
+
+    /**
+     * Removes many favourited HTS codes from a user with a single DELETE.
+     * Codes the user has not favourited are skipped.
+     * 
+     * @param userId   Target user ID
+     * @param htsCodes HTS codes to remove
+     * @return Number of favourites actually removed
+     */
+    @Transactional
+    public int removeFavourites(Integer userId, List<String> htsCodes) {
+        Set<String> codes = new LinkedHashSet<>(htsCodes);
+        if (codes.isEmpty()) {
+            return 0;
+        }
+
+        return unlink(userId, accountFavouriteRepository.lockForAccount(userId, codes));
+    }
+
+    /**
+     * Removes all of a user's favourites with a single DELETE.
+     * 
+     * @param userId Target user ID
+     * @return Number of favourites removed
+     */
+    @Transactional
+    public int clearFavourites(Integer userId) {
+        return unlink(userId, accountFavouriteRepository.lockAllForAccount(userId));
+    }
+
+    /**
+     * Deletes links locked by this transaction and decrements their counters.
+     * Since no one else can delete a locked link, every one of them is deleted
+     * here and each counter drops exactly once.
+     *
+     * @param userId Target user ID
+     * @param locked HTS codes whose links this transaction holds locked
+     * @return Number of favourites removed
+     */
+    private int unlink(Integer userId, List<String> locked) {
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        accountFavouriteRepository.deleteForAccount(userId, locked);
+        favouritesRepository.addToCount(locked, -1);
+        return locked.size();
+    }
 }
@@ -31,6 +31,9 @@ public class FTA {
     @NotNull(message = "Date cannot be null")
     private LocalDate date;
 
+    // Agreement the row was bulk imported under; null for manually created rows
+    private String agreement;
+
     public FTA(String country, String htsCode, String price, LocalDate date) {
         this.country = country;
         this.htsCode = htsCode;
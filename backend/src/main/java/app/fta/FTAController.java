@@ -1,8 +1,14 @@
 package app.fta;
 
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 
@@ -11,9 +17,11 @@ import org.springframework.web.bind.annotation.*;
 public class FTAController {
 
     private final FTAService ftaService;
+    private final FTAImportService ftaImportService;
 
-    public FTAController (FTAService ftaService) {
+    public FTAController (FTAService ftaService, FTAImportService ftaImportService) {
         this.ftaService = ftaService;
+        this.ftaImportService = ftaImportService;
     }
 
     // Logic to delete FTA data by id
@@ -40,4 +48,47 @@ public class FTAController {
         }
         return ResponseEntity.ok(ftaEntries);
     }
+
+    // Logic to look up the rate in force for one country on a date (defaults to today)
+    @GetMapping("/{country}/{htsCode}/rate")
+    public ResponseEntity<Map<String, Object>> getRateAt(@PathVariable String country, @PathVariable String htsCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate asOf = date != null ? date : LocalDate.now();
+        String rate = ftaService.getRateAt(country, htsCode, asOf);
+        return ResponseEntity.ok(Map.of(
+                "country", country,
+                "htsCode", htsCode,
+                "date", asOf,
+                "rate", rate));
+    }
+
+    // Logic to list the future steps of one country's schedule
+    @GetMapping("/{country}/{htsCode}/future")
+    public ResponseEntity<Map<LocalDate, String>> getFutureSteps(@PathVariable String country,
+            @PathVariable String htsCode) {
+        return ResponseEntity.ok(ftaService.getFuturePrices(country, htsCode));
+    }
+
+    // Logic to look up the rates in force for all countries on a date (defaults to today)
+    @GetMapping("/{htsCode}/rates")
+    public ResponseEntity<Map<String, String>> getRatesAt(@PathVariable String htsCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(ftaService.getRatesAt(htsCode, date != null ? date : LocalDate.now()));
+    }
+
+    // Logic to bulk import an agreement's staging schedules from a CSV or JSON body
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = { "text/csv", MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<FTAImportProgress> importSchedules(@RequestParam String agreement,
+            @RequestHeader("Content-Type") String contentType, InputStream body) {
+        boolean json = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_JSON);
+        return ResponseEntity.ok(ftaImportService.importSchedules(agreement, body, json));
+    }
+
+    // Logic to list running and recently finished imports
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/imports")
+    public ResponseEntity<List<FTAImportProgress>> listImports() {
+        return ResponseEntity.ok(ftaImportService.getRecentImports());
+    }
 }
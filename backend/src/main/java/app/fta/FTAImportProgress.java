@@ -0,0 +1,111 @@
+package app.fta;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live progress of one FTA bulk import. Counters are updated by the importing
+ * thread and can be read at any time from other requests.
+ */
+public class FTAImportProgress {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final String id = UUID.randomUUID().toString();
+    private final String agreement;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    private volatile long rowsReplaced;
+    private volatile Status status = Status.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String failureReason;
+
+    public FTAImportProgress(String agreement) {
+        this.agreement = agreement;
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void rowsImported(int count) {
+        rowsImported.addAndGet(count);
+    }
+
+    void rowRejected(long rowNumber, String reason) {
+        rowsRejected.incrementAndGet();
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("Row " + rowNumber + ": " + reason);
+        }
+    }
+
+    void setRowsReplaced(long rowsReplaced) {
+        this.rowsReplaced = rowsReplaced;
+    }
+
+    void complete() {
+        status = Status.COMPLETED;
+        finishedAt = Instant.now();
+    }
+
+    void fail(String reason) {
+        status = Status.FAILED;
+        failureReason = reason;
+        finishedAt = Instant.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getAgreement() {
+        return agreement;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsImported() {
+        return rowsImported.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    public long getRowsReplaced() {
+        return rowsReplaced;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package app.fta;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+
+/**
+ * One staging step read from an FTA import file. Either {@code year} or
+ * {@code date} gives when the rate takes effect; a bare year means 1 January.
+ */
+public record FTAImportRow(
+    String country,
+    @JsonAlias({"code", "hts_code"}) String htsCode,
+    Integer year,
+    LocalDate date,
+    @JsonAlias("price") String rate
+) {
+    public LocalDate effectiveDate() {
+        if (date != null) {
+            return date;
+        }
+        return year != null ? LocalDate.of(year, 1, 1) : null;
+    }
+}
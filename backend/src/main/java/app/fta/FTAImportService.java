@@ -0,0 +1,339 @@
+package app.fta;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk import of FTA staging schedules from CSV or JSON.
+ *
+ * Files are read as a stream, one row at a time, and valid rows are written
+ * with JDBC batch inserts, so memory use is bounded by the batch size rather
+ * than the file size. An import replaces every row previously imported under
+ * the same agreement, all in one transaction.
+ */
+@Service
+public class FTAImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FTAImportService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO fta (country, hts_code, price, date, agreement) VALUES (?, ?, ?, ?, ?)";
+    private static final String HTS_CODE_PATTERN = "\\d+(\\.\\d+)*";
+    private static final int MAX_RECENT_IMPORTS = 20;
+    private static final int PROGRESS_LOG_INTERVAL = 10_000;
+
+    private final FTARepository ftaRepository;
+    private final FTAScheduleIndex scheduleIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, FTAImportProgress> running = new ConcurrentHashMap<>();
+    private final Deque<FTAImportProgress> recent = new ConcurrentLinkedDeque<>();
+
+    @Value("${app.fta.import.batch-size:1000}")
+    private int batchSize;
+
+    public FTAImportService(FTARepository ftaRepository, FTAScheduleIndex scheduleIndex, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.ftaRepository = ftaRepository;
+        this.scheduleIndex = scheduleIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Replaces all FTA rows of an agreement with the rows read from a file.
+     * Invalid rows are skipped and reported; a malformed file rolls the whole
+     * import back. The schedule index is rebuilt once the import commits.
+     * 
+     * @param agreement Agreement the rows belong to (e.g. "AUSFTA")
+     * @param input     File contents
+     * @param json      True for a JSON array of rows, false for CSV with a header
+     * @return Final progress of the import
+     * @throws IllegalArgumentException if the file is malformed or an import for
+     *                                  the agreement is already running
+     */
+    public FTAImportProgress importSchedules(String agreement, InputStream input, boolean json) {
+        if (agreement == null || agreement.isBlank()) {
+            throw new IllegalArgumentException("Agreement cannot be blank");
+        }
+
+        FTAImportProgress progress = new FTAImportProgress(agreement.trim());
+        if (running.putIfAbsent(progress.getAgreement(), progress) != null) {
+            throw new IllegalArgumentException("An import for agreement " + agreement + " is already running");
+        }
+        remember(progress);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                progress.setRowsReplaced(ftaRepository.deleteByAgreement(progress.getAgreement()));
+
+                BatchWriter writer = new BatchWriter(progress);
+                try {
+                    if (json) {
+                        readJson(input, writer);
+                    } else {
+                        readCsv(input, writer);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                writer.flush();
+            });
+            progress.complete();
+        } catch (RuntimeException e) {
+            progress.fail(e.getMessage());
+            logger.warn("FTA import for {} failed after {} rows", progress.getAgreement(), progress.getRowsRead(), e);
+            throw e;
+        } finally {
+            running.remove(progress.getAgreement());
+        }
+
+        scheduleIndex.rebuild();
+        logger.info("FTA import for {} completed: {} imported, {} rejected, {} replaced",
+                progress.getAgreement(), progress.getRowsImported(), progress.getRowsRejected(),
+                progress.getRowsReplaced());
+        return progress;
+    }
+
+    /**
+     * Returns the progress of running and recently finished imports, newest
+     * first.
+     */
+    public List<FTAImportProgress> getRecentImports() {
+        return List.copyOf(recent);
+    }
+
+    private void remember(FTAImportProgress progress) {
+        recent.addFirst(progress);
+        while (recent.size() > MAX_RECENT_IMPORTS) {
+            recent.pollLast();
+        }
+    }
+
+    private void readCsv(InputStream input, BatchWriter writer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+
+        CsvColumns columns = CsvColumns.from(splitCsvLine(stripBom(header)));
+        long rowNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            rowNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String current = line;
+            writer.accept(rowNumber, () -> columns.toRow(splitCsvLine(current)));
+        }
+    }
+
+    private void readJson(InputStream input, BatchWriter writer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON import must be an array of rows");
+            }
+
+            long rowNumber = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                rowNumber++;
+                FTAImportRow row;
+                try {
+                    row = objectMapper.readValue(parser, FTAImportRow.class);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Malformed JSON at row " + rowNumber + ": "
+                            + e.getOriginalMessage());
+                }
+                writer.accept(rowNumber, () -> row);
+            }
+        }
+    }
+
+    /**
+     * Checks a row and returns why it is invalid, or null if it can be imported.
+     */
+    static String validate(FTAImportRow row) {
+        if (row.country() == null || row.country().isBlank()) {
+            return "country is required";
+        }
+        if (row.htsCode() == null || !row.htsCode().trim().matches(HTS_CODE_PATTERN)) {
+            return "invalid HTS code '" + row.htsCode() + "'";
+        }
+        if (row.effectiveDate() == null) {
+            return "year or date is required";
+        }
+        if (row.year() != null && (row.year() < 1900 || row.year() > 2200)) {
+            return "year " + row.year() + " is out of range";
+        }
+        if (row.rate() == null || row.rate().isBlank()) {
+            return "rate is required";
+        }
+        return null;
+    }
+
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static String stripBom(String line) {
+        return line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+
+    /**
+     * Positions of the recognised columns in a CSV header.
+     */
+    private record CsvColumns(int country, int htsCode, int year, int date, int rate) {
+
+        static CsvColumns from(List<String> header) {
+            int country = -1, htsCode = -1, year = -1, date = -1, rate = -1;
+            for (int i = 0; i < header.size(); i++) {
+                switch (header.get(i).toLowerCase(Locale.ROOT)) {
+                    case "country" -> country = i;
+                    case "htscode", "hts_code", "code" -> htsCode = i;
+                    case "year" -> year = i;
+                    case "date" -> date = i;
+                    case "rate", "price" -> rate = i;
+                    default -> { }
+                }
+            }
+            if (country == -1 || htsCode == -1 || rate == -1 || (year == -1 && date == -1)) {
+                throw new IllegalArgumentException(
+                        "CSV header must contain country, htsCode, rate and year or date columns");
+            }
+            return new CsvColumns(country, htsCode, year, date, rate);
+        }
+
+        FTAImportRow toRow(List<String> fields) {
+            String yearField = field(fields, year);
+            String dateField = field(fields, date);
+            return new FTAImportRow(
+                    field(fields, country),
+                    field(fields, htsCode),
+                    yearField == null || yearField.isEmpty() ? null : Integer.valueOf(yearField),
+                    dateField == null || dateField.isEmpty() ? null : LocalDate.parse(dateField),
+                    field(fields, rate));
+        }
+
+        private static String field(List<String> fields, int index) {
+            return index >= 0 && index < fields.size() ? fields.get(index) : null;
+        }
+    }
+
+    /**
+     * Parses a row lazily so that field-level parse errors are reported as
+     * rejected rows rather than failing the import.
+     */
+    @FunctionalInterface
+    private interface RowSupplier {
+        FTAImportRow get();
+    }
+
+    /**
+     * Validates rows and buffers them into fixed-size JDBC batches.
+     */
+    private class BatchWriter {
+        private final FTAImportProgress progress;
+        private final List<Object[]> batch = new ArrayList<>(batchSize);
+
+        BatchWriter(FTAImportProgress progress) {
+            this.progress = progress;
+        }
+
+        void accept(long rowNumber, RowSupplier supplier) {
+            progress.rowRead();
+
+            FTAImportRow row;
+            try {
+                row = supplier.get();
+            } catch (NumberFormatException | DateTimeParseException e) {
+                progress.rowRejected(rowNumber, "unparseable year or date");
+                return;
+            }
+
+            String error = validate(row);
+            if (error != null) {
+                progress.rowRejected(rowNumber, error);
+                return;
+            }
+
+            batch.add(new Object[] {
+                    row.country().trim(),
+                    row.htsCode().trim(),
+                    row.rate().trim(),
+                    Date.valueOf(row.effectiveDate()),
+                    progress.getAgreement()
+            });
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+            if (progress.getRowsRead() % PROGRESS_LOG_INTERVAL == 0) {
+                logger.info("FTA import for {}: {} rows read", progress.getAgreement(), progress.getRowsRead());
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            progress.rowsImported(batch.size());
+            batch.clear();
+        }
+    }
+}
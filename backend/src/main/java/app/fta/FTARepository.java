@@ -4,10 +4,16 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface FTARepository extends JpaRepository<FTA, Long> {
     public Optional<List<FTA>> findByCountry(String country);
     public Optional<List<FTA>> findByCountryAndHtsCode(String country, String htsCode);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM FTA f WHERE f.agreement = :agreement")
+    public int deleteByAgreement(String agreement);
 }
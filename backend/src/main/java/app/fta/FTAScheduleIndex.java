@@ -0,0 +1,152 @@
+package app.fta;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import app.config.CacheInvalidationBus;
+
+/**
+ * In-memory index of FTA staging schedules, keyed by HTS code and then by
+ * country, with each schedule held as a date-ordered map of rates.
+ *
+ * The whole index is an immutable snapshot that is rebuilt from the database
+ * and swapped in with a single volatile write, so readers never see a
+ * half-built index and never touch the database. A rebuild on one instance
+ * makes the others rebuild too, through the {@link CacheInvalidationBus}.
+ */
+@Component
+public class FTAScheduleIndex {
+
+    /** Cache domain of the index on the invalidation bus. */
+    public static final String CACHE_DOMAIN = "fta-schedules";
+
+    private final FTARepository ftaRepository;
+    private final CacheInvalidationBus invalidationBus;
+
+    private volatile Map<String, Map<String, NavigableMap<LocalDate, String>>> schedules = Map.of();
+
+    public FTAScheduleIndex(FTARepository ftaRepository, CacheInvalidationBus invalidationBus) {
+        this.ftaRepository = ftaRepository;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(CACHE_DOMAIN, key -> load());
+    }
+
+    /**
+     * Builds the initial index at startup. Seeding that runs in the background
+     * rebuilds it again once it has written the FTA rows.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        load();
+    }
+
+    /**
+     * Reloads every FTA row and atomically replaces the current index, here
+     * and on the other instances. Must be called whenever FTA data changes.
+     */
+    public void rebuild() {
+        load();
+        invalidationBus.publish(CACHE_DOMAIN, null);
+    }
+
+    private void load() {
+        schedules = build(ftaRepository.findAll());
+    }
+
+    /**
+     * Returns the rate in force for a country and HTS code at a given date, i.e.
+     * the latest step on or before that date.
+     *
+     * @param country Target country
+     * @param htsCode Target HTS code
+     * @param date    Date to look up
+     * @return Rate in force, or empty if the schedule has not started by then
+     */
+    public Optional<String> rateAt(String country, String htsCode, LocalDate date) {
+        NavigableMap<LocalDate, String> schedule = schedule(country, htsCode);
+        Map.Entry<LocalDate, String> step = schedule.floorEntry(date);
+        return step == null ? Optional.empty() : Optional.of(step.getValue());
+    }
+
+    /**
+     * Returns all steps of a schedule strictly after a given date.
+     *
+     * @param country Target country
+     * @param htsCode Target HTS code
+     * @param after   Exclusive lower bound
+     * @return Date-ordered, unmodifiable view of the future steps
+     */
+    public NavigableMap<LocalDate, String> stepsAfter(String country, String htsCode, LocalDate after) {
+        return schedule(country, htsCode).tailMap(after, false);
+    }
+
+    /**
+     * Returns all steps of a schedule within a date range, both ends inclusive.
+     *
+     * @param country Target country
+     * @param htsCode Target HTS code
+     * @param from    First date of the range
+     * @param to      Last date of the range
+     * @return Date-ordered, unmodifiable view of the steps in range
+     */
+    public NavigableMap<LocalDate, String> stepsBetween(String country, String htsCode, LocalDate from,
+            LocalDate to) {
+        return schedule(country, htsCode).subMap(from, true, to, true);
+    }
+
+    /**
+     * Returns the rate in force at a given date for every country that has a
+     * schedule for the HTS code.
+     *
+     * @param htsCode Target HTS code
+     * @param date    Date to look up
+     * @return Map of country to rate; countries whose schedule has not started
+     *         by the date are left out
+     */
+    public Map<String, String> ratesAt(String htsCode, LocalDate date) {
+        Map<String, String> rates = new HashMap<>();
+        schedules.getOrDefault(htsCode, Map.of()).forEach((country, schedule) -> {
+            Map.Entry<LocalDate, String> step = schedule.floorEntry(date);
+            if (step != null) {
+                rates.put(country, step.getValue());
+            }
+        });
+        return rates;
+    }
+
+    private NavigableMap<LocalDate, String> schedule(String country, String htsCode) {
+        return schedules.getOrDefault(htsCode, Map.of())
+                .getOrDefault(country, Collections.emptyNavigableMap());
+    }
+
+    static Map<String, Map<String, NavigableMap<LocalDate, String>>> build(List<FTA> ftas) {
+        Map<String, Map<String, TreeMap<LocalDate, String>>> building = new HashMap<>();
+        for (FTA fta : ftas) {
+            if (fta.getCountry() == null || fta.getHtsCode() == null || fta.getDate() == null) {
+                continue;
+            }
+            building.computeIfAbsent(fta.getHtsCode(), code -> new HashMap<>())
+                    .computeIfAbsent(fta.getCountry(), country -> new TreeMap<>())
+                    .put(fta.getDate(), fta.getPrice());
+        }
+
+        Map<String, Map<String, NavigableMap<LocalDate, String>>> frozen = new HashMap<>();
+        building.forEach((htsCode, byCountry) -> {
+            Map<String, NavigableMap<LocalDate, String>> countries = new HashMap<>();
+            byCountry.forEach((country, schedule) -> countries.put(country,
+                    Collections.unmodifiableNavigableMap(schedule)));
+            frozen.put(htsCode, Collections.unmodifiableMap(countries));
+        });
+        return Collections.unmodifiableMap(frozen);
+    }
+}
@@ -6,7 +6,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.springframework.stereotype.Service;
-import java.util.stream.Collectors;
 
 import app.exception.FTANotFoundException;
 
@@ -14,9 +13,11 @@ import app.exception.FTANotFoundException;
 public class FTAService {
 
     private final FTARepository ftaRepository;
+    private final FTAScheduleIndex scheduleIndex;
 
-    public FTAService(FTARepository ftaRepository) {
+    public FTAService(FTARepository ftaRepository, FTAScheduleIndex scheduleIndex) {
         this.ftaRepository = ftaRepository;
+        this.scheduleIndex = scheduleIndex;
     }
 
     /**
@@ -27,6 +28,7 @@ public class FTAService {
      */
     public void createFTA(String country, String htsCode, String price, LocalDate date) {
         ftaRepository.save(new FTA(country, htsCode, price, date));
+        scheduleIndex.rebuild();
     }
 
     /**
@@ -66,24 +68,45 @@ public class FTAService {
             throw new FTANotFoundException("FTA with id " + id + " does not exist");
         }
         ftaRepository.deleteById(id);
+        scheduleIndex.rebuild();
     }
 
     /**
-     * Returns the future prices of a product for a specific country.
+     * Returns the future prices of a product for a specific country. Served from
+     * the in-memory schedule index.
      * 
      * @param country Target country
      * @param htsCode HTS code corresponding to target product
      * @return Map of date to price 
      */
     public Map<LocalDate, String> getFuturePrices(String country, String htsCode) {
-        Optional<List<FTA>> ftas = ftaRepository.findByCountryAndHtsCode(country, htsCode);
+        return new HashMap<>(scheduleIndex.stepsAfter(country, htsCode, LocalDate.now()));
+    }
 
-        if (!ftas.isPresent()) {
-            return new HashMap<>();
-        }
+    /**
+     * Returns the FTA rate in force for a country and product on a given date.
+     * 
+     * @param country Target country
+     * @param htsCode HTS code corresponding to target product
+     * @param date    Date to look up
+     * @return Rate in force on that date
+     * @throws FTANotFoundException if no schedule step applies on that date
+     */
+    public String getRateAt(String country, String htsCode, LocalDate date) {
+        return scheduleIndex.rateAt(country, htsCode, date)
+                .orElseThrow(() -> new FTANotFoundException(
+                        "No FTA rate for " + htsCode + " with " + country + " on " + date));
+    }
 
-        return ftas.get().stream()
-                .filter(fta -> fta.getDate().isAfter(LocalDate.now()))
-                .collect(Collectors.toMap(FTA::getDate, FTA::getPrice));
+    /**
+     * Returns the FTA rate in force on a given date for every country that has a
+     * schedule for the product.
+     * 
+     * @param htsCode HTS code corresponding to target product
+     * @param date    Date to look up
+     * @return Map of country to rate
+     */
+    public Map<String, String> getRatesAt(String htsCode, LocalDate date) {
+        return scheduleIndex.ratesAt(htsCode, date);
     }
 }
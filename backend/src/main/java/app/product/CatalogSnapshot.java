@@ -0,0 +1,83 @@
+package app.product;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The product catalog as bundled with the application, so an empty database
+ * can be seeded without calling the HTS API. The snapshot holds the raw HTS
+ * search responses for the keywords of the weekly ingest, gzipped, along with
+ * the date they were captured; scripts/refresh-catalog-snapshot.sh rebuilds
+ * it.
+ */
+@Component
+public class CatalogSnapshot {
+
+    private final ObjectMapper objectMapper;
+    private final Resource snapshot;
+
+    public CatalogSnapshot(ObjectMapper objectMapper,
+            @Value("${app.seed.snapshot:classpath:seed/catalog-snapshot.json.gz}") Resource snapshot) {
+        this.objectMapper = objectMapper;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Reads the snapshot as products, mapped the same way as the weekly
+     * ingest maps live responses. Each product is dated with the capture date
+     * and categorized by the first keyword that found it.
+     *
+     * @return One product per HTS code, in snapshot order
+     */
+    public List<Product> products() {
+        JsonNode root;
+        try (InputStream in = new GZIPInputStream(snapshot.getInputStream())) {
+            root = objectMapper.readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read catalog snapshot " + snapshot, e);
+        }
+
+        LocalDate capturedOn = LocalDate.parse(root.path("capturedOn").asText());
+        Map<String, Product> byCode = new LinkedHashMap<>();
+        root.path("categories").fields().forEachRemaining(category -> {
+            for (Map<String, Object> article : articles(category.getValue())) {
+                Object htsno = article.get("htsno");
+                if (htsno == null || byCode.containsKey(htsno.toString())) {
+                    continue;
+                }
+                Product product = ProductService.mapToProduct(article, htsno.toString());
+                product.setCategory(category.getKey());
+                product.setFetchDate(capturedOn);
+                byCode.put(product.getHtsCode(), product);
+            }
+        });
+        return new ArrayList<>(byCode.values());
+    }
+
+    /**
+     * Accepts both shapes the HTS API answers with: a bare array of articles,
+     * or an object with the articles under "results".
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> articles(JsonNode response) {
+        JsonNode results = response.isArray() ? response : response.path("results");
+        if (!results.isArray()) {
+            return List.of();
+        }
+        return objectMapper.convertValue(results, List.class);
+    }
+}
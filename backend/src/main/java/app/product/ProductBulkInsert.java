@@ -0,0 +1,21 @@
+package app.product;
+
+import java.util.Collection;
+
+/**
+ * Bulk insert for new product rows, mixed into {@link ProductRepository}.
+ */
+public interface ProductBulkInsert {
+
+    /**
+     * Inserts products that are known not to exist yet, in JDBC batches.
+     * Unlike {@code saveAll}, which merges and so selects every row before
+     * writing it because product ids are assigned rather than generated,
+     * this issues inserts only. The persistence context is cleared as it goes,
+     * so entities loaded earlier in the same transaction become detached.
+     *
+     * @param products New products; inserting an existing one fails the
+     *                 whole call
+     */
+    void insertAll(Collection<Product> products);
+}
@@ -0,0 +1,46 @@
+package app.product;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Picked up by Spring Data as the implementation of {@link ProductBulkInsert}
+ * for {@link ProductRepository}.
+ */
+class ProductBulkInsertImpl implements ProductBulkInsert {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int batchSize;
+
+    /**
+     * @param batchSize Rows per JDBC batch; matches hibernate.jdbc.batch_size so
+     *                  every flush sends one batch per statement
+     */
+    ProductBulkInsertImpl(@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(Collection<Product> products) {
+        int pending = 0;
+        for (Product product : products) {
+            entityManager.persist(product);
+            if (++pending == batchSize) {
+                // Keeps the persistence context small on large catalogs
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -2,11 +2,19 @@ package app.product;
 
 import org.springframework.web.bind.annotation.*;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 
+import app.config.Deadline;
+import app.config.ResponseCache;
+
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.time.Duration;
 import java.time.LocalDate;
 
 @RestController
@@ -14,9 +22,14 @@ import java.time.LocalDate;
 public class ProductController {
 
     private final ProductService productService;
+    private final ResponseCache responseCache;
+    private final Duration requestDeadline;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ResponseCache responseCache,
+            @Value("${app.request.deadline:5s}") Duration requestDeadline) {
         this.productService = productService;
+        this.responseCache = responseCache;
+        this.requestDeadline = requestDeadline;
     }
 
     /**
@@ -61,17 +74,19 @@ public class ProductController {
      * @return Product details
      */
     @GetMapping("/hts/{htsCode}")
-    public ResponseEntity<Map<String, Object>> getProductByHtsCode(@PathVariable String htsCode) {
-        Product product = productService.findProductByHtsCode(htsCode);
-
-        return ResponseEntity.ok(Map.of(
-                "message", "Product with HTS code " + htsCode + " found",
-                "htsCode", product.getHtsCode(),
-                "description",
-                product.getDescription() != null ? product.getDescription() : "No description available",
-                "general", product.getGeneral() != null ? product.getGeneral() : "",
-                "special", product.getSpecial() != null ? product.getSpecial() : "",
-                "category", product.getCategory() != null ? product.getCategory() : ""));
+    public ResponseEntity<byte[]> getProductByHtsCode(@PathVariable String htsCode, WebRequest request) {
+        return responseCache.respond(request, "product/hts/" + htsCode, () -> {
+            Product product = Deadline.after(requestDeadline).call(() -> productService.findProductByHtsCode(htsCode));
+
+            return Map.of(
+                    "message", "Product with HTS code " + htsCode + " found",
+                    "htsCode", product.getHtsCode(),
+                    "description",
+                    product.getDescription() != null ? product.getDescription() : "No description available",
+                    "general", product.getGeneral() != null ? product.getGeneral() : "",
+                    "special", product.getSpecial() != null ? product.getSpecial() : "",
+                    "category", product.getCategory() != null ? product.getCategory() : "");
+        }, ResponseCache.CATALOG);
     }
 
     /**
@@ -81,20 +96,22 @@ public class ProductController {
      * @return
      */
     @GetMapping("/price/{htsCode}")
-    public ResponseEntity<Map<String, Object>> getMostRecentProductPrice(@PathVariable String htsCode) {
-        Optional<Product> latest = productService.getMostRecentProductPrice(htsCode);
-
-        if (latest.isPresent()) {
-            return ResponseEntity.ok(Map.of(
-                    "message", "Existing data for product " + htsCode + " found",
-                    "general", latest.get().getGeneral(),
-                    "special", latest.get().getSpecial()));
-        } else {
-            return ResponseEntity.ok(Map.of(
-                    "message", "No existing data on product with HTS code " + htsCode,
-                    "general", null,
-                    "special", null));
-        }
+    public ResponseEntity<byte[]> getMostRecentProductPrice(@PathVariable String htsCode, WebRequest request) {
+        return responseCache.respond(request, "product/price/" + htsCode, () -> {
+            Optional<Product> latest = productService.getMostRecentProductPrice(htsCode);
+
+            if (latest.isPresent()) {
+                return Map.of(
+                        "message", "Existing data for product " + htsCode + " found",
+                        "general", latest.get().getGeneral(),
+                        "special", latest.get().getSpecial());
+            } else {
+                return Map.of(
+                        "message", "No existing data on product with HTS code " + htsCode,
+                        "general", null,
+                        "special", null);
+            }
+        }, ResponseCache.CATALOG);
     }
 
     /**
@@ -144,6 +161,28 @@ public class ProductController {
         return ResponseEntity.ok().body(prices);
     }
 
+    /**
+     * Returns the price series of a specific product for a specific country in
+     * ascending date order, ready to be plotted. Can be limited to a date range
+     * and downsampled for long histories.
+     * 
+     * @param htsCode   HTS code of target product
+     * @param country   Target country
+     * @param from      First date to include (optional)
+     * @param to        Last date to include (optional)
+     * @param maxPoints Maximum number of points to return (optional, at least 2)
+     * @return List of points (example: [ { "date": "2023-01-01", "rate": "$2.10" },
+     *         { "date": "2025-01-01", "rate": "$2.30" } ])
+     */
+    @GetMapping("/price/{htsCode}/{country}/series")
+    public ResponseEntity<List<TariffSeries.Point>> getPriceSeries(@PathVariable String htsCode,
+            @PathVariable String country,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer maxPoints) {
+        return ResponseEntity.ok(productService.getPriceSeries(htsCode, country, from, to, maxPoints));
+    }
+
     /**
      * Maps a country to the price of a specific product. Can be used to compare the
      * most recent prices across countries.
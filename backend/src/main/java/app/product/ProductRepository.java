@@ -8,7 +8,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, ProductId> {
+public interface ProductRepository extends JpaRepository<Product, ProductId>, ProductBulkInsert {
     Optional<Product> findTopByHtsCodeOrderByFetchDateDesc(String htsCode); 
     Optional<Product> findTopByHtsCodeAndFetchDateLessThanEqualOrderByFetchDateDesc(String htsCode, LocalDate date);
     Optional<List<Product>> findByCategoryContainingIgnoreCase(String keyword);
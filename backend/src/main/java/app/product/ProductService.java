@@ -1,10 +1,16 @@
 package app.product;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
 
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -13,52 +19,109 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import app.config.JobLeases;
+import app.config.RateLimiter;
+import app.config.ResponseCache;
+import app.config.SamplingTurboFilter;
 import app.exception.ProductNotFoundException;
+import app.exception.RateLimitExceededException;
+import app.exception.UpstreamUnavailableException;
 import app.fta.FTAService;
 import app.query.TariffApiClient;
+import app.query.UpstreamScheduler;
 
 @Service
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    // The weekly ingest searches the HTS API by keyword, one partition each
+    static final List<String> INGEST_KEYWORDS = List.of("sugar", "bread", "milk", "egg", "rice");
+
     private final ProductRepository productRepository;
     private final TariffApiClient apiClient;
     private final FTAService ftaService;
-
-    public ProductService(ProductRepository productRepository, TariffApiClient apiClient, FTAService ftaService) {
+    private final TariffSeriesStore seriesStore;
+    private final ResponseCache responseCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLeases jobLeases;
+    private final RateLimiter rateLimiter;
+    private final String ingestSchedule;
+
+    public ProductService(ProductRepository productRepository, TariffApiClient apiClient, FTAService ftaService,
+            TariffSeriesStore seriesStore, ResponseCache responseCache, ApplicationEventPublisher eventPublisher,
+            JobLeases jobLeases, RateLimiter rateLimiter,
+            @Value("${app.ingest.cron:0 0 0 * * MON}") String ingestSchedule) {
         this.productRepository = productRepository;
         this.apiClient = apiClient;
         this.ftaService = ftaService;
+        this.seriesStore = seriesStore;
+        this.responseCache = responseCache;
+        this.eventPublisher = eventPublisher;
+        this.jobLeases = jobLeases;
+        this.rateLimiter = rateLimiter;
+        this.ingestSchedule = ingestSchedule;
     }
 
     /**
-     * Fetches tariff data from the external API and saves it. Automatically called
-     * every Monday.
+     * Runs the weekly ingest when it is due, with one partition per keyword so
+     * that the instances polling at the time share the work. Each partition
+     * runs on exactly one instance; see {@link JobLeases}.
      */
-    @Scheduled(cron = "0 0 0 * * MON")
-    public void fetchExternal() {
-        try {
-            List<String> keywords = List.of("sugar", "bread", "milk", "egg", "rice");
-
-            for (String keyword : keywords) {
-                List<Map<String, Object>> response = apiClient.searchTariffArticles(keyword);
-
-                for (Map<String, Object> map : response) {
-                    String htsCode = (String) map.get("htsno");
-
-                    Product product = mapToProduct(map, htsCode);
-                    product.setCategory(keyword);
-                    product.setFetchDate(LocalDate.now());
+    @Scheduled(fixedDelayString = "${app.jobs.poll-ms:60000}")
+    public void fetchExternalWhenDue() {
+        CronExpression schedule = CronExpression.parse(ingestSchedule);
+        for (String keyword : INGEST_KEYWORDS) {
+            jobLeases.runIfDue("product-ingest:" + keyword, schedule, () -> fetchExternal(keyword));
+        }
+    }
 
-                    Optional<Product> latestRecord = getMostRecentProductPrice(htsCode);
+    /**
+     * Fetches tariff data for every ingest keyword from the external API and
+     * saves it, on this instance and regardless of any lease. A keyword that
+     * fails does not stop the others.
+     */
+    public void fetchExternal() {
+        for (String keyword : INGEST_KEYWORDS) {
+            try {
+                fetchExternal(keyword);
+            } catch (Exception e) {
+                logger.error("Weekly tariff fetch of '{}' from the external API failed", keyword, e);
+            }
+        }
+    }
 
-                    if (!latestRecord.isPresent() || !latestRecord.get().equals(product)) {
-                        productRepository.save(product);
-                    }
-                }
+    /**
+     * Fetches the tariff data found by one keyword from the external API and
+     * saves the products that changed since their latest record.
+     *
+     * @param keyword Search keyword, saved as the products' category
+     * @throws UpstreamUnavailableException if the external API did not answer,
+     *                                      so the partition is retried
+     */
+    void fetchExternal(String keyword) {
+        List<Map<String, Object>> response = UpstreamScheduler.inBackground(
+                () -> apiClient.searchTariffArticles(keyword));
+
+        for (Map<String, Object> map : response) {
+            String htsCode = (String) map.get("htsno");
+
+            Product product = mapToProduct(map, htsCode);
+            product.setCategory(keyword);
+            product.setFetchDate(LocalDate.now());
+
+            Optional<Product> latestRecord = getMostRecentProductPrice(htsCode);
+
+            if (!latestRecord.isPresent() || !latestRecord.get().equals(product)) {
+                productRepository.save(product);
+                seriesStore.append(product.getHtsCode(), product.getFetchDate(),
+                        country -> selectPrice(product, country));
+                responseCache.invalidate(ResponseCache.CATALOG);
+                eventPublisher.publishEvent(new TariffChange(htsCode, product.getFetchDate(),
+                        product.getGeneral(), product.getSpecial(),
+                        latestRecord.map(Product::getGeneral).orElse(null),
+                        latestRecord.map(Product::getSpecial).orElse(null)));
             }
-        } catch (Exception e) {
-            System.out.println("Error fetching data from external API: " + e.getMessage());
-            e.printStackTrace();
         }
     }
 
@@ -69,34 +132,33 @@ public class ProductService {
      * @param htsCode The HTS code to search for
      * @return Product matching the HTS code
      * @throws ProductNotFoundException if product not found through any strategy
+     * @throws RateLimitExceededException if the external API is needed but the
+     *                                    caller is over its rate limit
      */
     public Product findProductByHtsCode(String htsCode) {
-        System.out.println("Fetching product by HTS code: " + htsCode);
-
         // Try local database first
         Optional<Product> product = getMostRecentProductPrice(htsCode);
         if (product.isPresent()) {
-            System.out.println("Product found in database: " + product.get());
+            logger.debug("Product {} found in database", htsCode);
             return product.get();
         }
 
         // Try category search
-        System.out.println("Product not in database, searching by keyword: " + htsCode);
         Optional<Product> searchResult = searchByCategory(htsCode);
         if (searchResult.isPresent()) {
-            System.out.println("Product found by search: " + searchResult.get());
+            logger.debug("Product {} found by category search as {}", htsCode, searchResult.get().getHtsCode());
             return searchResult.get();
         }
 
         // Try external API
-        System.out.println("Product not found locally, fetching from external API: " + htsCode);
+        rateLimiter.check(RateLimiter.PRODUCT_FALLBACK);
         Optional<Product> apiResult = fetchFromExternalApi(htsCode);
         if (apiResult.isPresent()) {
-            System.out.println("Product found from API: " + apiResult.get().getHtsCode());
+            logger.debug("Product {} found from external API as {}", htsCode, apiResult.get().getHtsCode());
             return apiResult.get();
         }
 
-        System.out.println("No product found with HTS code: " + htsCode);
+        logger.debug("No product found with HTS code {}", htsCode);
         throw new ProductNotFoundException("No product found with HTS code: " + htsCode);
     }
 
@@ -142,19 +204,21 @@ public class ProductService {
             return Optional.of(mapToProduct(match, htsCode));
 
         } catch (Exception e) {
-            System.out.println("Error fetching from external API: " + e.getMessage());
+            logger.warn(SamplingTurboFilter.SAMPLED, "Fetching {} from external API failed: {}", htsCode,
+                    e.toString());
             return Optional.empty();
         }
     }
 
     /**
-     * Maps API response data to Product entity.
+     * Maps API response data to Product entity. Package-private for
+     * {@link CatalogSnapshot}, which maps recorded responses the same way.
      *
      * @param apiData Map containing API response fields
      * @param htsCode Fallback HTS code if not present in API data
      * @return Product instance populated from API data
      */
-    private Product mapToProduct(Map<String, Object> apiData, String htsCode) {
+    static Product mapToProduct(Map<String, Object> apiData, String htsCode) {
         Product product = new Product();
         product.setHtsCode(apiData.get("htsno") != null ? apiData.get("htsno").toString() : htsCode);
         product.setDescription(apiData.get("description") != null ? apiData.get("description").toString() : null);
@@ -180,17 +244,11 @@ public class ProductService {
      * @return Optional containing the most recent product or empty if not found
      */
     public Optional<Product> getProductByHtsCode(String htsCode) {
-        System.out.println("ProductService: Looking for HTS code: " + htsCode);
         Optional<List<Product>> products = productRepository.findByHtsCode(htsCode);
-        System.out.println("ProductService: Found " + (products.isPresent() ? products.get().size() : 0) + " products");
 
         // Return the most recent product if available
-        Optional<Product> result = products.flatMap(list -> list.stream()
+        return products.flatMap(list -> list.stream()
                 .max((p1, p2) -> p1.getFetchDate().compareTo(p2.getFetchDate())));
-
-        System.out.println(
-                "ProductService: Returning product: " + (result.isPresent() ? result.get().getHtsCode() : "none"));
-        return result;
     } 
 
     /**
@@ -309,13 +367,46 @@ public class ProductService {
      *
      * @param htsCode The HTS code to search for
      * @param country The country code for price selection
-     * @return Map of dates to prices, including both historical and future prices
+     * @return Map of dates to prices in ascending date order, including both
+     *         historical and future prices
      */
     public Map<LocalDate, String> getPrices(String htsCode, String country) {
-        Map<LocalDate, String> historicalPrices = getHistoricalPrices(htsCode, country);
+        Map<LocalDate, String> prices = new LinkedHashMap<>();
+        for (TariffSeries.Point point : getPriceSeries(htsCode, country, null, null, null)) {
+            prices.put(point.date(), point.rate());
+        }
+        return prices;
+    }
+
+    /**
+     * Returns the combined historical and future price series of a product for a
+     * country, in ascending date order. Historical prices come from the
+     * in-memory series store and are only read from the database the first time
+     * a code and country is requested; future prices come from the FTA schedule
+     * index and win over a historical price on the same date.
+     *
+     * @param htsCode   The HTS code to search for
+     * @param country   The country code for price selection
+     * @param from      First date to include; null for no lower bound
+     * @param to        Last date to include; null for no upper bound
+     * @param maxPoints Maximum number of points to return; null for all points
+     * @return Points of the series within the range
+     * @throws ProductNotFoundException if there is neither a historical nor a
+     *                                  future price for the code
+     * @throws IllegalArgumentException if maxPoints is less than 2
+     */
+    public List<TariffSeries.Point> getPriceSeries(String htsCode, String country, LocalDate from, LocalDate to,
+            Integer maxPoints) {
+        TariffSeries history = seriesStore.getOrLoad(htsCode, country,
+                () -> getHistoricalPrices(htsCode, country));
         Map<LocalDate, String> futurePrices = ftaService.getFuturePrices(country, htsCode);
-        historicalPrices.putAll(futurePrices);
-        return historicalPrices;
+        if (history.size() == 0 && futurePrices.isEmpty()) {
+            throw new ProductNotFoundException("Error: Product with HTS Code " + htsCode + " not found!");
+        }
+        List<TariffSeries.Point> points = history
+                .withAll(futurePrices)
+                .range(from, to);
+        return maxPoints == null ? points : TariffSeries.downsample(points, maxPoints);
     }
 
     /**
@@ -329,8 +420,6 @@ public class ProductService {
         Optional<Product> product = productRepository.findTopByHtsCodeOrderByFetchDateDesc(htsCode);
         String[] countries = Locale.getISOCountries();
 
-        System.out.println(product);
-
         if (!product.isPresent()) {
             throw new ProductNotFoundException("Product with HTS code " + htsCode + " not found!");
         }
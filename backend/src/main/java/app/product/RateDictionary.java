@@ -0,0 +1,49 @@
+package app.product;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns rate strings (e.g. "Free", "5.5¢/kg") as small integer ids so that
+ * time series can store one int per point instead of one string reference.
+ * The number of distinct rates is small compared to the number of points.
+ */
+class RateDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] rates = new String[64];
+    private int size;
+
+    /**
+     * Returns the id of a rate, assigning a new one the first time it is seen.
+     */
+    int intern(String rate) {
+        Integer id = ids.get(rate);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(rate);
+            if (id != null) {
+                return id;
+            }
+            String[] current = rates;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = rate;
+            rates = current;
+            ids.put(rate, size);
+            return size++;
+        }
+    }
+
+    String rate(int id) {
+        return rates[id];
+    }
+
+    int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,18 @@
+package app.product;
+
+import java.time.LocalDate;
+
+/**
+ * A change in the published rates of an HTS code, raised when ingest saves a
+ * product row that differs from the previous one. The previous rates are null
+ * when the code is seen for the first time.
+ */
+public record TariffChange(
+    String htsCode,
+    LocalDate date,
+    String general,
+    String special,
+    String previousGeneral,
+    String previousSpecial
+) {
+}
@@ -0,0 +1,65 @@
+package app.product;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import app.account.Account;
+import app.account.AccountService;
+import app.favourites.FavouritesDTO;
+import app.favourites.FavouritesService;
+
+@RestController
+@RequestMapping("/product/changes")
+public class TariffChangeController {
+
+    private final TariffChangeHub changeHub;
+    private final AccountService accountService;
+    private final FavouritesService favouritesService;
+
+    public TariffChangeController(TariffChangeHub changeHub, AccountService accountService,
+            FavouritesService favouritesService) {
+        this.changeHub = changeHub;
+        this.accountService = accountService;
+        this.favouritesService = favouritesService;
+    }
+
+    /**
+     * Opens a server-sent event stream of rate changes for the current user's
+     * favourite HTS codes, plus any extra codes given. Favourites are read when
+     * the stream opens; clients reconnect to pick up later changes to them.
+     * Events: "subscribed" with the codes being watched, then one
+     * "tariff-change" per ingested change.
+     * 
+     * @param htsCode Extra HTS codes to watch (optional)
+     * @return Event stream
+     * @throws IllegalArgumentException if there are no codes to watch
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) List<String> htsCode) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Account currentUser = accountService.getAccountByUsername(auth.getName());
+
+        Set<String> codes = new LinkedHashSet<>();
+        for (FavouritesDTO favourite : favouritesService.getFavouritesHtsCodes(currentUser.getUserID())) {
+            codes.add(favourite.htsCode());
+        }
+        if (htsCode != null) {
+            codes.addAll(htsCode);
+        }
+        if (codes.isEmpty()) {
+            throw new IllegalArgumentException("No favourite or requested HTS codes to watch");
+        }
+
+        return changeHub.subscribe(codes);
+    }
+}
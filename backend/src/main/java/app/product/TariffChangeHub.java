@@ -0,0 +1,277 @@
+package app.product;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import app.config.CacheInvalidationBus;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process broadcast hub that pushes {@link TariffChange}s to server-sent
+ * event subscribers interested in the changed HTS code.
+ *
+ * Idle subscribers cost no thread: each one is an async response plus a small
+ * bounded buffer. Events are serialized once and written by a small pool of
+ * writer threads, at most one per subscriber at a time. A subscriber whose
+ * buffer fills up because it reads too slowly is disconnected rather than
+ * allowed to hold up the others; clients are expected to reconnect.
+ *
+ * The ingest saves each change on one instance only, so changes are also
+ * forwarded over the {@link CacheInvalidationBus}, keyed by HTS code and
+ * date. The other instances rebuild them from the saved products and
+ * broadcast them to their own subscribers.
+ */
+@Component
+public class TariffChangeHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(TariffChangeHub.class);
+
+    /** Domain of forwarded changes on the invalidation bus; keys are "htsCode date". */
+    public static final String BUS_DOMAIN = "tariff-change";
+
+    private final ObjectMapper objectMapper;
+    private final CacheInvalidationBus changeBus;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final ExecutorService writers;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Subscriber>> subscribersByCode = new ConcurrentHashMap<>();
+
+    public TariffChangeHub(ObjectMapper objectMapper, CacheInvalidationBus changeBus,
+            ProductRepository productRepository, PlatformTransactionManager transactionManager,
+            @Value("${app.tariff-changes.buffer-size:32}") int bufferSize,
+            @Value("${app.tariff-changes.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${app.tariff-changes.writer-threads:4}") int writerThreads) {
+        this.objectMapper = objectMapper;
+        this.changeBus = changeBus;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "tariff-change-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        changeBus.register(BUS_DOMAIN, this::receive);
+    }
+
+    /**
+     * Opens a stream of changes to the given HTS codes.
+     *
+     * @param htsCodes Codes to receive changes for
+     * @return Emitter to return from the controller
+     */
+    public SseEmitter subscribe(Set<String> htsCodes) {
+        return subscribe(htsCodes, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Set<String> htsCodes, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(htsCodes));
+        emitter.onCompletion(subscriber::unregister);
+        emitter.onTimeout(subscriber::unregister);
+        emitter.onError(error -> subscriber.unregister());
+
+        subscribers.add(subscriber);
+        for (String htsCode : subscriber.htsCodes) {
+            subscribersByCode.compute(htsCode, (code, forCode) -> {
+                Set<Subscriber> updated = forCode != null ? forCode : ConcurrentHashMap.newKeySet();
+                updated.add(subscriber);
+                return updated;
+            });
+        }
+        subscriber.offer(SseEmitter.event().name("subscribed").data(subscriber.htsCodes));
+        return emitter;
+    }
+
+    /**
+     * Broadcasts a change once the transaction that saved it commits, or
+     * straight away if it was saved outside a transaction.
+     *
+     * @param change Change to broadcast
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(TariffChange change) {
+        Set<Subscriber> interested = subscribersByCode.get(change.htsCode());
+        if (interested == null || interested.isEmpty()) {
+            return;
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize tariff change for {}", change.htsCode(), e);
+            return;
+        }
+
+        // Built once and shared, so each subscriber only costs a queue slot
+        SseEmitter.SseEventBuilder event = SseEmitter.event()
+                .name("tariff-change")
+                .data(json, MediaType.APPLICATION_JSON);
+        for (Subscriber subscriber : interested) {
+            subscriber.offer(event);
+        }
+    }
+
+    /**
+     * Forwards a change to the other instances once the transaction that saved
+     * it commits.
+     *
+     * @param change Change saved on this instance
+     */
+    @EventListener
+    public void forward(TariffChange change) {
+        changeBus.publish(BUS_DOMAIN, change.htsCode() + " " + change.date());
+    }
+
+    /**
+     * Broadcasts a change forwarded by another instance, if anyone here
+     * listens to its code.
+     */
+    private void receive(String key) {
+        if (key == null) {
+            return;
+        }
+        int separator = key.lastIndexOf(' ');
+        String htsCode = key.substring(0, separator);
+        LocalDate date = LocalDate.parse(key.substring(separator + 1));
+        Set<Subscriber> interested = subscribersByCode.get(htsCode);
+        if (interested == null || interested.isEmpty()) {
+            return;
+        }
+
+        // Read-write, so it reads the primary: a replica may not have the row yet
+        TariffChange change = transactionTemplate.execute(status -> {
+            Optional<Product> saved = productRepository
+                    .findTopByHtsCodeAndFetchDateLessThanEqualOrderByFetchDateDesc(htsCode, date);
+            if (saved.isEmpty() || !saved.get().getFetchDate().equals(date)) {
+                return null;
+            }
+            Optional<Product> previous = productRepository
+                    .findTopByHtsCodeAndFetchDateLessThanEqualOrderByFetchDateDesc(htsCode, date.minusDays(1));
+            return new TariffChange(htsCode, date, saved.get().getGeneral(), saved.get().getSpecial(),
+                    previous.map(Product::getGeneral).orElse(null),
+                    previous.map(Product::getSpecial).orElse(null));
+        });
+        if (change != null) {
+            publish(change);
+        }
+    }
+
+    /**
+     * Sends a comment to every subscriber so that proxies keep idle streams
+     * open and dead connections are detected and released.
+     */
+    @Scheduled(fixedRateString = "${app.tariff-changes.heartbeat-ms:30000}")
+    public void heartbeat() {
+        SseEmitter.SseEventBuilder ping = SseEmitter.event().comment("ping");
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(ping);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(Subscriber::close);
+        writers.shutdownNow();
+    }
+
+    /**
+     * One connected client: its emitter, the codes it listens to and the events
+     * waiting to be written to it.
+     */
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<String> htsCodes;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Set<String> htsCodes) {
+            this.emitter = emitter;
+            this.htsCodes = htsCodes;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                logger.info("Dropping slow tariff change subscriber for {}", htsCodes);
+                close();
+                return;
+            }
+            if (writing.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        close();
+                    }
+                }
+                writing.set(false);
+                // Pick up events offered after the last poll but before the flag was cleared
+            } while (!closed.get() && !buffer.isEmpty() && writing.compareAndSet(false, true));
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                unregister();
+                buffer.clear();
+                emitter.complete();
+            }
+        }
+
+        void unregister() {
+            closed.set(true);
+            subscribers.remove(this);
+            for (String htsCode : htsCodes) {
+                subscribersByCode.computeIfPresent(htsCode, (code, forCode) -> {
+                    forCode.remove(this);
+                    return forCode.isEmpty() ? null : forCode;
+                });
+            }
+        }
+    }
+}
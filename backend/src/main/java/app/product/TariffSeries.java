@@ -0,0 +1,200 @@
+package app.product;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, compact time series of tariff rates for one HTS code and country.
+ *
+ * Dates are stored as epoch days, delta encoded: the first entry is the
+ * absolute epoch day and each following entry is the gap in days to the
+ * previous point. Rates are stored as ids into a shared {@link RateDictionary}.
+ * A series of n points therefore takes two int arrays of length n, instead of
+ * a map entry, a {@code LocalDate} and a {@code String} per point.
+ *
+ * Updates return a new series, so a published series can be read without
+ * locking.
+ */
+public final class TariffSeries {
+
+    /**
+     * One point of a series, in the shape the price history chart consumes.
+     */
+    public record Point(LocalDate date, String rate) {
+    }
+
+    private final RateDictionary dictionary;
+    private final int[] dayDeltas;
+    private final int[] rateIds;
+
+    private TariffSeries(RateDictionary dictionary, int[] dayDeltas, int[] rateIds) {
+        this.dictionary = dictionary;
+        this.dayDeltas = dayDeltas;
+        this.rateIds = rateIds;
+    }
+
+    static TariffSeries empty(RateDictionary dictionary) {
+        return new TariffSeries(dictionary, new int[0], new int[0]);
+    }
+
+    /**
+     * Builds a series from an unordered map of dates to rates.
+     */
+    static TariffSeries of(RateDictionary dictionary, Map<LocalDate, String> prices) {
+        return empty(dictionary).withAll(prices);
+    }
+
+    public int size() {
+        return rateIds.length;
+    }
+
+    /**
+     * Returns a series with one point added, replacing any point on the same
+     * date.
+     */
+    public TariffSeries with(LocalDate date, String rate) {
+        return withAll(Map.of(date, rate));
+    }
+
+    /**
+     * Returns a series with several points added, replacing any points on the
+     * same dates.
+     */
+    public TariffSeries withAll(Map<LocalDate, String> prices) {
+        if (prices.isEmpty()) {
+            return this;
+        }
+
+        int[] days = decodeDays();
+        int[] ids = rateIds.clone();
+        int size = ids.length;
+
+        for (Map.Entry<LocalDate, String> price : prices.entrySet()) {
+            int day = Math.toIntExact(price.getKey().toEpochDay());
+            int id = dictionary.intern(price.getValue());
+            int index = Arrays.binarySearch(days, 0, size, day);
+            if (index >= 0) {
+                ids[index] = id;
+                continue;
+            }
+
+            int insertAt = -index - 1;
+            if (size == days.length) {
+                days = Arrays.copyOf(days, Math.max(4, size * 2));
+                ids = Arrays.copyOf(ids, days.length);
+            }
+            System.arraycopy(days, insertAt, days, insertAt + 1, size - insertAt);
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            days[insertAt] = day;
+            ids[insertAt] = id;
+            size++;
+        }
+
+        return new TariffSeries(dictionary, encodeDays(days, size), Arrays.copyOf(ids, size));
+    }
+
+    /**
+     * Returns the points within a date range in ascending date order.
+     *
+     * @param from First date of the range, inclusive; null for no lower bound
+     * @param to   Last date of the range, inclusive; null for no upper bound
+     * @return Points in range
+     */
+    public List<Point> range(LocalDate from, LocalDate to) {
+        long lower = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long upper = to == null ? Long.MAX_VALUE : to.toEpochDay();
+
+        List<Point> points = new ArrayList<>();
+        long day = 0;
+        for (int i = 0; i < dayDeltas.length; i++) {
+            day += dayDeltas[i];
+            if (day > upper) {
+                break;
+            }
+            if (day >= lower) {
+                points.add(new Point(LocalDate.ofEpochDay(day), dictionary.rate(rateIds[i])));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Reduces an ordered list of points to at most {@code maxPoints}, keeping
+     * the shape of the step function. Points that repeat the previous rate are
+     * dropped first, since they do not change the line; if that is not enough,
+     * the remaining points are grouped into equal time buckets and the last
+     * point of each bucket is kept. The first and last points are always kept.
+     *
+     * @param points    Points in ascending date order
+     * @param maxPoints Maximum number of points to return, at least 2
+     * @return Downsampled points in ascending date order
+     * @throws IllegalArgumentException if maxPoints is less than 2
+     */
+    public static List<Point> downsample(List<Point> points, int maxPoints) {
+        if (maxPoints < 2) {
+            throw new IllegalArgumentException("maxPoints must be at least 2");
+        }
+        if (points.size() <= maxPoints) {
+            return points;
+        }
+
+        List<Point> changes = new ArrayList<>();
+        for (int i = 0; i < points.size(); i++) {
+            boolean last = i == points.size() - 1;
+            if (i == 0 || last || !points.get(i).rate().equals(points.get(i - 1).rate())) {
+                changes.add(points.get(i));
+            }
+        }
+        if (changes.size() <= maxPoints) {
+            return changes;
+        }
+
+        Point first = changes.get(0);
+        Point last = changes.get(changes.size() - 1);
+        long start = first.date().toEpochDay();
+        long span = last.date().toEpochDay() - start;
+        int buckets = maxPoints - 2;
+        if (buckets == 0) {
+            return List.of(first, last);
+        }
+
+        List<Point> sampled = new ArrayList<>(maxPoints);
+        sampled.add(first);
+        long previousBucket = -1;
+        for (int i = 1; i < changes.size() - 1; i++) {
+            Point point = changes.get(i);
+            long bucket = Math.min(buckets - 1, (point.date().toEpochDay() - start) * buckets / span);
+            if (bucket == previousBucket) {
+                sampled.set(sampled.size() - 1, point);
+            } else {
+                sampled.add(point);
+                previousBucket = bucket;
+            }
+        }
+        sampled.add(last);
+        return sampled;
+    }
+
+    private int[] decodeDays() {
+        int[] days = new int[dayDeltas.length];
+        int day = 0;
+        for (int i = 0; i < dayDeltas.length; i++) {
+            day += dayDeltas[i];
+            days[i] = day;
+        }
+        return days;
+    }
+
+    private static int[] encodeDays(int[] days, int size) {
+        int[] deltas = new int[size];
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            deltas[i] = days[i] - previous;
+            previous = days[i];
+        }
+        return deltas;
+    }
+}
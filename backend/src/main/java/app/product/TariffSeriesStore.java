@@ -0,0 +1,145 @@
+package app.product;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import app.config.CacheInvalidationBus;
+
+/**
+ * In-memory store of historical tariff rate series, one per HTS code and
+ * country. A series is loaded from the database the first time it is read and
+ * then kept up to date as new product rows are ingested, so chart requests do
+ * not go back to the database. Other instances drop the series an ingest
+ * changed, through the {@link CacheInvalidationBus}, and reload them on next
+ * use.
+ *
+ * Only series with at least one point are stored, and the store is emptied
+ * once it holds about {@link #MAX_SERIES} of them, so requests for unknown
+ * codes or countries cannot grow it without bound.
+ */
+@Component
+public class TariffSeriesStore {
+
+    /** Cache domain of the series on the invalidation bus; keys are HTS codes. */
+    public static final String CACHE_DOMAIN = "tariff-series";
+
+    static final int MAX_SERIES = 20_000;
+
+    private final RateDictionary dictionary = new RateDictionary();
+    private final CacheInvalidationBus invalidationBus;
+
+    // HTS code -> country -> series
+    private final Map<String, Map<String, TariffSeries>> series = new ConcurrentHashMap<>();
+    // Approximate number of stored series, for the bound
+    private final AtomicInteger stored = new AtomicInteger();
+    // Bumped on every change, so a load that raced one is not stored
+    private final AtomicLong changes = new AtomicLong();
+
+    public TariffSeriesStore(CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(CACHE_DOMAIN, htsCode -> {
+            if (htsCode == null) {
+                clearLocal();
+            } else {
+                removeLocal(htsCode);
+            }
+        });
+    }
+
+    /**
+     * Returns the series for an HTS code and country, loading it on first use.
+     * The loader runs without holding any lock of the store, so two first
+     * reads of the same series may both load it. An empty series, or one
+     * loaded while the store changed, is returned without being stored.
+     *
+     * @param htsCode Target HTS code
+     * @param country Target country
+     * @param loader  Supplies the full price history if the series is not
+     *                stored yet
+     * @return Stored or freshly loaded series
+     */
+    public TariffSeries getOrLoad(String htsCode, String country, Supplier<Map<LocalDate, String>> loader) {
+        Map<String, TariffSeries> byCountry = series.get(htsCode);
+        TariffSeries current = byCountry != null ? byCountry.get(country) : null;
+        if (current != null) {
+            return current;
+        }
+
+        long changesBefore = changes.get();
+        TariffSeries loaded = TariffSeries.of(dictionary, loader.get());
+        if (loaded.size() == 0 || changes.get() != changesBefore) {
+            return loaded;
+        }
+        if (stored.get() >= MAX_SERIES) {
+            clearLocal();
+        }
+        TariffSeries raced = series.computeIfAbsent(htsCode, code -> new ConcurrentHashMap<>())
+                .putIfAbsent(country, loaded);
+        if (raced != null) {
+            return raced;
+        }
+        stored.incrementAndGet();
+        return loaded;
+    }
+
+    /**
+     * Adds a newly ingested point to every stored series of an HTS code. Series
+     * that have not been loaded yet are left alone; they will pick up the point
+     * from the database when first read.
+     *
+     * @param htsCode        HTS code of the ingested product
+     * @param date           Date of the new point
+     * @param rateForCountry Rate of the new point for a given country
+     */
+    public void append(String htsCode, LocalDate date, Function<String, String> rateForCountry) {
+        invalidationBus.publish(CACHE_DOMAIN, htsCode);
+        changes.incrementAndGet();
+        Map<String, TariffSeries> byCountry = series.get(htsCode);
+        if (byCountry == null) {
+            return;
+        }
+        byCountry.replaceAll((country, current) -> current.with(date, rateForCountry.apply(country)));
+    }
+
+    /**
+     * Drops all stored series of an HTS code so that they are reloaded on next
+     * use.
+     */
+    public void invalidate(String htsCode) {
+        removeLocal(htsCode);
+        invalidationBus.publish(CACHE_DOMAIN, htsCode);
+    }
+
+    /**
+     * Drops every stored series.
+     */
+    public void clear() {
+        clearLocal();
+        invalidationBus.publish(CACHE_DOMAIN, null);
+    }
+
+    int size() {
+        return stored.get();
+    }
+
+    private void removeLocal(String htsCode) {
+        changes.incrementAndGet();
+        Map<String, TariffSeries> removed = series.remove(htsCode);
+        if (removed != null) {
+            stored.addAndGet(-removed.size());
+        }
+    }
+
+    private void clearLocal() {
+        changes.incrementAndGet();
+        series.clear();
+        stored.set(0);
+    }
+}
@@ -0,0 +1,135 @@
+package app.query;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import app.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Stops calling the HTS API while it is down, so callers fail at once instead
+ * of after a timeout.
+ * <p>
+ * The circuit opens after {@code app.hts.circuit.failure-threshold} calls in a
+ * row have failed. While it is open every call fails straight away with an
+ * {@link UpstreamUnavailableException}. After {@code open-duration} one trial
+ * call is let through: if it succeeds the circuit closes, otherwise it opens
+ * again. Calls shed by the {@link UpstreamScheduler} say nothing about the
+ * upstream and are not counted.
+ */
+@Component
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * Published as {@code hts.upstream.circuit.state} by ordinal.
+     */
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(MeterRegistry meterRegistry,
+            @Value("${app.hts.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${app.hts.circuit.open-duration:30s}") Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        Gauge.builder("hts.upstream.circuit.state", this, breaker -> breaker.state().ordinal())
+                .description("State of the HTS API circuit: 0 closed, 1 half open, 2 open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Makes an upstream call unless the circuit is open.
+     *
+     * @param call The upstream call; an exception from it, other than a 4xx
+     *             response or an {@link UpstreamUnavailableException}, counts
+     *             as a failure
+     * @return The call's result
+     * @throws UpstreamUnavailableException if the circuit is open
+     */
+    public <T> T call(Supplier<T> call) {
+        boolean trial = permit();
+        try {
+            T result = call.get();
+            record(true, trial);
+            return result;
+        } catch (HttpClientErrorException e) {
+            record(e.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS, trial);
+            throw e;
+        } catch (UpstreamUnavailableException e) {
+            release(trial);
+            throw e;
+        } catch (RuntimeException e) {
+            record(false, trial);
+            throw e;
+        }
+    }
+
+    /**
+     * @return Whether the call is the trial of a half open circuit
+     */
+    private synchronized boolean permit() {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                throw new UpstreamUnavailableException("HTS API circuit open");
+            }
+            state = State.HALF_OPEN;
+        }
+        if (trialInFlight) {
+            throw new UpstreamUnavailableException("HTS API circuit half open, trial call in flight");
+        }
+        trialInFlight = true;
+        return true;
+    }
+
+    private synchronized void record(boolean success, boolean trial) {
+        if (trial) {
+            trialInFlight = false;
+        }
+        if (success) {
+            consecutiveFailures = 0;
+            if (trial) {
+                state = State.CLOSED;
+                logger.info("HTS API circuit closed");
+            }
+            return;
+        }
+        consecutiveFailures++;
+        if (trial || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            logger.warn("HTS API circuit opened after {} failures in a row", consecutiveFailures);
+        }
+    }
+
+    private synchronized void release(boolean trial) {
+        if (trial) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+}
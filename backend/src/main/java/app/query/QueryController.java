@@ -1,20 +1,44 @@
 package app.query;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
+import app.config.Deadline;
+import app.config.RateLimited;
+import app.config.RateLimiter;
+import app.config.ResponseCache;
+import app.favourites.Favourites;
+import app.favourites.FavouritesService;
+
 @RestController
 @RequestMapping("/api/tariffs")
 public class QueryController {
 
+	private static final long SEARCH_STREAM_TIMEOUT_MS = 60_000;
+
 	private final QueryService queryService;
 	private final TariffService tariffService;
+	private final FavouritesService favouritesService;
+	private final ResponseCache responseCache;
+	private final Duration requestDeadline;
 
-	public QueryController(QueryService queryService, TariffService tariffService) {
+	public QueryController(QueryService queryService, TariffService tariffService,
+			FavouritesService favouritesService, ResponseCache responseCache,
+			@Value("${app.request.deadline:5s}") Duration requestDeadline) {
 		this.queryService = queryService;
 		this.tariffService = tariffService;
+		this.favouritesService = favouritesService;
+		this.responseCache = responseCache;
+		this.requestDeadline = requestDeadline;
 	}
 
 	/**
@@ -24,11 +48,61 @@ public class QueryController {
 	 * @return
 	 */
 	@GetMapping("/search")
+	@RateLimited(RateLimiter.SEARCH)
 	public ResponseEntity<List<Map<String, Object>>> searchTariffArticles(@RequestParam String keyword) {
-		List<Map<String, Object>> results = tariffService.searchAndSortTariffs(keyword);
+		List<Map<String, Object>> results = Deadline.after(requestDeadline)
+				.call(() -> tariffService.searchAndSortTariffs(keyword));
 		return ResponseEntity.ok(results);
 	}
 
+	/**
+	 * Streams the results of a keyword search as server-sent events, so results
+	 * can be shown before their full description chains are resolved.
+	 * Events, in order:
+	 * - "match": one per result after the first upstream search, with a partial
+	 *   description chain
+	 * - "resolved": one per result once its description chain is complete
+	 * - "order": the HTS codes of all results in final display order
+	 * 
+	 * @param keyword
+	 * @return
+	 */
+	@GetMapping(value = "/search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@RateLimited(RateLimiter.SEARCH)
+	public SseEmitter streamTariffArticles(@RequestParam String keyword) {
+		SseEmitter emitter = new SseEmitter(SEARCH_STREAM_TIMEOUT_MS);
+		TariffService.SearchListener listener = new TariffService.SearchListener() {
+			@Override
+			public void onMatch(Map<String, Object> summary) {
+				send(emitter, "match", summary);
+			}
+
+			@Override
+			public void onResolved(Map<String, Object> summary) {
+				send(emitter, "resolved", summary);
+			}
+		};
+		Deadline.after(requestDeadline).call(() -> tariffService.streamTariffSummary(keyword, listener))
+				.whenComplete((results, error) -> {
+					if (error != null) {
+						emitter.completeWithError(error);
+						return;
+					}
+					send(emitter, "order", results.stream().map(result -> result.get("htsno")).toList());
+					emitter.complete();
+				});
+		return emitter;
+	}
+
+	private static void send(SseEmitter emitter, String event, Object data) {
+		try {
+			emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+		} catch (IOException | IllegalStateException e) {
+			// Client went away or the stream timed out; the remaining events are dropped
+			emitter.completeWithError(e);
+		}
+	}
+
 	/**
 	 * Compare tariff rates for a given HTS number across all countries 
 	 * 
@@ -36,8 +110,9 @@ public class QueryController {
 	 * @return
 	 */
 	@GetMapping("/countries")
+	@RateLimited(RateLimiter.COUNTRIES)
 	public ResponseEntity<Map<String, Object>> compareCountryTariffs(@RequestParam String htsno) {
-		Map<String, Object> item = tariffService.searchByHtsNo(htsno);
+		Map<String, Object> item = Deadline.after(requestDeadline).call(() -> tariffService.searchByHtsNo(htsno));
 		Map<String, Object> countryTariffs = tariffService.extractCountryTariffs(item);
 		return ResponseEntity.ok(countryTariffs);
 	}
@@ -48,11 +123,21 @@ public class QueryController {
 	 * @return
 	 */
 	@GetMapping("/most-queried") 
-	public ResponseEntity<List<QueryDTO>> getMostQueriedHTSCodes() {
-		List<QueryDTO> results = queryService.getMostQueried();
-		return ResponseEntity.ok(results);
+	public ResponseEntity<byte[]> getMostQueriedHTSCodes(WebRequest request) {
+		return responseCache.respond(request, "tariffs/most-queried", queryService::getMostQueried,
+				ResponseCache.QUERIES, ResponseCache.CATALOG);
 	}
 	
+	/**
+	 * Retrieves the top 10 most favourited HTS codes with their counts
+	 * 
+	 * @return
+	 */
+	@GetMapping("/most-favourited")
+	public ResponseEntity<List<Favourites>> getMostFavouritedHTSCodes() {
+		return ResponseEntity.ok(favouritesService.getMostFavourited(10));
+	}
+
 	/**
 	 * Adds a new query record
 	 * 
@@ -90,18 +175,17 @@ public class QueryController {
 	}
 
 	/**
-	 * Option to clear one query or all queries from the database from one user
+	 * Clears all queries from the database for one user
 	 * 
 	 * @param userID
-	 * @return
+	 * @return Number of queries deleted
 	 */
 	@DeleteMapping("/queries/user/{userID}")
-	public ResponseEntity<Void> deleteQueriesByUserId(@PathVariable Integer userID) {
-		List<Query> queries = queryService.getQueriesByUserId(userID);
-		for (Query query : queries) {
-			queryService.deleteQuery(query.getQueryID());
-		}
-		return ResponseEntity.noContent().build();
+	public ResponseEntity<Map<String, Object>> deleteQueriesByUserId(@PathVariable Integer userID) {
+		int deleted = queryService.deleteQueriesByUserId(userID);
+		return ResponseEntity.ok(Map.of(
+				"message", "Query history cleared for user " + userID,
+				"deleted", deleted));
 	}
 
 	/**
@@ -113,18 +197,7 @@ public class QueryController {
 	 */
 	@DeleteMapping("/queries/user/{userID}/query/{queryID}")
 	public ResponseEntity<Void> deleteQueryByUserIdAndQueryId(@PathVariable Integer userID, @PathVariable Long queryID) {
-		List<Query> queries = queryService.getQueriesByUserId(userID);
-		boolean found = false;
-		for (Query query : queries) {
-			if (query.getQueryID().equals(queryID)) {
-				queryService.deleteQuery(queryID);
-				found = true;
-				break;
-			}
-		}
-		if (!found) {
-			return ResponseEntity.notFound().build();
-		}
+		queryService.deleteQueryByUserIdAndQueryId(userID, queryID);
 		return ResponseEntity.noContent().build();
 	}
 }
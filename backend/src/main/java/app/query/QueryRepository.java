@@ -7,7 +7,6 @@ import org.springframework.data.jpa.repository.Modifying;
 import java.util.List;
 
 import app.account.Account;
-import jakarta.transaction.Transactional;
 
 @Repository
 public interface QueryRepository extends JpaRepository<Query, Long> {
@@ -47,4 +46,26 @@ public interface QueryRepository extends JpaRepository<Query, Long> {
     List<QueryDTO> findTopQueriesWithDetails(org.springframework.data.domain.Pageable pageable);
 
     List<Query> findByAccount(Account account);
+
+    /**
+     * Deletes every query made by a user in a single statement, without loading
+     * the Query entities first.
+     *
+     * @param userID Target user ID
+     * @return Number of queries deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @org.springframework.data.jpa.repository.Query("DELETE FROM Query q WHERE q.account.userID = :userID")
+    int deleteAllByUserId(Integer userID);
+
+    /**
+     * Deletes one query, provided it belongs to the given user.
+     *
+     * @param userID  Owner of the query
+     * @param queryID Target query ID
+     * @return Number of queries deleted (0 or 1)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @org.springframework.data.jpa.repository.Query("DELETE FROM Query q WHERE q.queryID = :queryID AND q.account.userID = :userID")
+    int deleteByUserIdAndQueryId(Integer userID, Long queryID);
 }
@@ -1,11 +1,14 @@
 package app.query;
 
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import app.account.Account;
 import app.account.AccountService;
+import app.config.ResponseCache;
 import app.exception.QueryNotFoundException;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -16,29 +19,51 @@ public class QueryService {
 
     private final QueryRepository queryRepository;
 
+    private final ResponseCache responseCache;
+
     /**
      * Constructor-based injection
      * 
      * @param queryRepository The QueryRepository instance
      */
-    public QueryService(QueryRepository queryRepository, AccountService accountService) {
+    public QueryService(QueryRepository queryRepository, AccountService accountService,
+            ResponseCache responseCache) {
         this.queryRepository = queryRepository;
         this.accountService = accountService;
+        this.responseCache = responseCache;
     }
 
     /**
      * Returns the most queried products with details (HTS code, description,
      * category, count).
      * 
+     * Runs on the primary even though it only reads: the ranking is cached by
+     * ResponseCache under the revision current after the last write, and a
+     * lagging replica would have it cache the ranking from before that write.
+     * The cache means it only runs after a deletion or a refresh anyway; see
+     * {@link #refreshMostQueried}.
+     * 
      * @return List of QueryDTO objects containing product details and query counts
      */
+    @Transactional
     public List<QueryDTO> getMostQueried() {
         // Use the new repository method to get top 10 with product details
         return queryRepository.findTopQueriesWithDetails(PageRequest.of(0, 10));
     }
 
     /**
-     * Adds a new Query record to the database.
+     * Lets the cached most-queried ranking be rebuilt on next use. New queries
+     * do not invalidate it, as nearly every search adds one; the ranking is
+     * instead up to this interval behind on every instance.
+     */
+    @Scheduled(fixedDelayString = "${app.queries.ranking-refresh-ms:30000}")
+    public void refreshMostQueried() {
+        responseCache.expire(ResponseCache.QUERIES);
+    }
+
+    /**
+     * Adds a new Query record to the database. The most-queried ranking picks
+     * it up at its next refresh.
      * 
      * @param query The Query object to be saved
      * @return The saved Query object with generated ID
@@ -68,6 +93,35 @@ public class QueryService {
             throw new QueryNotFoundException("Query with ID " + queryID + " not found.");
         } else {
             queryRepository.deleteById(queryID);
+            responseCache.invalidate(ResponseCache.QUERIES);
+        }
+    }
+
+    /**
+     * Clears a user's whole query history with one DELETE statement.
+     * 
+     * @param userID Target user ID
+     * @return Number of queries deleted
+     */
+    @Transactional
+    public int deleteQueriesByUserId(Integer userID) {
+        int deleted = queryRepository.deleteAllByUserId(userID);
+        responseCache.invalidate(ResponseCache.QUERIES);
+        return deleted;
+    }
+
+    /**
+     * Deletes a single query belonging to a user with one DELETE statement.
+     * 
+     * @param userID  Owner of the query
+     * @param queryID Target query ID
+     * @throws QueryNotFoundException if the user has no query with this ID
+     */
+    @Transactional
+    public void deleteQueryByUserIdAndQueryId(Integer userID, Long queryID) {
+        if (queryRepository.deleteByUserIdAndQueryId(userID, queryID) == 0) {
+            throw new QueryNotFoundException("Query with ID " + queryID + " not found for user " + userID + ".");
         }
+        responseCache.invalidate(ResponseCache.QUERIES);
     }
 }
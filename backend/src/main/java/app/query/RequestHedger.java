@@ -0,0 +1,204 @@
+package app.query;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import app.config.Deadline;
+import app.exception.DeadlineExceededException;
+import app.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Makes upstream calls on threads of its own, so the caller can stop waiting
+ * when its {@link Deadline} expires, and cuts tail latency by hedging. Each
+ * attempt runs under the caller's deadline and lane, and is interrupted once
+ * its answer is no longer wanted; the call must give up promptly when
+ * interrupted. At most {@code app.hts.attempt-threads} attempts run at once.
+ * <p>
+ * An interactive call that has not been answered after the
+ * {@code app.hts.hedge.percentile} latency of recent calls is sent a second
+ * time, and whichever answer comes first is used. The other attempt, and
+ * both once the deadline has passed, are cancelled. Background calls are
+ * never hedged. Hedging starts once enough calls have been timed to know the
+ * percentile; since the time includes waiting for the
+ * {@link UpstreamScheduler}, it also hedges less while the budget is
+ * congested.
+ */
+@Component
+public class RequestHedger {
+
+    private static final int MIN_SAMPLES = 20;
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long minDelayNanos;
+    private final Timer attempts;
+    private final ThreadPoolExecutor threads;
+
+    private volatile long delayNanos;
+    private volatile long delayRefreshedAt = System.nanoTime() - REFRESH_NANOS;
+
+    public RequestHedger(MeterRegistry meterRegistry,
+            @Value("${app.hts.hedge.enabled:true}") boolean enabled,
+            @Value("${app.hts.hedge.percentile:0.95}") double percentile,
+            @Value("${app.hts.hedge.min-delay:50ms}") Duration minDelay,
+            @Value("${app.hts.attempt-threads:64}") int maxThreads) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minDelayNanos = minDelay.toNanos();
+        this.attempts = Timer.builder("hts.upstream.attempts")
+                .description("Single attempts at a call to the HTS API, hedges included")
+                .publishPercentiles(percentile)
+                .register(meterRegistry);
+        AtomicInteger threadCount = new AtomicInteger();
+        // No queue: an attempt either gets a thread at once or is refused
+        this.threads = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "hts-upstream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Makes a call, hedged if it is slow, within the current deadline.
+     *
+     * @param call The upstream call; must be safe to make twice
+     * @return The first answer
+     * @throws DeadlineExceededException   if the deadline passes first
+     * @throws UpstreamUnavailableException if every attempt thread is busy
+     */
+    public <T> T call(Supplier<T> call) {
+        Deadline deadline = Deadline.current();
+        if (deadline.isExpired()) {
+            throw new DeadlineExceededException("Deadline passed before the HTS API was called");
+        }
+        UpstreamScheduler.Lane lane = UpstreamScheduler.currentLane();
+        CompletableFuture<Answer<T>> answer = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger();
+        List<Future<?>> started = new ArrayList<>();
+        try {
+            Future<?> first = attempt(call, deadline, lane, answer, pending, false);
+            if (first == null) {
+                throw new UpstreamUnavailableException("No thread free to call the HTS API");
+            }
+            started.add(first);
+            long hedgeAfter = lane == UpstreamScheduler.Lane.INTERACTIVE ? hedgeDelayNanos() : Long.MAX_VALUE;
+            if (hedgeAfter < deadline.remainingNanos()) {
+                try {
+                    return answer.get(hedgeAfter, TimeUnit.NANOSECONDS).value();
+                } catch (TimeoutException e) {
+                    Future<?> hedge = answer.isDone() ? null : attempt(call, deadline, lane, answer, pending, true);
+                    if (hedge != null) {
+                        started.add(hedge);
+                    }
+                }
+            }
+            Answer<T> firstAnswer = deadline.isBounded()
+                    ? answer.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS)
+                    : answer.get();
+            if (started.size() > 1) {
+                Counter.builder("hts.upstream.hedges")
+                        .description("Hedged calls to the HTS API, by whether the hedge answered first")
+                        .tag("won", String.valueOf(firstAnswer.hedge()))
+                        .register(meterRegistry)
+                        .increment();
+            }
+            return firstAnswer.value();
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("No answer from the HTS API within the deadline");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamUnavailableException("Interrupted while waiting for the HTS API");
+        } finally {
+            // Whatever is still running is no longer wanted
+            started.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    /**
+     * Starts an attempt on a thread of the pool.
+     *
+     * @return The running attempt, or null if no thread was free
+     */
+    private <T> Future<?> attempt(Supplier<T> call, Deadline deadline, UpstreamScheduler.Lane lane,
+            CompletableFuture<Answer<T>> answer, AtomicInteger pending, boolean hedge) {
+        pending.incrementAndGet();
+        try {
+            return threads.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    T value = deadline.call(() -> UpstreamScheduler.inLane(lane, call));
+                    attempts.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    answer.complete(new Answer<>(value, hedge));
+                } catch (RuntimeException | Error e) {
+                    failed(answer, pending, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            failed(answer, pending, new UpstreamUnavailableException("No thread free to call the HTS API"));
+            return null;
+        }
+    }
+
+    /**
+     * Only fails the call once no attempt is left that could answer it.
+     */
+    private static void failed(CompletableFuture<?> answer, AtomicInteger pending, Throwable failure) {
+        if (pending.decrementAndGet() == 0) {
+            answer.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * The configured percentile of recent attempts, refreshed at most once a
+     * second, or never while too few have been timed.
+     */
+    private long hedgeDelayNanos() {
+        if (!enabled || attempts.count() < MIN_SAMPLES) {
+            return Long.MAX_VALUE;
+        }
+        long now = System.nanoTime();
+        if (now - delayRefreshedAt >= REFRESH_NANOS) {
+            long percentile = 0;
+            for (ValueAtPercentile value : attempts.takeSnapshot().percentileValues()) {
+                percentile = (long) value.value(TimeUnit.NANOSECONDS);
+            }
+            delayNanos = Math.max(minDelayNanos, percentile);
+            delayRefreshedAt = now;
+        }
+        return delayNanos;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        threads.shutdownNow();
+    }
+
+    private record Answer<T>(T value, boolean hedge) {
+    }
+}
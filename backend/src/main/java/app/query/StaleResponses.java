@@ -0,0 +1,146 @@
+package app.query;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import app.product.Product;
+import app.product.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Answers HTS searches while the upstream cannot, from the last successful
+ * response to the same search or else from the products saved by the ingest.
+ * <p>
+ * Every article served this way carries {@link #STALE_AS_OF}, the time its
+ * data was fetched from the upstream. Searches that were answered from here
+ * are remembered, so they can be refreshed once the upstream is back.
+ */
+@Component
+public class StaleResponses {
+
+    /** Article key marking data that may be out of date, as an ISO-8601 instant. */
+    public static final String STALE_AS_OF = "staleAsOf";
+
+    private static final int MAX_ENTRIES = 2048;
+
+    private final ProductRepository productRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Response> lastKnownGood = new ConcurrentHashMap<>();
+    private final Set<String> servedStale = ConcurrentHashMap.newKeySet();
+
+    public StaleResponses(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Keeps a successful upstream response, replacing the previous one for the
+     * same search.
+     */
+    public void remember(String keyword, List<Map<String, Object>> articles) {
+        if (lastKnownGood.size() >= MAX_ENTRIES && !lastKnownGood.containsKey(keyword)) {
+            lastKnownGood.clear();
+        }
+        lastKnownGood.put(keyword, new Response(articles, Instant.now()));
+        servedStale.remove(keyword);
+    }
+
+    /**
+     * Answers a search without the upstream.
+     *
+     * @param keyword The word, phrase or HTS code searched for
+     * @return Copies of the articles marked with {@link #STALE_AS_OF}, or an
+     *         empty list if nothing is known about the search
+     */
+    public List<Map<String, Object>> serve(String keyword) {
+        Response response = lastKnownGood.get(keyword);
+        String source = "memory";
+        List<Map<String, Object>> articles;
+        if (response != null) {
+            articles = mark(response.articles(), response.fetchedAt());
+        } else {
+            source = "database";
+            articles = fromProducts(keyword);
+        }
+        servedStale.add(keyword);
+        Counter.builder("hts.upstream.stale.responses")
+                .description("HTS searches answered without the upstream")
+                .tag("source", articles.isEmpty() ? "none" : source)
+                .register(meterRegistry)
+                .increment();
+        return articles;
+    }
+
+    /**
+     * Takes searches that were answered stale since they were last refreshed.
+     *
+     * @param max Most searches to take
+     * @return The searches, no longer remembered as stale
+     */
+    public List<String> takeStale(int max) {
+        List<String> taken = new ArrayList<>();
+        Iterator<String> keywords = servedStale.iterator();
+        while (keywords.hasNext() && taken.size() < max) {
+            taken.add(keywords.next());
+            keywords.remove();
+        }
+        return taken;
+    }
+
+    private static List<Map<String, Object>> mark(List<Map<String, Object>> articles, Instant fetchedAt) {
+        String staleAsOf = fetchedAt.toString();
+        return articles.stream()
+                .map(article -> {
+                    Map<String, Object> marked = new HashMap<>(article);
+                    marked.put(STALE_AS_OF, staleAsOf);
+                    return marked;
+                })
+                .toList();
+    }
+
+    /**
+     * Latest saved product per HTS code for an ingest keyword or under a code.
+     */
+    private List<Map<String, Object>> fromProducts(String keyword) {
+        List<Product> products = productRepository.findByCategoryIgnoreCaseOrHtsCodeStartingWith(keyword, keyword)
+                .orElse(List.of());
+        Map<String, Product> latest = new LinkedHashMap<>();
+        products.stream()
+                .sorted(Comparator.comparing(Product::getHtsCode))
+                .forEach(product -> latest.merge(product.getHtsCode(), product,
+                        (a, b) -> a.getFetchDate().isAfter(b.getFetchDate()) ? a : b));
+
+        List<Map<String, Object>> articles = new ArrayList<>();
+        for (Product product : latest.values()) {
+            Map<String, Object> article = new HashMap<>();
+            article.put("htsno", product.getHtsCode());
+            article.put("description", product.getDescription());
+            article.put("general", product.getGeneral());
+            article.put("special", product.getSpecial());
+            article.put(STALE_AS_OF, startOf(product.getFetchDate()));
+            articles.add(article);
+        }
+        return articles;
+    }
+
+    private static String startOf(LocalDate date) {
+        return date.atStartOfDay().toInstant(ZoneOffset.UTC).toString();
+    }
+
+    private record Response(List<Map<String, Object>> articles, Instant fetchedAt) {
+    }
+}
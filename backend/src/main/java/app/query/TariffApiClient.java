@@ -1,30 +1,133 @@
 package app.query;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import app.config.Deadline;
+import app.config.SamplingTurboFilter;
+import app.config.ServerTiming;
+import app.exception.DeadlineExceededException;
+import app.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 public class TariffApiClient {
-    private final RestTemplate restTemplate = new RestTemplate();
-    private static final String HTS_SEARCH_API = "https://hts.usitc.gov/reststop/search";
+    private static final Logger logger = LoggerFactory.getLogger(TariffApiClient.class);
+    private static final StackWalker STACK_WALKER = StackWalker
+            .getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private static final int REVALIDATE_BATCH = 50;
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final String searchApi;
+    private final MeterRegistry meterRegistry;
+    private final UpstreamScheduler scheduler;
+    private final CircuitBreaker circuitBreaker;
+    private final RequestHedger hedger;
+    private final StaleResponses staleResponses;
+    private final Executor revalidationExecutor;
+
+    /**
+     * @param baseUrl              Base URL of the HTS REST API; point it at a
+     *                             stub to run load tests without calling the
+     *                             real USITC service
+     * @param timeout              Connect timeout, and longest time a call
+     *                             may take; less if the caller's deadline is
+     *                             sooner
+     * @param meterRegistry        Registry for the upstream call timings
+     * @param objectMapper         Parses the API's responses
+     * @param scheduler            Budget every upstream call is made within
+     * @param circuitBreaker       Stops calls while the upstream is down
+     * @param hedger               Bounds calls by the caller's deadline and
+     *                             hedges slow ones
+     * @param staleResponses       Answers searches the upstream cannot
+     * @param revalidationExecutor Runs the refreshes of stale searches
+     */
+    public TariffApiClient(@Value("${app.hts.base-url:https://hts.usitc.gov}") String baseUrl,
+            @Value("${app.hts.timeout:10s}") Duration timeout,
+            MeterRegistry meterRegistry, ObjectMapper objectMapper, UpstreamScheduler scheduler,
+            CircuitBreaker circuitBreaker, RequestHedger hedger, StaleResponses staleResponses,
+            @Qualifier("applicationTaskExecutor") Executor revalidationExecutor) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.searchApi = baseUrl + "/reststop/search";
+        this.meterRegistry = meterRegistry;
+        this.scheduler = scheduler;
+        this.circuitBreaker = circuitBreaker;
+        this.hedger = hedger;
+        this.staleResponses = staleResponses;
+        this.revalidationExecutor = revalidationExecutor;
+    }
 
     /**
      * Searches the US HTS REST API for tariff articles containing the given
      * keyword.
      * Returns up to the first 100 matching articles in JSON format.
-     * 
+     * Every call is timed as {@code hts.upstream.requests}, tagged with the
+     * calling method and whether it returned results, none, failed, was shed
+     * because the {@link UpstreamScheduler} had no capacity for it, was
+     * refused because the {@link CircuitBreaker} is open, or ran out of time
+     * under the caller's {@link Deadline}. The time includes waiting for the
+     * scheduler, and for the hedge if the {@link RequestHedger} sent one.
+     * <p>
+     * Each attempt the hedger makes is counted by the circuit breaker on its
+     * own, so attempts that hang until the deadline open the circuit like
+     * any other failure.
+     * <p>
+     * When the upstream cannot answer a user's search, it is answered by
+     * {@link StaleResponses}, with every article marked
+     * {@link StaleResponses#STALE_AS_OF}. Background work, such as the
+     * ingest, gets an exception instead, so it neither saves stale data nor
+     * mistakes a failed search for one without results.
+     *
      * @param keyword The word or phrase to search for
      * @return List of matching tariff articles (as Maps), or empty list if none
      *         found
+     * @throws UpstreamUnavailableException in the background lane, if the
+     *                                      upstream did not answer
      */
     public List<Map<String, Object>> searchTariffArticles(String keyword) {
-        String url = HTS_SEARCH_API + "?keyword=" + keyword;
+        String url = searchApi + "?keyword=" + URLEncoder.encode(keyword, StandardCharsets.UTF_8);
+        String caller = caller();
+        String outcome = "error";
+        long start = System.nanoTime();
         try {
-            Object response = restTemplate.getForObject(url, Object.class);
-            // System.out.println("Raw API response: " + response);
+            Object response = hedger.call(() -> circuitBreaker.call(() -> scheduler.call(() -> get(url))));
             List<Map<String, Object>> rawResults = null;
             if (response instanceof List<?> resultsList) {
                 // noinspection unchecked
@@ -36,12 +139,142 @@ public class TariffApiClient {
                     rawResults = (List<Map<String, Object>>) resultsList;
                 }
             }
-            if (rawResults == null)
+            if (rawResults == null || rawResults.isEmpty()) {
+                outcome = "empty";
+                staleResponses.remember(keyword, List.of());
                 return List.of();
+            }
+            outcome = "success";
+            staleResponses.remember(keyword, rawResults);
             return rawResults;
+        } catch (UpstreamUnavailableException e) {
+            if (e instanceof DeadlineExceededException) {
+                outcome = "deadline";
+            } else {
+                outcome = circuitBreaker.state() == CircuitBreaker.State.CLOSED ? "shed" : "open";
+            }
+            logger.warn(SamplingTurboFilter.SAMPLED, "HTS search for '{}' from {} not made: {}", keyword, caller,
+                    e.getMessage());
+            return fallback(keyword, e);
         } catch (Exception e) {
-            e.printStackTrace();
-            return List.of();
+            logger.warn(SamplingTurboFilter.SAMPLED, "HTS search for '{}' from {} failed", keyword, caller, e);
+            return fallback(keyword, new UpstreamUnavailableException("HTS search for '" + keyword + "' failed", e));
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            ServerTiming.record(ServerTiming.Phase.UPSTREAM, elapsed);
+            Timer.builder("hts.upstream.requests")
+                    .description("Calls to the HTS search API")
+                    .tag("caller", caller)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Makes one GET request, aborted when the calling thread is interrupted
+     * and timed out no later than the current {@link Deadline}.
+     *
+     * @return The parsed JSON body, or null if it was empty
+     * @throws HttpClientErrorException     on a 4xx response
+     * @throws HttpServerErrorException     on a 5xx response
+     * @throws ResourceAccessException      if no answer came in time, or the
+     *                                      connection failed
+     * @throws UpstreamUnavailableException if the answer was no longer wanted
+     */
+    private Object get(String url) {
+        Deadline deadline = Deadline.current();
+        long remaining = deadline.remainingNanos();
+        if (remaining == 0) {
+            throw new DeadlineExceededException("Deadline passed before the HTS API was called");
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofNanos(Math.min(timeout.toNanos(), remaining)))
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .GET()
+                .build();
+        CompletableFuture<HttpResponse<byte[]>> pending = httpClient.sendAsync(request,
+                HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> response;
+        try {
+            response = pending.get();
+        } catch (InterruptedException e) {
+            // Cancelling aborts the exchange and closes its connection
+            pending.cancel(true);
+            Thread.currentThread().interrupt();
+            if (deadline.isExpired()) {
+                // The upstream did not answer in time, which the circuit breaker must count
+                throw new ResourceAccessException("No answer from " + url + " within the deadline");
+            }
+            throw new UpstreamUnavailableException("Call to " + url + " no longer needed");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new ResourceAccessException("GET " + url + " failed: " + cause.getMessage(),
+                    cause instanceof IOException io ? io : new IOException(cause));
+        }
+
+        int status = response.statusCode();
+        byte[] body = response.body();
+        if (status >= 400) {
+            HttpHeaders headers = new HttpHeaders();
+            response.headers().map().forEach(headers::addAll);
+            if (status < 500) {
+                throw HttpClientErrorException.create(HttpStatusCode.valueOf(status), "", headers, body,
+                        StandardCharsets.UTF_8);
+            }
+            throw HttpServerErrorException.create(HttpStatusCode.valueOf(status), "", headers, body,
+                    StandardCharsets.UTF_8);
+        }
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, Object.class);
+        } catch (IOException e) {
+            throw new RestClientException("Unreadable response from " + url, e);
         }
     }
-}
\ No newline at end of file
+
+    private List<Map<String, Object>> fallback(String keyword, UpstreamUnavailableException failure) {
+        // Stale data must not be saved as if it had just been fetched, and the
+        // ingest has to see the failure to retry the keyword later
+        if (UpstreamScheduler.currentLane() == UpstreamScheduler.Lane.BACKGROUND) {
+            throw failure;
+        }
+        return staleResponses.serve(keyword);
+    }
+
+    /**
+     * Once the circuit has closed, searches again that were answered stale, in
+     * the background lane, so their next answer is fresh.
+     */
+    @Scheduled(fixedDelayString = "${app.hts.revalidate-ms:5000}")
+    public void revalidateStale() {
+        if (circuitBreaker.state() != CircuitBreaker.State.CLOSED) {
+            return;
+        }
+        for (String keyword : staleResponses.takeStale(REVALIDATE_BATCH)) {
+            revalidationExecutor.execute(() -> {
+                try {
+                    UpstreamScheduler.inBackground(() -> searchTariffArticles(keyword));
+                } catch (UpstreamUnavailableException e) {
+                    // Already logged; the next stale answer queues it again
+                }
+            });
+        }
+    }
+
+    /**
+     * Names the method that called into this client, e.g.
+     * "TariffService.findDescription", so upstream latency and errors can be
+     * told apart per call site without every caller having to pass a label.
+     */
+    private static String caller() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getDeclaringClass() != TariffApiClient.class)
+                .findFirst()
+                .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName())
+                .orElse("unknown"));
+    }
+}
@@ -1,20 +1,75 @@
 package app.query;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import app.config.Deadline;
+import app.config.ServerTiming;
+import app.config.ServerTiming.Phase;
 import app.exception.TariffNotFoundException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class TariffService {
+
+    /**
+     * Summary key set to true when the description chain is incomplete
+     * because the request's deadline cut parent lookups off.
+     */
+    public static final String PARTIAL = "partial";
+
     private final TariffApiClient apiClient;
+    private final Executor lookupExecutor;
 
-    public TariffService(TariffApiClient apiClient) {
+    /**
+     * Parent code lookups run on Spring Boot's application task executor: a
+     * bounded platform thread pool by default, or one virtual thread per task
+     * when spring.threads.virtual.enabled is set on Java 21+.
+     */
+    public TariffService(TariffApiClient apiClient,
+            @Qualifier("applicationTaskExecutor") Executor lookupExecutor) {
         this.apiClient = apiClient;
+        this.lookupExecutor = lookupExecutor;
+    }
+
+    /**
+     * Receives the results of a streamed search as they become available.
+     * Matches are reported on the thread that called
+     * {@link TariffService#streamTariffSummary}, resolved summaries on the
+     * lookup threads; callbacks are never made concurrently.
+     */
+    public interface SearchListener {
+
+        /**
+         * Called once per matching code straight after the first upstream
+         * search, with whatever part of the description chain is already known.
+         */
+        void onMatch(Map<String, Object> summary);
+
+        /**
+         * Called once per matching code when all of its parent descriptions
+         * have been looked up, with the complete description chain, or when
+         * the deadline has cut the remaining lookups off, flagged
+         * {@link TariffService#PARTIAL}.
+         */
+        void onResolved(Map<String, Object> summary);
     }
 
     /**
@@ -27,7 +82,13 @@ public class TariffService {
      * @return List of next-level HTS code articles
      */
     public List<Map<String, Object>> getNextLevelHtsCodes(String query) {
-        List<Map<String, Object>> rawResults = apiClient.searchTariffArticles(query);
+        List<Map<String, Object>> searchResults = apiClient.searchTariffArticles(query);
+        try (ServerTiming.Span compute = ServerTiming.start(Phase.COMPUTE)) {
+            return filterNextLevel(query, searchResults);
+        }
+    }
+
+    private List<Map<String, Object>> filterNextLevel(String query, List<Map<String, Object>> rawResults) {
         // If query is a keyword (not a code), return only codes with no dots (main
         // categories)
         if (!query.matches("\\d+(\\.\\d+)*")) {
@@ -77,70 +138,205 @@ public class TariffService {
      * @return List of simplified tariff articles
      */
     public List<Map<String, Object>> extractTariffSummary(String keyword) {
-        List<Map<String, Object>> rawResults = getNextLevelHtsCodes(keyword);
-        // Build a map from htsno to description for fast lookup, including all parent
-        // codes
-        java.util.Map<String, String> codeToDescription = new java.util.HashMap<>();
-        java.util.Set<String> searchedCodes = new java.util.HashSet<>();
-        // Add all codes from the current search
-        for (Map<String, Object> item : apiClient.searchTariffArticles(keyword)) {
+        List<Map<String, Object>> searchResults = apiClient.searchTariffArticles(keyword);
+        List<Map<String, Object>> rawResults;
+        Map<String, String> codeToDescription;
+        Set<String> searchedCodes = new LinkedHashSet<>();
+        try (ServerTiming.Span compute = ServerTiming.start(Phase.COMPUTE)) {
+            rawResults = filterNextLevel(keyword, searchResults);
+            // Build a map from htsno to description for fast lookup, including all parent
+            // codes
+            codeToDescription = describe(searchResults);
+            // For each result, walk up the hierarchy and collect missing parent codes
+            for (Map<String, Object> item : rawResults) {
+                searchedCodes.addAll(missingParents(item, codeToDescription));
+            }
+        }
+        // Fetch the missing parent descriptions in parallel
+        Set<String> unresolved = new LinkedHashSet<>();
+        try (ServerTiming.Span upstream = ServerTiming.start(Phase.UPSTREAM)) {
+            codeToDescription.putAll(fetchDescriptions(searchedCodes, unresolved));
+        }
+
+        try (ServerTiming.Span compute = ServerTiming.start(Phase.COMPUTE)) {
+            List<Map<String, Object>> filteredList = rawResults.stream()
+                    .map(item -> markPartial(summarize(item, codeToDescription),
+                            missingParents(item, codeToDescription), unresolved))
+                    .toList();
+            return sortByKeywordPosition(filteredList, keyword);
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #searchAndSortTariffs}. Every matching code is
+     * reported after a single upstream search, before this method returns and
+     * before any parent description is looked up; each code is then reported
+     * again as soon as its own parents have been resolved, in whatever order the
+     * lookups finish. No thread is blocked waiting for the lookups.
+     * 
+     * @param keyword  The word or phrase to search for
+     * @param listener Receives the matches and resolved summaries
+     * @return Completes with the fully resolved results in final display order
+     *         once every lookup has finished, or with partial results once
+     *         the current {@link Deadline} has passed
+     */
+    public CompletableFuture<List<Map<String, Object>>> streamTariffSummary(String keyword,
+            SearchListener listener) {
+        List<Map<String, Object>> searchResults = apiClient.searchTariffArticles(keyword);
+        List<Map<String, Object>> rawResults = filterNextLevel(keyword, searchResults);
+        Map<String, String> codeToDescription = new ConcurrentHashMap<>(describe(searchResults));
+
+        // Index of each matching code in rawResults -> parent codes it is still
+        // waiting for; guarded by itself once lookups have started
+        Map<Integer, Set<String>> waiting = new LinkedHashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (int i = 0; i < rawResults.size(); i++) {
+            Map<String, Object> item = rawResults.get(i);
+            listener.onMatch(summarize(item, codeToDescription));
+            Set<String> parents = missingParents(item, codeToDescription);
+            if (parents.isEmpty()) {
+                listener.onResolved(summarize(item, codeToDescription));
+            } else {
+                waiting.put(i, parents);
+                missing.addAll(parents);
+            }
+        }
+
+        Deadline deadline = Deadline.current();
+        Set<String> unresolved = ConcurrentHashMap.newKeySet();
+        Map<String, CompletableFuture<String>> lookups = new LinkedHashMap<>();
+        List<CompletableFuture<String>> resolutions = new ArrayList<>();
+        for (String parentCode : missing) {
+            CompletableFuture<String> lookup = CompletableFuture.supplyAsync(
+                    () -> deadline.call(() -> findDescription(parentCode)), lookupExecutor);
+            lookups.put(parentCode, lookup);
+            resolutions.add(lookup.whenComplete((description, error) -> {
+                if (description != null) {
+                    codeToDescription.put(parentCode, description);
+                }
+                if (error != null) {
+                    unresolved.add(parentCode);
+                }
+                synchronized (waiting) {
+                    Iterator<Map.Entry<Integer, Set<String>>> pending = waiting.entrySet().iterator();
+                    while (pending.hasNext()) {
+                        Map.Entry<Integer, Set<String>> entry = pending.next();
+                        if (entry.getValue().remove(parentCode) && entry.getValue().isEmpty()) {
+                            pending.remove();
+                            Map<String, Object> item = rawResults.get(entry.getKey());
+                            listener.onResolved(markPartial(summarize(item, codeToDescription),
+                                    missingParents(item, codeToDescription), unresolved));
+                        }
+                    }
+                }
+            }));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(resolutions.toArray(CompletableFuture[]::new));
+        if (deadline.isBounded()) {
+            all = all.completeOnTimeout(null, deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        }
+        // A failed lookup only leaves its description out of the chains; one
+        // still running at the deadline is cancelled, which resolves its codes
+        return all.handleAsync((ignored, error) -> {
+            lookups.values().forEach(lookup -> lookup.cancel(true));
+            return sortByGeneralDescending(sortByKeywordPosition(
+                    rawResults.stream()
+                            .map(item -> markPartial(summarize(item, codeToDescription),
+                                    missingParents(item, codeToDescription), unresolved))
+                            .toList(),
+                    keyword));
+        }, lookupExecutor);
+    }
+
+    /**
+     * Flags a summary as {@link #PARTIAL} if parents missing from its
+     * description chain could not be looked up in time.
+     */
+    private static Map<String, Object> markPartial(Map<String, Object> summary, Set<String> missingParents,
+            Set<String> unresolved) {
+        if (!Collections.disjoint(missingParents, unresolved)) {
+            summary.put(PARTIAL, true);
+        }
+        return summary;
+    }
+
+    /**
+     * Maps each code in a set of raw articles to its description.
+     */
+    private static Map<String, String> describe(List<Map<String, Object>> articles) {
+        Map<String, String> codeToDescription = new java.util.HashMap<>();
+        for (Map<String, Object> item : articles) {
             Object htsno = item.get("htsno");
             Object desc = item.get("description");
             if (htsno != null && desc != null) {
                 codeToDescription.put(htsno.toString(), desc.toString());
             }
         }
-        // For each result, walk up the hierarchy and fetch missing parent descriptions
-        for (Map<String, Object> item : rawResults) {
-            String code = item.get("htsno") != null ? item.get("htsno").toString() : null;
-            if (code == null)
-                continue;
+        return codeToDescription;
+    }
+
+    /**
+     * Returns the parent codes of an article (e.g. "1704" and "1704.90" for
+     * "1704.90.35") whose descriptions are not known yet.
+     */
+    private static Set<String> missingParents(Map<String, Object> item, Map<String, String> codeToDescription) {
+        Set<String> missing = new LinkedHashSet<>();
+        String code = item.get("htsno") != null ? item.get("htsno").toString() : null;
+        if (code == null)
+            return missing;
+        String[] parts = code.split("\\.");
+        StringBuilder parent = new StringBuilder();
+        for (int i = 0; i < parts.length - 1; i++) {
+            if (i > 0)
+                parent.append(".");
+            parent.append(parts[i]);
+            String parentCode = parent.toString();
+            if (!codeToDescription.containsKey(parentCode)) {
+                missing.add(parentCode);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Builds the summary sent to the client for one article, with the
+     * description chain from the top category down to the article itself.
+     */
+    private static Map<String, Object> summarize(Map<String, Object> item, Map<String, String> codeToDescription) {
+        Map<String, Object> filtered = new java.util.HashMap<>();
+        String code = item.get("htsno") != null ? item.get("htsno").toString() : null;
+        filtered.put("htsno", code);
+        filtered.put("units", item.get("units"));
+        // filtered.put("description", item.get("description"));
+        filtered.put("general", item.get("general"));
+        filtered.put("special", item.get("special"));
+        if (item.containsKey(StaleResponses.STALE_AS_OF)) {
+            filtered.put(StaleResponses.STALE_AS_OF, item.get(StaleResponses.STALE_AS_OF));
+        }
+        // Build description chain from top category to this code
+        if (code != null) {
+            java.util.List<String> chain = new java.util.ArrayList<>();
             String[] parts = code.split("\\.");
             StringBuilder parent = new StringBuilder();
-            for (int i = 0; i < parts.length - 1; i++) {
+            for (int i = 0; i < parts.length; i++) {
                 if (i > 0)
                     parent.append(".");
                 parent.append(parts[i]);
                 String parentCode = parent.toString();
-                if (!codeToDescription.containsKey(parentCode) && searchedCodes.add(parentCode)) {
-                    // Search for this parent code and add its description if found
-                    for (Map<String, Object> parentItem : apiClient.searchTariffArticles(parentCode)) {
-                        Object htsno = parentItem.get("htsno");
-                        Object desc = parentItem.get("description");
-                        if (htsno != null && desc != null && htsno.toString().equals(parentCode)) {
-                            codeToDescription.put(parentCode, desc.toString());
-                        }
-                    }
+                String desc = codeToDescription.get(parentCode);
+                if (desc != null && !desc.isEmpty()) {
+                    chain.add(desc);
                 }
             }
+            filtered.put("descriptionChain", chain);
         }
-        List<Map<String, Object>> filteredList = rawResults.stream().map(item -> {
-            Map<String, Object> filtered = new java.util.HashMap<>();
-            String code = item.get("htsno") != null ? item.get("htsno").toString() : null;
-            filtered.put("htsno", code);
-            filtered.put("units", item.get("units"));
-            // filtered.put("description", item.get("description"));
-            filtered.put("general", item.get("general"));
-            filtered.put("special", item.get("special"));
-            // Build description chain from top category to this code
-            if (code != null) {
-                java.util.List<String> chain = new java.util.ArrayList<>();
-                String[] parts = code.split("\\.");
-                StringBuilder parent = new StringBuilder();
-                for (int i = 0; i < parts.length; i++) {
-                    if (i > 0)
-                        parent.append(".");
-                    parent.append(parts[i]);
-                    String parentCode = parent.toString();
-                    String desc = codeToDescription.get(parentCode);
-                    if (desc != null && !desc.isEmpty()) {
-                        chain.add(desc);
-                    }
-                }
-                filtered.put("descriptionChain", chain);
-            }
-            return filtered;
-        }).toList();
+        return filtered;
+    }
+
+    // Package-private for the ranking benchmark
+    static List<Map<String, Object>> sortByKeywordPosition(List<Map<String, Object>> filteredList,
+            String keyword) {
         // Sort by 'general' tariff value descending
         String keywordLower = keyword == null ? "" : keyword.toLowerCase();
         List<Map<String, Object>> sorted = filteredList.stream()
@@ -181,6 +377,76 @@ public class TariffService {
         return sorted;
     }
 
+    /**
+     * Looks up the descriptions of several HTS codes concurrently, one upstream
+     * search per code, under the current {@link Deadline}. All lookups are
+     * scoped to this call: it waits for every one of them and, if any fails,
+     * cancels the rest before rethrowing. If the deadline passes first, the
+     * lookups still running are cancelled and left out.
+     * 
+     * @param codes      HTS codes to look up
+     * @param unresolved Receives the codes whose lookups were cut off
+     * @return Map of code to description for the codes that were found
+     */
+    private Map<String, String> fetchDescriptions(Set<String> codes, Set<String> unresolved) {
+        Deadline deadline = Deadline.current();
+        Map<String, CompletableFuture<String>> lookups = new LinkedHashMap<>();
+        for (String code : codes) {
+            lookups.put(code, CompletableFuture.supplyAsync(() -> deadline.call(() -> findDescription(code)),
+                    lookupExecutor));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(lookups.values().toArray(CompletableFuture[]::new));
+        try {
+            if (deadline.isBounded()) {
+                all.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+            } else {
+                all.join();
+            }
+        } catch (CompletionException e) {
+            lookups.values().forEach(lookup -> lookup.cancel(true));
+            throw e;
+        } catch (ExecutionException e) {
+            lookups.values().forEach(lookup -> lookup.cancel(true));
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lookups.values().forEach(lookup -> lookup.cancel(true));
+            throw new CompletionException(e);
+        } catch (TimeoutException e) {
+            // Out of time: use what has been found
+        }
+
+        Map<String, String> descriptions = new java.util.HashMap<>();
+        lookups.forEach((code, lookup) -> {
+            if (!lookup.isDone() || lookup.isCompletedExceptionally()) {
+                lookup.cancel(true);
+                unresolved.add(code);
+                return;
+            }
+            String description = lookup.join();
+            if (description != null) {
+                descriptions.put(code, description);
+            }
+        });
+        return descriptions;
+    }
+
+    /**
+     * Searches the upstream API for an exact HTS code and returns its
+     * description, or null if it is not found.
+     */
+    private String findDescription(String code) {
+        for (Map<String, Object> item : apiClient.searchTariffArticles(code)) {
+            Object htsno = item.get("htsno");
+            Object desc = item.get("description");
+            if (htsno != null && desc != null && htsno.toString().equals(code)) {
+                return desc.toString();
+            }
+        }
+        return null;
+    }
+
     /**
      * Given a tariff article (as a Map), returns a map of country names to their
      * special tariff rate.
@@ -224,11 +490,21 @@ public class TariffService {
         if (general != null && !general.isEmpty()) {
             result.put("General rate", general);
         }
+        // Served while the upstream was unavailable
+        if (item.get(StaleResponses.STALE_AS_OF) != null) {
+            result.put("Stale as of", item.get(StaleResponses.STALE_AS_OF));
+        }
         return result;
     }
 
     public List<Map<String, Object>> searchAndSortTariffs(String keyword) {
-        List<Map<String, Object>> results = extractTariffSummary(keyword);
+        List<Map<String, Object>> summary = extractTariffSummary(keyword);
+        try (ServerTiming.Span compute = ServerTiming.start(Phase.COMPUTE)) {
+            return sortByGeneralDescending(summary);
+        }
+    }
+
+    private static List<Map<String, Object>> sortByGeneralDescending(List<Map<String, Object>> results) {
         return results.stream()
                 .sorted((a, b) -> {
                     double valA = TariffUtils.parseTariffValue(a.get("general"));
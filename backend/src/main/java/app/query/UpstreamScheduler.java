@@ -0,0 +1,287 @@
+package app.query;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import app.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Admits calls to the HTS API within one budget shared by the whole
+ * instance: at most a concurrency limit of calls in flight, started at no
+ * more than {@code app.upstream.rate-per-second}.
+ * <p>
+ * Calls wait in one of two lanes. {@link Lane#INTERACTIVE} calls, made for
+ * user requests, always go ahead of {@link Lane#BACKGROUND} calls, made by the
+ * ingest, and background calls only ever take {@code background-share} of the
+ * limit, so a running ingest leaves room for users. Calls are started in
+ * arrival order within a lane. A call that cannot start within
+ * {@code app.upstream.queue-timeout} fails with an
+ * {@link UpstreamUnavailableException}.
+ * <p>
+ * The concurrency limit adapts to the upstream: it grows by one for every
+ * limit's worth of calls that succeed within {@code slow-threshold}, and is
+ * cut by 30% when a call fails or is slower, at most once per
+ * {@code backoff-interval}. The rate budget shrinks and grows with it.
+ */
+@Component
+public class UpstreamScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamScheduler.class);
+
+    private static final double BACKOFF_FACTOR = 0.7;
+
+    /**
+     * Which queue a call waits in.
+     */
+    public enum Lane {
+        INTERACTIVE, BACKGROUND
+    }
+
+    private static final ThreadLocal<Lane> LANE = ThreadLocal.withInitial(() -> Lane.INTERACTIVE);
+
+    private final MeterRegistry meterRegistry;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final double ratePerSecond;
+    private final double backgroundShare;
+    private final long slowThresholdNanos;
+    private final long queueTimeoutNanos;
+    private final long backoffIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Lane, Deque<Object>> queues = new EnumMap<>(Lane.class);
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private long lastBackoff = System.nanoTime();
+
+    public UpstreamScheduler(MeterRegistry meterRegistry,
+            @Value("${app.upstream.min-concurrency:1}") int minConcurrency,
+            @Value("${app.upstream.max-concurrency:8}") int maxConcurrency,
+            @Value("${app.upstream.rate-per-second:20}") double ratePerSecond,
+            @Value("${app.upstream.background-share:0.5}") double backgroundShare,
+            @Value("${app.upstream.slow-threshold:2s}") Duration slowThreshold,
+            @Value("${app.upstream.queue-timeout:10s}") Duration queueTimeout,
+            @Value("${app.upstream.backoff-interval:1s}") Duration backoffInterval) {
+        this.meterRegistry = meterRegistry;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.ratePerSecond = ratePerSecond;
+        this.backgroundShare = backgroundShare;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.backoffIntervalNanos = backoffInterval.toNanos();
+        this.limit = maxConcurrency;
+        this.tokens = Math.max(1, ratePerSecond);
+        for (Lane lane : Lane.values()) {
+            queues.put(lane, new ArrayDeque<>());
+        }
+
+        Gauge.builder("hts.upstream.concurrency.limit", this, UpstreamScheduler::limit)
+                .description("Calls to the HTS API allowed in flight at once")
+                .register(meterRegistry);
+        Gauge.builder("hts.upstream.in.flight", this, UpstreamScheduler::inFlight)
+                .description("Calls to the HTS API in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs work whose upstream calls should wait behind those of user
+     * requests, e.g. the ingest. Calls made on other threads are not affected.
+     *
+     * @param work Work that calls the HTS API on the current thread
+     * @return The work's result
+     */
+    public static <T> T inBackground(Supplier<T> work) {
+        return inLane(Lane.BACKGROUND, work);
+    }
+
+    /**
+     * Runs work in the given lane, e.g. to carry a caller's lane over to
+     * another thread.
+     */
+    static <T> T inLane(Lane lane, Supplier<T> work) {
+        Lane previous = LANE.get();
+        LANE.set(lane);
+        try {
+            return work.get();
+        } finally {
+            LANE.set(previous);
+        }
+    }
+
+    /**
+     * @return The lane calls made on the current thread wait in
+     */
+    public static Lane currentLane() {
+        return LANE.get();
+    }
+
+    /**
+     * Makes an upstream call once the budget allows it, in the lane of the
+     * current thread.
+     *
+     * @param call The upstream call; an exception from it, other than a 4xx
+     *             response or an {@link UpstreamUnavailableException},
+     *             counts as a failure
+     * @return The call's result
+     * @throws UpstreamUnavailableException if the call could not start within
+     *                                      the queue timeout
+     */
+    public <T> T call(Supplier<T> call) {
+        Lane lane = LANE.get();
+        acquire(lane);
+        long start = System.nanoTime();
+        boolean congested = true;
+        try {
+            T result = call.get();
+            congested = false;
+            return result;
+        } catch (HttpClientErrorException e) {
+            // The request was wrong, not the upstream overloaded, unless it says so
+            congested = e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+            throw e;
+        } catch (UpstreamUnavailableException e) {
+            // The caller stopped waiting, e.g. because the hedge answered first
+            congested = false;
+            throw e;
+        } finally {
+            release(congested || System.nanoTime() - start > slowThresholdNanos);
+        }
+    }
+
+    private void acquire(Lane lane) {
+        long queuedAt = System.nanoTime();
+        long deadline = queuedAt + queueTimeoutNanos;
+        Object ticket = new Object();
+        lock.lock();
+        try {
+            Deque<Object> queue = queues.get(lane);
+            queue.addLast(ticket);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+                    long wait = deadline - now;
+                    if (isNext(lane, ticket) && inFlight < allowed(lane)) {
+                        if (tokens >= 1) {
+                            tokens--;
+                            inFlight++;
+                            queue.removeFirst();
+                            break;
+                        }
+                        wait = Math.min(wait, (long) Math.ceil((1 - tokens) / tokensPerNano()));
+                    }
+                    if (deadline - now <= 0) {
+                        throw new UpstreamUnavailableException("No HTS API capacity within "
+                                + Duration.ofNanos(queueTimeoutNanos).toMillis() + " ms");
+                    }
+                    changed.awaitNanos(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UpstreamUnavailableException("Interrupted while waiting for HTS API capacity");
+            } finally {
+                // Whoever is next in line may be able to start now
+                queue.remove(ticket);
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Timer.builder("hts.upstream.queue.wait")
+                .description("Time calls to the HTS API waited for the upstream budget")
+                .tag("lane", lane.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean isNext(Lane lane, Object ticket) {
+        return queues.get(lane).peekFirst() == ticket
+                && (lane == Lane.INTERACTIVE || queues.get(Lane.INTERACTIVE).isEmpty());
+    }
+
+    private int allowed(Lane lane) {
+        double share = lane == Lane.INTERACTIVE ? limit : limit * backgroundShare;
+        return Math.max(1, (int) share);
+    }
+
+    private double tokensPerNano() {
+        return ratePerSecond * (limit / maxConcurrency) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(Math.max(1, ratePerSecond), tokens + (now - refilledAt) * tokensPerNano());
+        refilledAt = now;
+    }
+
+    private void release(boolean congested) {
+        lock.lock();
+        try {
+            inFlight--;
+            long now = System.nanoTime();
+            // Tokens so far accrued at the old rate
+            refill(now);
+            if (!congested) {
+                limit = Math.min(maxConcurrency, limit + 1 / limit);
+            } else if (now - lastBackoff >= backoffIntervalNanos && limit > minConcurrency) {
+                limit = Math.max(minConcurrency, limit * BACKOFF_FACTOR);
+                lastBackoff = now;
+                logger.info("HTS API failing or slow, concurrency limit lowered to {}", (int) limit);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    double limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            return queues.values().stream().mapToInt(Deque::size).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
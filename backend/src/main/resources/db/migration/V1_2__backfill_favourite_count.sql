@@ -0,0 +1,8 @@
+-- Counts existing favourites. Until now the counters were either missing or,
+-- where ddl-auto=update added the column, left at 0 for every older link.
+UPDATE favourites f
+SET favourite_count = (
+    SELECT COUNT(*)
+    FROM account_favourites af
+    WHERE af.hts_code = f.hts_code
+);
@@ -0,0 +1,44 @@
+-- Schema as Hibernate created it with ddl-auto=update, before migrations.
+-- Databases created that way are baselined at this version and start at V2.
+-- The product table is created by vendor/*/V0_1, as its description column
+-- has a different type on each vendor.
+
+CREATE TABLE account (
+    userid INT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255),
+    password VARCHAR(255),
+    email VARCHAR(255),
+    role VARCHAR(255),
+    PRIMARY KEY (userid)
+);
+
+CREATE TABLE query (
+    queryid BIGINT NOT NULL AUTO_INCREMENT,
+    hts_code VARCHAR(255),
+    userid INT,
+    PRIMARY KEY (queryid),
+    CONSTRAINT fk_query_account FOREIGN KEY (userid) REFERENCES account (userid)
+);
+
+CREATE TABLE fta (
+    fta_id BIGINT NOT NULL AUTO_INCREMENT,
+    country VARCHAR(255),
+    hts_code VARCHAR(255),
+    price VARCHAR(255),
+    date DATE,
+    agreement VARCHAR(255),
+    PRIMARY KEY (fta_id)
+);
+
+CREATE TABLE favourites (
+    hts_code VARCHAR(255) NOT NULL,
+    PRIMARY KEY (hts_code)
+);
+
+CREATE TABLE account_favourites (
+    account_id INT NOT NULL,
+    hts_code VARCHAR(255) NOT NULL,
+    PRIMARY KEY (account_id, hts_code),
+    CONSTRAINT fk_account_favourites_account FOREIGN KEY (account_id) REFERENCES account (userid),
+    CONSTRAINT fk_account_favourites_favourites FOREIGN KEY (hts_code) REFERENCES favourites (hts_code)
+);
@@ -0,0 +1,20 @@
+-- Indexes for the lookups the repositories run. Primary keys already cover
+-- product by code (latest fetch date, MAX(fetch_date) per code, code prefix),
+-- account favourites by account, and queries by account through the foreign key.
+
+-- Login and registration look accounts up by either. Unique, so two concurrent
+-- registrations that both pass the existence checks in AccountService cannot
+-- both insert
+ALTER TABLE account ADD CONSTRAINT uk_account_username UNIQUE (username);
+ALTER TABLE account ADD CONSTRAINT uk_account_email UNIQUE (email);
+
+-- Top queried codes: GROUP BY hts_code reads the index alone
+CREATE INDEX idx_query_hts_code ON query (hts_code);
+
+-- FTA schedules by country, and by country and code ordered by date
+CREATE INDEX idx_fta_country_code_date ON fta (country, hts_code, date);
+-- Replacing an agreement's rows on import
+CREATE INDEX idx_fta_agreement ON fta (agreement);
+
+-- Most favourited codes, read in count order; the key holds hts_code too
+CREATE INDEX idx_favourites_count ON favourites (favourite_count);
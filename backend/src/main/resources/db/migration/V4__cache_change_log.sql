@@ -0,0 +1,14 @@
+-- Invalidations of in-process caches, written by the node that changed the
+-- data and polled by every other node; see CacheInvalidationBus.
+CREATE TABLE cache_change_log (
+    version BIGINT NOT NULL AUTO_INCREMENT,
+    cache_domain VARCHAR(32) NOT NULL,
+    -- NULL invalidates the whole domain
+    cache_key VARCHAR(255),
+    origin VARCHAR(64) NOT NULL,
+    changed_at TIMESTAMP(3) NOT NULL,
+    PRIMARY KEY (version)
+);
+
+-- Pruning of entries every node has long since read
+CREATE INDEX idx_cache_change_log_changed_at ON cache_change_log (changed_at);
@@ -0,0 +1,13 @@
+-- One row per scheduled job, or per partition of one; see JobLeases.
+CREATE TABLE job_lease (
+    job_name VARCHAR(64) NOT NULL,
+    -- Instance running the job, NULL when none is
+    owner VARCHAR(64),
+    -- The owner lost the lease once this passes without a renewal; also set
+    -- after a failure, to hold off retries
+    lease_until TIMESTAMP(3),
+    -- End of the last successful run; the job is due at the next scheduled
+    -- time after it
+    completed_at TIMESTAMP(3) NOT NULL,
+    PRIMARY KEY (job_name)
+);
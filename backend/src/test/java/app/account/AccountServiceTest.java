@@ -11,6 +11,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
@@ -20,10 +21,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import app.config.ResponseCache;
 import app.controller.AdminController.RoleUpdateRequest;
 import app.exception.InvalidPasswordException;
 import app.exception.UserConflictException;
 import app.exception.UserNotFoundException;
+import app.favourites.AccountFavouriteRepository;
+import app.favourites.FavouritesRepository;
+import app.query.QueryRepository;
 
 @ExtendWith(MockitoExtension.class)
 public class AccountServiceTest {
@@ -34,6 +39,18 @@ public class AccountServiceTest {
     @Mock
     BCryptPasswordEncoder passwordEncoder;
 
+    @Mock
+    QueryRepository queryRepository;
+
+    @Mock
+    FavouritesRepository favouritesRepository;
+
+    @Mock
+    AccountFavouriteRepository accountFavouriteRepository;
+
+    @Mock
+    ResponseCache responseCache;
+
     @InjectMocks
     AccountService accountService;
 
@@ -601,4 +618,41 @@ public class AccountServiceTest {
                 () -> accountService.updatePasswordViaEmail(null, "NewPassword123!"));
         verify(accountRepository, never()).save(any());
     }
-}
\ No newline at end of file
+
+    // -------------------------------------------------------------------
+    // ----------------- testing deleteAccount() method ------------------
+    // -------------------------------------------------------------------
+
+    @Test
+    void deleteAccount_WhenAccountExists_ShouldDeleteDependentsAndReturnRowCount() {
+        // Arrange
+        when(queryRepository.deleteAllByUserId(1)).thenReturn(4);
+        when(accountFavouriteRepository.lockAllForAccount(1)).thenReturn(List.of("1704.01.10", "0901.21.00"));
+        when(accountFavouriteRepository.deleteAllForAccount(1)).thenReturn(2);
+        when(accountRepository.deleteByUserID(1)).thenReturn(1);
+
+        // Act
+        int deleted = accountService.deleteAccount(1);
+
+        // Assert
+        assertEquals(7, deleted);
+        verify(queryRepository).deleteAllByUserId(1);
+        verify(favouritesRepository).addToCount(List.of("1704.01.10", "0901.21.00"), -1);
+        verify(accountFavouriteRepository).deleteAllForAccount(1);
+        verify(accountRepository).deleteByUserID(1);
+        verify(accountRepository, never()).findByUserID(any());
+        verify(responseCache).invalidate(ResponseCache.QUERIES);
+    }
+
+    @Test
+    void deleteAccount_WhenAccountDoesNotExist_ShouldThrowUserNotFoundException() {
+        // Arrange
+        when(accountRepository.deleteByUserID(999)).thenReturn(0);
+
+        // Act & Assert
+        UserNotFoundException exception = assertThrows(
+                UserNotFoundException.class,
+                () -> accountService.deleteAccount(999));
+        assertEquals("Account with user ID 999 not found!", exception.getMessage());
+    }
+}
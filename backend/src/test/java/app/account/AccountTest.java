@@ -3,14 +3,11 @@ package app.account;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import app.favourites.Favourites;
 import app.query.Query;
 
 public class AccountTest {
@@ -19,8 +16,6 @@ public class AccountTest {
     private Account account2;
     private Query query1;
     private Query query2;
-    private Favourites favourite1;
-    private Favourites favourite2;
 
     @BeforeEach
     void setUp() {
@@ -45,12 +40,6 @@ public class AccountTest {
         query2 = new Query();
         query2.setQueryID(2L);
         query2.setHtsCode("1704.90.36");
-
-        favourite1 = new Favourites();
-        favourite1.setHtsCode("1704.90.35");
-
-        favourite2 = new Favourites();
-        favourite2.setHtsCode("1704.90.36");
     }
 
     // -------------------------------------------------------------------
@@ -72,21 +61,6 @@ public class AccountTest {
         assertTrue(account1.getQueries().contains(query2));
     }
 
-    @Test
-    void account_WhenFavouritesAdded_ShouldMaintainManyToManyRelationship() {
-        // Arrange
-        Set<Favourites> favourites = new HashSet<>();
-        favourites.add(favourite1);
-        favourites.add(favourite2);
-        account1.setFavourites(favourites);
-
-        // Act & Assert
-        assertNotNull(account1.getFavourites());
-        assertEquals(2, account1.getFavourites().size());
-        assertTrue(account1.getFavourites().contains(favourite1));
-        assertTrue(account1.getFavourites().contains(favourite2));
-    }
-
     @Test
     void account_WhenNoQueries_ShouldReturnEmptyList() {
         // Arrange
@@ -97,16 +71,6 @@ public class AccountTest {
         assertTrue(account1.getQueries().isEmpty());
     }
 
-    @Test
-    void account_WhenNoFavourites_ShouldReturnEmptySet() {
-        // Arrange
-        account1.setFavourites(new HashSet<>());
-
-        // Act & Assert
-        assertNotNull(account1.getFavourites());
-        assertTrue(account1.getFavourites().isEmpty());
-    }
-
     @Test
     void account_WhenQueriesNull_ShouldHandleGracefully() {
         // Arrange
@@ -116,15 +80,6 @@ public class AccountTest {
         assertNull(account1.getQueries());
     }
 
-    @Test
-    void account_WhenFavouritesNull_ShouldHandleGracefully() {
-        // Arrange
-        account1.setFavourites(null);
-
-        // Act & Assert
-        assertNull(account1.getFavourites());
-    }
-
     @Test
     void account_WhenDefaultConstructor_ShouldInitializeCollections() {
         // Arrange
@@ -132,19 +87,16 @@ public class AccountTest {
 
         // Act & Assert
         assertNotNull(account.getQueries());
-        assertNotNull(account.getFavourites());
         assertTrue(account.getQueries().isEmpty());
-        assertTrue(account.getFavourites().isEmpty());
     }
 
     @Test
     void account_WhenAllArgsConstructor_ShouldSetAllFields() {
         // Arrange
         List<Query> queries = List.of(query1);
-        Set<Favourites> favourites = Set.of(favourite1);
 
         // Act
-        Account account = new Account(3, "user3", "pass123", "user3@example.com", "USER", queries, favourites);
+        Account account = new Account(3, "user3", "pass123", "user3@example.com", "USER", queries);
 
         // Assert
         assertEquals(3, account.getUserID());
@@ -153,7 +105,6 @@ public class AccountTest {
         assertEquals("user3@example.com", account.getEmail());
         assertEquals("USER", account.getRole());
         assertEquals(queries, account.getQueries());
-        assertEquals(favourites, account.getFavourites());
     }
 
     // -------------------------------------------------------------------
@@ -175,23 +126,4 @@ public class AccountTest {
         assertTrue(account1.getQueries().contains(query));
         assertEquals(account1, query.getAccount());
     }
-
-    @Test
-    void account_WhenFavouriteAddedToAccount_ShouldMaintainBidirectionalRelationship() {
-        // Arrange
-        Favourites favourite = new Favourites();
-        favourite.setHtsCode("1704.90.35");
-        
-        Set<Account> accounts = new HashSet<>();
-        accounts.add(account1);
-        favourite.setAccounts(accounts);
-
-        Set<Favourites> favourites = new HashSet<>();
-        favourites.add(favourite);
-        account1.setFavourites(favourites);
-
-        // Act & Assert
-        assertTrue(account1.getFavourites().contains(favourite));
-        assertTrue(favourite.getAccounts().contains(account1));
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package app.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CacheInvalidationBusTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+
+    // Two instances sharing one database
+    private CacheInvalidationBus first;
+    private CacheInvalidationBus second;
+
+    private final List<String> appliedBySecond = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:cache-bus-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V4__cache_change_log.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        meterRegistry = new SimpleMeterRegistry();
+
+        first = new CacheInvalidationBus(jdbcTemplate, meterRegistry, Duration.ofSeconds(10), Duration.ofHours(1));
+        second = new CacheInvalidationBus(jdbcTemplate, meterRegistry, Duration.ofSeconds(10), Duration.ofHours(1));
+        first.register("catalog", key -> fail("An instance must not apply its own changes"));
+        second.register("catalog", key -> appliedBySecond.add(String.valueOf(key)));
+        // Places the cursors
+        first.sync();
+        second.sync();
+    }
+
+    private void insert(long version, String key) {
+        jdbcTemplate.update("""
+                INSERT INTO cache_change_log (version, cache_domain, cache_key, origin, changed_at)
+                VALUES (?, 'catalog', ?, 'elsewhere', CURRENT_TIMESTAMP(3))
+                """, version, key);
+    }
+
+    @Test
+    void sync_ShouldApplyChangesOfOtherInstancesOnly() {
+        first.publish("catalog", "0407.11.00.00");
+
+        first.sync();
+        second.sync();
+        first.sync();
+
+        assertEquals(List.of("0407.11.00.00"), appliedBySecond);
+        assertEquals(1, meterRegistry.get("cache.invalidation.lag").tag("domain", "catalog").timer().count());
+    }
+
+    @Test
+    void publish_WhenRepeatedBeforeSync_ShouldWriteOneEntry() {
+        first.publish("catalog", null);
+        first.publish("catalog", null);
+
+        first.sync();
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cache_change_log", Integer.class));
+    }
+
+    @Test
+    void sync_ShouldApplyEachChangeOnce_EvenWhenAnEarlierVersionCommitsLate() {
+        insert(2, "late-neighbour");
+        second.sync();
+        insert(1, "late");
+        second.sync();
+        second.sync();
+
+        assertEquals(List.of("late-neighbour", "late"), appliedBySecond);
+    }
+
+    @Test
+    void sync_WhenVersionNeverCommits_ShouldMovePastItAfterGapTimeout() {
+        CacheInvalidationBus impatient = new CacheInvalidationBus(jdbcTemplate, meterRegistry, Duration.ZERO,
+                Duration.ofHours(1));
+        List<String> applied = new ArrayList<>();
+        impatient.register("catalog", key -> applied.add(key));
+        impatient.sync();
+
+        insert(2, "after-gap");
+        impatient.sync();
+        impatient.sync();
+        insert(3, "next");
+        impatient.sync();
+
+        assertEquals(List.of("after-gap", "next"), applied);
+    }
+}
@@ -0,0 +1,161 @@
+package app.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronExpression;
+
+public class JobLeasesTest {
+
+    private static final CronExpression WEEKLY = CronExpression.parse("0 0 0 * * MON");
+
+    private JdbcTemplate jdbcTemplate;
+
+    // Two instances sharing one database
+    private JobLeases first;
+    private JobLeases second;
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:job-lease-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V5__job_lease.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        first = new JobLeases(jdbcTemplate, Duration.ofMinutes(2), Duration.ofMinutes(15), "first");
+        second = new JobLeases(jdbcTemplate, Duration.ofMinutes(2), Duration.ofMinutes(15), "second");
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.shutdown();
+        second.shutdown();
+    }
+
+    private void lastCompletedDaysAgo(int days) {
+        jdbcTemplate.update("UPDATE job_lease SET completed_at = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(days)));
+    }
+
+    @Test
+    void runIfDue_WhenJobIsNew_ShouldWaitForTheSchedule() {
+        assertFalse(first.runIfDue("ingest", WEEKLY, runs::incrementAndGet));
+
+        assertEquals(0, runs.get());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM job_lease", Integer.class));
+    }
+
+    @Test
+    void runIfDue_WhenDue_ShouldRunOnceAcrossInstances() {
+        first.runIfDue("ingest", WEEKLY, () -> { });
+        lastCompletedDaysAgo(8);
+
+        assertTrue(first.runIfDue("ingest", WEEKLY, runs::incrementAndGet));
+        assertFalse(second.runIfDue("ingest", WEEKLY, runs::incrementAndGet));
+        assertFalse(first.runIfDue("ingest", WEEKLY, runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void runIfDue_WhileAnotherInstanceRunsIt_ShouldSkip() {
+        first.runIfDue("ingest", WEEKLY, () -> { });
+        lastCompletedDaysAgo(8);
+
+        first.runIfDue("ingest", WEEKLY, () -> {
+            runs.incrementAndGet();
+            assertFalse(second.runIfDue("ingest", WEEKLY, runs::incrementAndGet));
+        });
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void runIfDue_WhenOwnerLeaseExpired_ShouldTakeOver() {
+        first.runIfDue("ingest", WEEKLY, () -> { });
+        lastCompletedDaysAgo(8);
+        // An owner that died mid-run
+        jdbcTemplate.update("UPDATE job_lease SET owner = 'crashed', lease_until = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)));
+
+        assertTrue(second.runIfDue("ingest", WEEKLY, runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+        assertNull(jdbcTemplate.queryForObject("SELECT owner FROM job_lease", String.class));
+    }
+
+    @Test
+    void runIfDue_WhenJobFails_ShouldHoldOffRetryAndStayDue() {
+        first.runIfDue("ingest", WEEKLY, () -> { });
+        lastCompletedDaysAgo(8);
+
+        assertTrue(first.runIfDue("ingest", WEEKLY, () -> {
+            throw new IllegalStateException("HTS API down");
+        }));
+        assertFalse(second.runIfDue("ingest", WEEKLY, runs::incrementAndGet));
+
+        // Once the retry delay has passed
+        jdbcTemplate.update("UPDATE job_lease SET lease_until = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)));
+        assertTrue(second.runIfDue("ingest", WEEKLY, runs::incrementAndGet));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void runIfDue_ShouldLeasePartitionsSeparately() {
+        first.runIfDue("ingest:sugar", WEEKLY, () -> { });
+        first.runIfDue("ingest:milk", WEEKLY, () -> { });
+        lastCompletedDaysAgo(8);
+
+        first.runIfDue("ingest:sugar", WEEKLY, () -> {
+            runs.incrementAndGet();
+            assertTrue(second.runIfDue("ingest:milk", WEEKLY, runs::incrementAndGet));
+        });
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void runIfDue_WhenJobOutlivesTheTtlOnTheOnlySchedulerThread_ShouldKeepTheLease() throws Exception {
+        JobLeases shortLease = new JobLeases(jdbcTemplate, Duration.ofSeconds(2), Duration.ofMinutes(15), "short");
+        // Like the default @Scheduled scheduler, which the job itself occupies
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        try {
+            shortLease.runIfDue("ingest", WEEKLY, () -> { });
+            lastCompletedDaysAgo(8);
+
+            Future<Boolean> ran = scheduler.submit(() -> shortLease.runIfDue("ingest", WEEKLY, () -> {
+                runs.incrementAndGet();
+                try {
+                    Thread.sleep(3500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                assertFalse(second.runIfDue("ingest", WEEKLY, runs::incrementAndGet));
+            }));
+
+            assertTrue(ran.get(10, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+        } finally {
+            scheduler.shutdown();
+            shortLease.shutdown();
+        }
+    }
+}
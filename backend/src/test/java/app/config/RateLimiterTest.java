@@ -0,0 +1,132 @@
+package app.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import app.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.rate-limit.ip-multiplier", "2")
+                .withProperty("app.rate-limit.search.capacity", "3")
+                .withProperty("app.rate-limit.search.refill-per-minute", "6");
+        rateLimiter = new RateLimiter(environment, meterRegistry, now::get);
+        as("alice", "10.0.0.1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static void as(String user, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(ip);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        SecurityContextHolder.getContext().setAuthentication(
+                user == null ? null : new TestingAuthenticationToken(user, null, List.of()));
+    }
+
+    private void checkTimes(int times) {
+        for (int i = 0; i < times; i++) {
+            rateLimiter.check("search");
+        }
+    }
+
+    @Test
+    void check_WhenBurstExceedsCapacity_ShouldRejectWithRetryAfter() {
+        checkTimes(3);
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> rateLimiter.check("search"));
+        // One token every 10 seconds
+        assertEquals(10, exception.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("rate_limit.rejections").tag("keyed_by", "user").counter().count());
+    }
+
+    @Test
+    void check_ShouldRefillOverTime() {
+        checkTimes(3);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        rateLimiter.check("search");
+
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.check("search"));
+    }
+
+    @Test
+    void check_ShouldLimitEachUserSeparately() {
+        checkTimes(3);
+
+        as("bob", "10.0.0.2");
+        checkTimes(3);
+    }
+
+    @Test
+    void check_WhenUsersShareAnIp_ShouldLimitTheIpToo() {
+        checkTimes(3);
+        as("bob", "10.0.0.1");
+        checkTimes(3);
+
+        as("carol", "10.0.0.1");
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> rateLimiter.check("search"));
+        assertEquals(5, exception.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("rate_limit.rejections").tag("keyed_by", "ip").counter().count());
+
+        // A request rejected per IP does not use up the user's tokens
+        as("carol", "10.0.0.3");
+        checkTimes(3);
+    }
+
+    @Test
+    void check_WhenAnonymous_ShouldLimitByIp() {
+        as(null, "10.0.0.4");
+        checkTimes(6);
+
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.check("search"));
+    }
+
+    @Test
+    void check_OutsideRequest_ShouldNotLimit() {
+        RequestContextHolder.resetRequestAttributes();
+
+        checkTimes(10);
+    }
+
+    @Test
+    void evictIdle_ShouldDropOnlyRefilledBuckets() {
+        rateLimiter.check("search");
+        as("bob", "10.0.0.2");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        rateLimiter.check("search");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        rateLimiter.evictIdle();
+
+        // alice's buckets are full again, bob's user bucket is not
+        assertEquals(1, rateLimiter.bucketCount());
+    }
+}
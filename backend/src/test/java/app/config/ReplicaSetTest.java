@@ -0,0 +1,159 @@
+package app.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+public class ReplicaSetTest {
+
+    private final HikariDataSource primary = h2("primary");
+    private final HikariDataSource replica = h2("replica");
+
+    private static HikariDataSource h2(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + "-" + System.nanoTime());
+        pool.setPoolName(name);
+        return pool;
+    }
+
+    @AfterEach
+    void closePools() {
+        primary.close();
+        replica.close();
+    }
+
+    private static String urlInTransaction(DataSourceConfig.ReadWriteDataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> new JdbcTemplate(dataSource)
+                .execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL()));
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldUseReplica_AndWritesThePrimary() {
+        ReplicaSet replicas = new ReplicaSet(primary, List.of(replica), Duration.ofSeconds(2), true);
+        replicas.checkLag();
+        DataSourceConfig.ReadWriteDataSource dataSource =
+                new DataSourceConfig.ReadWriteDataSource(primary, replicas, mock(ScheduledFuture.class));
+
+        assertTrue(urlInTransaction(dataSource, true).startsWith("jdbc:h2:mem:replica"));
+        assertTrue(urlInTransaction(dataSource, false).startsWith("jdbc:h2:mem:primary"));
+    }
+
+    @Test
+    void pick_BeforeFirstCheck_ShouldUsePrimary() {
+        ReplicaSet replicas = new ReplicaSet(primary, List.of(replica), Duration.ofSeconds(2), false);
+
+        assertSame(primary, replicas.pick());
+    }
+
+    @Test
+    void pick_ShouldRotateOverUsableReplicas() {
+        HikariDataSource second = h2("second");
+        try {
+            ReplicaSet replicas = new ReplicaSet(primary, List.of(replica, second), Duration.ofSeconds(2), true);
+            replicas.checkLag();
+
+            assertNotSame(replicas.pick(), replicas.pick());
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    void checkLag_WhenReplicaTooFarBehind_ShouldFallBackToPrimary() throws SQLException {
+        HikariDataSource lagging = mySqlReplica(30L);
+        ReplicaSet replicas = new ReplicaSet(primary, List.of(lagging), Duration.ofSeconds(2), false);
+
+        replicas.checkLag();
+
+        assertSame(primary, replicas.pick());
+    }
+
+    @Test
+    void checkLag_WhenReplicaWithinMaxLag_ShouldUseIt() throws SQLException {
+        HikariDataSource current = mySqlReplica(1L);
+        ReplicaSet replicas = new ReplicaSet(primary, List.of(current), Duration.ofSeconds(2), false);
+
+        replicas.checkLag();
+
+        assertSame(current, replicas.pick());
+    }
+
+    @Test
+    void checkLag_WhenReplicationStopped_ShouldFallBackToPrimary() throws SQLException {
+        HikariDataSource stopped = mySqlReplica(null);
+        ReplicaSet replicas = new ReplicaSet(primary, List.of(stopped), Duration.ofSeconds(2), false);
+
+        replicas.checkLag();
+
+        assertSame(primary, replicas.pick());
+    }
+
+    @Test
+    void checkLag_WhenReplicaUnreachable_ShouldTakeItOutOfRotation() throws SQLException {
+        HikariDataSource current = mySqlReplica(0L);
+        ReplicaSet replicas = new ReplicaSet(primary, List.of(current), Duration.ofSeconds(2), false);
+        replicas.checkLag();
+        assertSame(current, replicas.pick());
+
+        when(current.getConnection()).thenThrow(new SQLException("Connection refused"));
+        replicas.checkLag();
+
+        assertSame(primary, replicas.pick());
+    }
+
+    @Test
+    void checkLag_WhenServerIsNotReplicating_ShouldOnlyUseItIfAllowed() throws SQLException {
+        HikariDataSource standalone = mySqlReplica(0L);
+        ResultSet noStatus = mock(ResultSet.class);
+        when(standalone.getConnection().createStatement().executeQuery("SHOW REPLICA STATUS")).thenReturn(noStatus);
+
+        ReplicaSet strict = new ReplicaSet(primary, List.of(standalone), Duration.ofSeconds(2), false);
+        strict.checkLag();
+        assertSame(primary, strict.pick());
+
+        ReplicaSet lenient = new ReplicaSet(primary, List.of(standalone), Duration.ofSeconds(2), true);
+        lenient.checkLag();
+        assertSame(standalone, lenient.pick());
+    }
+
+    /**
+     * A MySQL replica whose SHOW REPLICA STATUS reports the given lag, or NULL
+     * as when replication is stopped.
+     */
+    private static HikariDataSource mySqlReplica(Long secondsBehind) throws SQLException {
+        HikariDataSource pool = mock(HikariDataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        Statement statement = mock(Statement.class);
+        ResultSet status = mock(ResultSet.class);
+        when(pool.getPoolName()).thenReturn("replica-1");
+        when(pool.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SHOW REPLICA STATUS")).thenReturn(status);
+        when(status.next()).thenReturn(true);
+        when(status.getLong("Seconds_Behind_Source")).thenReturn(secondsBehind == null ? 0L : secondsBehind);
+        when(status.wasNull()).thenReturn(secondsBehind == null);
+        return pool;
+    }
+}
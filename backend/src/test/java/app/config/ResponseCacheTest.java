@@ -0,0 +1,155 @@
+package app.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ResponseCacheTest {
+
+    private ResponseCache responseCache;
+
+    private AtomicInteger builds;
+
+    @BeforeEach
+    void setUp() {
+        responseCache = new ResponseCache(new ObjectMapper(), mock(CacheInvalidationBus.class));
+        builds = new AtomicInteger();
+    }
+
+    private ResponseEntity<byte[]> get(String ifNoneMatch, String acceptEncoding, Object body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/product/hts/0407");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return responseCache.respond(new ServletWebRequest(request, new MockHttpServletResponse()),
+                "product/hts/0407", () -> {
+                    builds.incrementAndGet();
+                    return body;
+                }, ResponseCache.CATALOG);
+    }
+
+    @Test
+    void respond_WhenCalledTwice_ShouldBuildBodyOnceWithSameETag() {
+        // Act
+        ResponseEntity<byte[]> first = get(null, null, Map.of("htsCode", "0407"));
+        ResponseEntity<byte[]> second = get(null, null, Map.of("htsCode", "0407"));
+
+        // Assert
+        assertEquals(1, builds.get());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertEquals("{\"htsCode\":\"0407\"}", new String(second.getBody()));
+    }
+
+    @Test
+    void respond_WhenETagMatches_ShouldReturnNotModifiedWithoutBuildingBody() {
+        // Arrange
+        String etag = get(null, null, Map.of()).getHeaders().getETag();
+        builds.set(0);
+
+        // Act
+        ResponseEntity<byte[]> response = get(etag, null, Map.of());
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(0, builds.get());
+    }
+
+    @Test
+    void respond_AfterInvalidate_ShouldRebuildWithNewETag() {
+        // Arrange
+        String etag = get(null, null, Map.of("general", "Free")).getHeaders().getETag();
+
+        // Act
+        responseCache.invalidate(ResponseCache.CATALOG);
+        ResponseEntity<byte[]> response = get(etag, null, Map.of("general", "2%"));
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        assertEquals("{\"general\":\"2%\"}", new String(response.getBody()));
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void invalidate_InsideTransaction_ShouldKeepETagUntilCommit() {
+        // Arrange
+        String etag = get(null, null, Map.of("general", "Free")).getHeaders().getETag();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            responseCache.invalidate(ResponseCache.CATALOG);
+
+            // Assert
+            assertEquals(etag, get(null, null, Map.of("general", "Free")).getHeaders().getETag());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertNotEquals(etag, get(null, null, Map.of("general", "2%")).getHeaders().getETag());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void respond_WhenClientAcceptsGzip_ShouldServePrecompressedBody() throws IOException {
+        // Arrange
+        Map<String, String> body = Map.of("description", "x".repeat(2000));
+
+        // Act
+        ResponseEntity<byte[]> response = get(null, "gzip, deflate", body);
+
+        // Assert
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertEquals(new ObjectMapper().writeValueAsString(body), new String(in.readAllBytes()));
+        }
+    }
+
+    @Test
+    void respond_WhenAnotherInstanceBuiltTheSameBody_ShouldReturnNotModified() {
+        // Arrange
+        String etag = get(null, null, Map.of("general", "Free")).getHeaders().getETag();
+        responseCache = new ResponseCache(new ObjectMapper(), mock(CacheInvalidationBus.class));
+
+        // Act
+        ResponseEntity<byte[]> response = get(etag, null, Map.of("general", "Free"));
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+    }
+
+    @Test
+    void expire_WhenBodyIsUnchanged_ShouldRebuildButKeepETag() {
+        // Arrange
+        String etag = get(null, null, Map.of("general", "Free")).getHeaders().getETag();
+
+        // Act
+        responseCache.expire(ResponseCache.CATALOG);
+        ResponseEntity<byte[]> response = get(etag, null, Map.of("general", "Free"));
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(2, builds.get());
+    }
+}
@@ -0,0 +1,69 @@
+package app.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MarkerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+public class SamplingTurboFilterTest {
+
+    private SamplingTurboFilter filter;
+
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        filter = new SamplingTurboFilter();
+        filter.setKeepOneIn(10);
+        logger = new LoggerContext().getLogger("app.test");
+        logger.setLevel(Level.INFO);
+    }
+
+    private int kept(int events, String format) {
+        int kept = 0;
+        for (int i = 0; i < events; i++) {
+            if (filter.decide(SamplingTurboFilter.SAMPLED, logger, Level.WARN, format, null, null)
+                    != FilterReply.DENY) {
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    @Test
+    void decide_SampledEvents_ShouldKeepFirstAndEveryNth() {
+        assertEquals(1, kept(1, "upstream failed"));
+        assertEquals(0, kept(9, "upstream failed"));
+        assertEquals(1, kept(1, "upstream failed"));
+        assertEquals(9, kept(90, "upstream failed"));
+    }
+
+    @Test
+    void decide_SampledEvents_ShouldCountEachMessageSeparately() {
+        assertEquals(1, kept(5, "upstream failed"));
+        assertEquals(1, kept(5, "slow query"));
+    }
+
+    @Test
+    void decide_UnmarkedEvents_ShouldAlwaysBeLeftAlone() {
+        for (int i = 0; i < 50; i++) {
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.WARN, "upstream failed", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(MarkerFactory.getMarker("OTHER"), logger, Level.WARN,
+                    "upstream failed", null, null));
+        }
+    }
+
+    @Test
+    void decide_SampledEventsBelowLoggerLevel_ShouldNotBeCounted() {
+        for (int i = 0; i < 5; i++) {
+            filter.decide(SamplingTurboFilter.SAMPLED, logger, Level.DEBUG, "upstream failed", null, null);
+        }
+        assertEquals(1, kept(1, "upstream failed"));
+    }
+}
@@ -0,0 +1,102 @@
+package app.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class ServerTimingFilterTest {
+
+    private final ServerTimingFilter filter = new ServerTimingFilter();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void authenticate(String role) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("someone", null, "ROLE_" + role));
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                ServerTiming.record(ServerTiming.Phase.DB, TimeUnit.MILLISECONDS.toNanos(3));
+                ServerTiming.record(ServerTiming.Phase.DB, TimeUnit.MILLISECONDS.toNanos(2));
+                try (ServerTiming.Span outer = ServerTiming.start(ServerTiming.Phase.UPSTREAM)) {
+                    // Nested time in the same phase is already covered by the outer span
+                    ServerTiming.record(ServerTiming.Phase.UPSTREAM, TimeUnit.SECONDS.toNanos(10));
+                }
+                resp.getWriter().write("[]");
+            }
+        };
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    private static MockHttpServletRequest timedRequest(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.addHeader(ServerTimingFilter.REQUEST_HEADER, "1");
+        return request;
+    }
+
+    @Test
+    void doFilter_AdminAsksForTiming_ShouldReturnPhaseBreakdownWithBody() throws Exception {
+        authenticate("ADMIN");
+
+        MockHttpServletResponse response = run(timedRequest("/api/tariffs/search"));
+
+        String header = response.getHeader(ServerTimingFilter.RESPONSE_HEADER);
+        assertNotNull(header);
+        assertTrue(header.startsWith("db;dur=5.00;desc=\"2 calls\", upstream;dur="), header);
+        assertTrue(header.contains("upstream;dur=") && header.contains("desc=\"1 call\""), header);
+        assertFalse(header.contains("cache;"), "Phases that never ran should be left out");
+        assertTrue(header.contains("total;dur="), header);
+        assertTrue(Double.parseDouble(header.replaceAll(".*upstream;dur=([0-9.]+).*", "$1")) < 10_000);
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    void doFilter_UserAsksForTiming_ShouldNotTime() throws Exception {
+        authenticate("USER");
+
+        MockHttpServletResponse response = run(timedRequest("/api/tariffs/search"));
+
+        assertNull(response.getHeader(ServerTimingFilter.RESPONSE_HEADER));
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    void doFilter_AdminWithoutHeader_ShouldNotTime() throws Exception {
+        authenticate("ADMIN");
+
+        MockHttpServletResponse response = run(new MockHttpServletRequest("GET", "/api/tariffs/search"));
+
+        assertNull(response.getHeader(ServerTimingFilter.RESPONSE_HEADER));
+    }
+
+    @Test
+    void doFilter_AdminAsksToTimeEventStream_ShouldNotTime() throws Exception {
+        authenticate("ADMIN");
+
+        MockHttpServletResponse response = run(timedRequest("/api/tariffs/search/stream"));
+
+        assertNull(response.getHeader(ServerTimingFilter.RESPONSE_HEADER));
+    }
+}
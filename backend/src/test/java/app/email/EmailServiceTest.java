@@ -13,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mail.MailAuthenticationException;
 import org.springframework.mail.MailSendException;
@@ -22,6 +23,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -38,6 +41,9 @@ class EmailServiceTest {
     @Mock
     private AccountService accountService;
 
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private EmailService emailService;
 
@@ -330,4 +336,21 @@ class EmailServiceTest {
 
         verify(mailSender).send(any(SimpleMailMessage.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void sendNotificationEmail_RecordsSendTimeByOutcome() {
+        // Arrange
+        doNothing().doThrow(new MailSendException("Send failed")).when(mailSender).send(any(SimpleMailMessage.class));
+
+        // Act
+        emailService.sendNotificationEmail(TEST_EMAIL, "1234", "5%", "10%");
+        assertThrows(EmailDeliveryExceptionException.class,
+                () -> emailService.sendNotificationEmail(TEST_EMAIL, "1234", "5%", "10%"));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("email.send")
+                .tag("subject", "Notification from Tariffics").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("email.send")
+                .tag("subject", "Notification from Tariffics").tag("outcome", "error").timer().count());
+    }
+}
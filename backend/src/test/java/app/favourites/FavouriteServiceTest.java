@@ -4,19 +4,19 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import app.account.Account;
-import app.account.AccountRepository;
 import app.account.AccountService;
 import app.exception.FavouritesNotFoundException;
 import app.exception.UserNotFoundException;
@@ -28,7 +28,7 @@ public class FavouriteServiceTest {
     private FavouritesRepository favouritesRepository;
 
     @Mock
-    private AccountRepository accountRepository;
+    private AccountFavouriteRepository accountFavouriteRepository;
 
     @Mock
     private AccountService accountService;
@@ -47,75 +47,59 @@ public class FavouriteServiceTest {
         account1.setPassword("password");
         account1.setEmail("user1@test.com");
         account1.setRole("USER");
-        account1.setFavourites(new HashSet<>());
 
-        favourites1 = new Favourites();
-        favourites1.setHtsCode("1704.01.10");
-        favourites1.setAccounts(new HashSet<>());
+        favourites1 = new Favourites("1704.01.10", 3);
     }
 
     // ==================== addFavourite Tests ====================
 
     @Test
-    public void addFavourite_WhenUserAndFavouriteExist_ShouldAddAndSave() {
-        when(accountService.getAccountByUserID(1)).thenReturn(account1);
-        when(favouritesRepository.findById("1704.01.10")).thenReturn(Optional.of(favourites1));
+    public void addFavourite_WhenUserExists_ShouldInsertLinkThenIncrementCounter() {
+        when(accountFavouriteRepository.insertIfAbsent(1, "1704.01.10")).thenReturn(1);
 
         favouriteService.addFavourite(1, "1704.01.10");
 
-        verify(accountService).getAccountByUserID(1);
-        verify(favouritesRepository).findById("1704.01.10");
-        verify(favouritesRepository).save(favourites1);
-        verify(accountRepository).save(account1);
-        assertTrue(favourites1.getAccounts().contains(account1));
-        assertTrue(account1.getFavourites().contains(favourites1));
+        verify(accountService).lockAccount(1);
+        InOrder inOrder = inOrder(favouritesRepository, accountFavouriteRepository);
+        inOrder.verify(favouritesRepository).createCounterIfAbsent("1704.01.10");
+        inOrder.verify(accountFavouriteRepository).insertIfAbsent(1, "1704.01.10");
+        inOrder.verify(favouritesRepository).addToCount(List.of("1704.01.10"), 1);
+        verify(favouritesRepository, never()).save(any());
+        verify(favouritesRepository, never()).findById(anyString());
     }
 
     @Test
-    public void addFavourite_WhenUserExistsButFavouriteDoesNot_ShouldCreateNewFavourite() {
-        when(accountService.getAccountByUserID(1)).thenReturn(account1);
-        when(favouritesRepository.findById("1704.01.11")).thenReturn(Optional.empty());
+    public void addFavourite_WhenAlreadyLinked_ShouldNotIncrementCounter() {
+        when(accountFavouriteRepository.insertIfAbsent(1, "1704.01.10")).thenReturn(0);
 
-        favouriteService.addFavourite(1, "1704.01.11");
+        favouriteService.addFavourite(1, "1704.01.10");
 
-        verify(accountService).getAccountByUserID(1);
-        verify(favouritesRepository).findById("1704.01.11");
-        verify(favouritesRepository).save(any(Favourites.class));
-        verify(accountRepository).save(account1);
-        assertEquals(1, account1.getFavourites().size());
+        verify(favouritesRepository, never()).addToCount(any(), anyLong());
     }
 
     @Test
     public void addFavourite_WhenUserDoesNotExist_ShouldThrowUserNotFoundException() {
-        when(accountService.getAccountByUserID(2)).thenThrow(new UserNotFoundException("User not found"));
+        doThrow(new UserNotFoundException("User not found")).when(accountService).lockAccount(2);
 
         assertThrows(UserNotFoundException.class, 
             () -> favouriteService.addFavourite(2, "1704.01.10"));
 
-        verify(accountService).getAccountByUserID(2);
-        verify(favouritesRepository, never()).findById(anyString());
-        verify(favouritesRepository, never()).save(any());
-        verify(accountRepository, never()).save(any());
+        verify(accountService).lockAccount(2);
+        verifyNoInteractions(favouritesRepository, accountFavouriteRepository);
     }
 
     // ==================== removeFavourite Tests ====================
 
     @Test
-    public void removeFavourite_WhenUserAndFavouriteExist_ShouldRemoveAndSave() {
-        account1.getFavourites().add(favourites1);
-        favourites1.getAccounts().add(account1);
-
+    public void removeFavourite_WhenFavourited_ShouldDeleteLockedLinkThenDecrementCounter() {
         when(accountService.getAccountByUserID(1)).thenReturn(account1);
-        when(favouritesRepository.findById("1704.01.10")).thenReturn(Optional.of(favourites1));
+        when(accountFavouriteRepository.lockForAccount(1, List.of("1704.01.10"))).thenReturn(List.of("1704.01.10"));
 
         favouriteService.removeFavourite(1, "1704.01.10");
 
-        verify(accountService).getAccountByUserID(1);
-        verify(favouritesRepository).findById("1704.01.10");
-        verify(favouritesRepository).save(favourites1);
-        verify(accountRepository).save(account1);
-        assertFalse(favourites1.getAccounts().contains(account1));
-        assertFalse(account1.getFavourites().contains(favourites1));
+        InOrder inOrder = inOrder(favouritesRepository, accountFavouriteRepository);
+        inOrder.verify(accountFavouriteRepository).deleteForAccount(1, List.of("1704.01.10"));
+        inOrder.verify(favouritesRepository).addToCount(List.of("1704.01.10"), -1);
     }
 
     @Test
@@ -126,23 +110,87 @@ public class FavouriteServiceTest {
             () -> favouriteService.removeFavourite(2, "1704.01.10"));
 
         verify(accountService).getAccountByUserID(2);
-        verify(favouritesRepository, never()).findById(anyString());
-        verify(favouritesRepository, never()).save(any());
-        verify(accountRepository, never()).save(any());
+        verifyNoInteractions(favouritesRepository, accountFavouriteRepository);
     }
 
     @Test
-    public void removeFavourite_WhenFavouriteDoesNotExist_ShouldThrowFavouritesNotFoundException() {
+    public void removeFavourite_WhenNotFavourited_ShouldThrowFavouritesNotFoundException() {
         when(accountService.getAccountByUserID(1)).thenReturn(account1);
-        when(favouritesRepository.findById("9999.99.99")).thenReturn(Optional.empty());
+        when(accountFavouriteRepository.lockForAccount(1, List.of("9999.99.99"))).thenReturn(List.of());
 
         assertThrows(FavouritesNotFoundException.class, 
             () -> favouriteService.removeFavourite(1, "9999.99.99"));
+        verifyNoInteractions(favouritesRepository);
+    }
 
-        verify(accountService).getAccountByUserID(1);
-        verify(favouritesRepository).findById("9999.99.99");
-        verify(favouritesRepository, never()).save(any());
-        verify(accountRepository, never()).save(any());
+    // ==================== bulk operation Tests ====================
+
+    @Test
+    public void addFavourites_ShouldCountAndLinkOnlyNewCodesWithOneStatementEach() {
+        when(accountFavouriteRepository.lockForAccount(eq(1), argThat(codes -> codes.size() == 3)))
+                .thenReturn(List.of("1704.01.10"));
+        when(accountFavouriteRepository.insertAll(eq(1), any())).thenReturn(2);
+
+        int added = favouriteService.addFavourites(1,
+                List.of("1704.01.10", "0901.21.00", "0402.10.00", "0901.21.00"));
+
+        assertEquals(2, added);
+        InOrder inOrder = inOrder(accountService, favouritesRepository, accountFavouriteRepository);
+        inOrder.verify(accountService).lockAccount(1);
+        inOrder.verify(favouritesRepository).incrementOrCreate(Set.of("0901.21.00", "0402.10.00"));
+        inOrder.verify(accountFavouriteRepository).insertAll(1, Set.of("0901.21.00", "0402.10.00"));
+        verify(accountFavouriteRepository, never()).insertIfAbsent(anyInt(), anyString());
+    }
+
+    @Test
+    public void addFavourites_WhenAllAreFavourited_ShouldOnlyReadTheLinks() {
+        when(accountFavouriteRepository.lockForAccount(eq(1), any())).thenReturn(List.of("1704.01.10"));
+
+        assertEquals(0, favouriteService.addFavourites(1, List.of("1704.01.10")));
+
+        verifyNoInteractions(favouritesRepository);
+        verify(accountFavouriteRepository, never()).insertAll(anyInt(), any());
+    }
+
+    @Test
+    public void addFavourites_WhenListIsEmpty_ShouldNotTouchRepository() {
+        assertEquals(0, favouriteService.addFavourites(1, List.of()));
+
+        verifyNoInteractions(favouritesRepository, accountFavouriteRepository);
+    }
+
+    @Test
+    public void removeFavourites_ShouldDeleteOnlyFavouritedLinksInOneStatement() {
+        when(accountFavouriteRepository.lockForAccount(eq(1), argThat(codes -> codes.size() == 2)))
+                .thenReturn(List.of("1704.01.10"));
+
+        int removed = favouriteService.removeFavourites(1, List.of("1704.01.10", "9999.99.99"));
+
+        assertEquals(1, removed);
+        verify(accountFavouriteRepository).deleteForAccount(1, List.of("1704.01.10"));
+        verify(favouritesRepository).addToCount(List.of("1704.01.10"), -1);
+    }
+
+    @Test
+    public void clearFavourites_ShouldReturnRemovedCount() {
+        List<String> favourited = List.of("1704.01.10", "0901.21.00", "0402.10.00");
+        when(accountFavouriteRepository.lockAllForAccount(1)).thenReturn(favourited);
+
+        assertEquals(3, favouriteService.clearFavourites(1));
+        verify(accountFavouriteRepository).deleteForAccount(1, favourited);
+        verify(favouritesRepository).addToCount(favourited, -1);
+    }
+
+    // ==================== getMostFavourited Tests ====================
+
+    @Test
+    public void getMostFavourited_ShouldReturnCountersFromRepository() {
+        when(favouritesRepository.findMostFavourited(any())).thenReturn(List.of(favourites1));
+
+        List<Favourites> result = favouriteService.getMostFavourited(10);
+
+        assertEquals(1, result.size());
+        assertEquals(3, result.get(0).getFavouriteCount());
     }
 
     // ==================== getFavouritesHtsCodes Tests ====================
@@ -188,4 +236,4 @@ public class FavouriteServiceTest {
         assertEquals("No favourites for user with user ID 2", exception.getMessage());
         verify(favouritesRepository).findFavouritesByAccountId(2);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package app.fta;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class FTAImportServiceTest {
+
+    @Mock
+    private FTARepository ftaRepository;
+
+    @Mock
+    private FTAScheduleIndex scheduleIndex;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FTAImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        importService = new FTAImportService(ftaRepository, scheduleIndex, jdbcTemplate, transactionManager,
+                new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(importService, "batchSize", 2);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importSchedules_Csv_ShouldBatchValidRowsAndRejectInvalidOnes() {
+        // Arrange
+        when(ftaRepository.deleteByAgreement("AUSFTA")).thenReturn(4);
+        String csv = "country,htsCode,year,rate\n"
+                + "Australia,0101.21,2025,\"1,5%\"\n"
+                + "Australia,0101.21,2026,Free\n"
+                + "Australia,not-a-code,2027,Free\n"
+                + "Australia,0101.21,20x8,Free\n"
+                + "Australia,0101.29,2025,2%\n";
+
+        // Act
+        FTAImportProgress progress = importService.importSchedules("AUSFTA", stream(csv), false);
+
+        // Assert
+        assertEquals(FTAImportProgress.Status.COMPLETED, progress.getStatus());
+        assertEquals(5, progress.getRowsRead());
+        assertEquals(3, progress.getRowsImported());
+        assertEquals(2, progress.getRowsRejected());
+        assertEquals(4, progress.getRowsReplaced());
+        assertEquals(2, progress.getErrors().size());
+        assertTrue(progress.getErrors().get(0).startsWith("Row 4:"));
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(scheduleIndex).rebuild();
+    }
+
+    @Test
+    void importSchedules_Json_ShouldAcceptYearOrDate() {
+        // Arrange
+        String json = "[{\"country\":\"Japan\",\"htsCode\":\"0101\",\"date\":\"2025-04-01\",\"rate\":\"3%\"},"
+                + "{\"country\":\"Japan\",\"code\":\"0101\",\"year\":2026,\"price\":\"Free\"},"
+                + "{\"country\":\"\",\"htsCode\":\"0101\",\"year\":2027,\"rate\":\"Free\"}]";
+
+        // Act
+        FTAImportProgress progress = importService.importSchedules("JPFTA", stream(json), true);
+
+        // Assert
+        assertEquals(2, progress.getRowsImported());
+        assertEquals(List.of("Row 3: country is required"), progress.getErrors());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void importSchedules_MissingColumns_ShouldFailWithoutRebuildingIndex() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importSchedules("AUSFTA", stream("country,rate\nAustralia,Free\n"), false));
+        assertEquals(FTAImportProgress.Status.FAILED, importService.getRecentImports().get(0).getStatus());
+        verify(transactionManager).rollback(any());
+        verify(scheduleIndex, never()).rebuild();
+    }
+
+    @Test
+    void importSchedules_BlankAgreement_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importSchedules(" ", stream("[]"), true));
+        verifyNoInteractions(ftaRepository, jdbcTemplate);
+    }
+
+    @Test
+    void splitCsvLine_ShouldHandleQuotedFields() {
+        assertEquals(List.of("a", "b,c", "say \"hi\""), FTAImportService.splitCsvLine("a,\"b,c\",\"say \"\"hi\"\"\""));
+    }
+}
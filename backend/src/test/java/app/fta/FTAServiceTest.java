@@ -2,6 +2,7 @@ package app.fta;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 import java.time.LocalDate;
@@ -16,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import app.config.CacheInvalidationBus;
 import app.exception.FTANotFoundException;
 
 public class FTAServiceTest {
@@ -23,12 +25,15 @@ public class FTAServiceTest {
     @Mock
     private FTARepository ftaRepository;
     
+    private FTAScheduleIndex scheduleIndex;
+
     private FTAService ftaService;
     
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        ftaService = new FTAService(ftaRepository);
+        scheduleIndex = new FTAScheduleIndex(ftaRepository, mock(CacheInvalidationBus.class));
+        ftaService = new FTAService(ftaRepository, scheduleIndex);
     }
     
     @Test
@@ -44,6 +49,7 @@ public class FTAServiceTest {
         
         // Assert
         verify(ftaRepository).save(any(FTA.class));
+        verify(ftaRepository).findAll();
     }
     
     @Test
@@ -98,15 +104,17 @@ public class FTAServiceTest {
         // Arrange
         String country = "Singapore";
         String htsCode = "1234.56";
-        FTA fta1 = new FTA(1L, country, htsCode, "$2.30", LocalDate.of(2026, 1, 1));
-        FTA fta2 = new FTA(2L, country, htsCode, "$2.10", LocalDate.of(2028, 1, 1));
-        when(ftaRepository.findByCountryAndHtsCode(anyString(), anyString())).thenReturn(Optional.of(List.of(fta1, fta2)));
+        FTA fta1 = new FTA(1L, country, htsCode, "$2.30", LocalDate.now().plusYears(1), null);
+        FTA fta2 = new FTA(2L, country, htsCode, "$2.10", LocalDate.now().plusYears(3), null);
+        when(ftaRepository.findAll()).thenReturn(List.of(fta1, fta2));
+        scheduleIndex.rebuild();
 
         // Act
         Map<LocalDate, String> prices = ftaService.getFuturePrices(country, htsCode);
 
         // Assert
         assertEquals(Map.of(fta1.getDate(), fta1.getPrice(), fta2.getDate(), fta2.getPrice()), prices);
+        verify(ftaRepository, never()).findByCountryAndHtsCode(anyString(), anyString());
     }
 
     @Test
@@ -114,9 +122,10 @@ public class FTAServiceTest {
         // Arrange
         String country = "Singapore";
         String htsCode = "1234.56";
-        FTA fta1 = new FTA(1L, country, htsCode, "$2.30", LocalDate.of(2022, 1, 1));
-        FTA fta2 = new FTA(2L, country, htsCode, "$2.10", LocalDate.of(2024, 1, 1));
-        when(ftaRepository.findByCountryAndHtsCode(anyString(), anyString())).thenReturn(Optional.of(List.of(fta1, fta2)));
+        FTA fta1 = new FTA(1L, country, htsCode, "$2.30", LocalDate.of(2022, 1, 1), null);
+        FTA fta2 = new FTA(2L, country, htsCode, "$2.10", LocalDate.of(2024, 1, 1), null);
+        when(ftaRepository.findAll()).thenReturn(List.of(fta1, fta2));
+        scheduleIndex.rebuild();
 
         // Act
         Map<LocalDate, String> prices = ftaService.getFuturePrices(country, htsCode);
@@ -131,9 +140,10 @@ public class FTAServiceTest {
         // Arrange
         String country = "Singapore";
         String htsCode = "1234.56";
-        FTA fta1 = new FTA(1L, country, htsCode, "$2.30", LocalDate.of(2022, 1, 1));
-        FTA fta2 = new FTA(2L, country, htsCode, "$2.10", LocalDate.of(2024, 1, 1));
-        when(ftaRepository.findByCountryAndHtsCode(anyString(), anyString())).thenReturn(Optional.of(List.of(fta1, fta2)));
+        FTA fta1 = new FTA(1L, country, htsCode, "$2.30", LocalDate.now().plusYears(1), null);
+        FTA fta2 = new FTA(2L, country, htsCode, "$2.10", LocalDate.now().plusYears(3), null);
+        when(ftaRepository.findAll()).thenReturn(List.of(fta1, fta2));
+        scheduleIndex.rebuild();
 
         // Act
         Map<LocalDate, String> prices = ftaService.getFuturePrices("Other country", htsCode);
@@ -141,4 +151,71 @@ public class FTAServiceTest {
         // Assert
         assertEquals(new HashMap<>(), prices);
     }
+
+    @Test
+    void getFuturePrices_BeforeIndexBuilt_ShouldReturnEmptyMap() {
+        // Act
+        Map<LocalDate, String> prices = ftaService.getFuturePrices("NZ", "0407.11.00.00");
+
+        // Assert
+        assertTrue(prices.isEmpty());
+    }
+
+    @Test
+    void getRateAt_ShouldReturnLatestStepOnOrBeforeDate() {
+        // Arrange
+        when(ftaRepository.findAll()).thenReturn(List.of(
+                new FTA("NZ", "0407.11.00.00", "2¢/doz", LocalDate.of(2026, 1, 1)),
+                new FTA("NZ", "0407.11.00.00", "1.4¢/doz", LocalDate.of(2028, 1, 1)),
+                new FTA("NZ", "0407.11.00.00", "Free", LocalDate.of(2035, 1, 1))));
+        scheduleIndex.rebuild();
+
+        // Act & Assert
+        assertEquals("2¢/doz", ftaService.getRateAt("NZ", "0407.11.00.00", LocalDate.of(2027, 6, 30)));
+        assertEquals("1.4¢/doz", ftaService.getRateAt("NZ", "0407.11.00.00", LocalDate.of(2028, 1, 1)));
+        assertEquals("Free", ftaService.getRateAt("NZ", "0407.11.00.00", LocalDate.of(2040, 1, 1)));
+    }
+
+    @Test
+    void getRateAt_BeforeScheduleStarts_ShouldThrowException() {
+        // Arrange
+        when(ftaRepository.findAll()).thenReturn(List.of(
+                new FTA("NZ", "0407.11.00.00", "2¢/doz", LocalDate.of(2026, 1, 1))));
+        scheduleIndex.rebuild();
+
+        // Act & Assert
+        assertThrows(FTANotFoundException.class,
+                () -> ftaService.getRateAt("NZ", "0407.11.00.00", LocalDate.of(2025, 12, 31)));
+    }
+
+    @Test
+    void getRatesAt_ShouldReturnRateForEveryCountryWithStartedSchedule() {
+        // Arrange
+        when(ftaRepository.findAll()).thenReturn(List.of(
+                new FTA("AU", "0407.11.00.00", "Free", LocalDate.of(2028, 1, 1)),
+                new FTA("NZ", "0407.11.00.00", "2¢/doz", LocalDate.of(2026, 1, 1)),
+                new FTA("NZ", "0407.11.00.00", "1.4¢/doz", LocalDate.of(2028, 1, 1)),
+                new FTA("SG", "1905.90.10", "Free", LocalDate.of(2020, 1, 1))));
+        scheduleIndex.rebuild();
+
+        // Act
+        Map<String, String> rates = ftaService.getRatesAt("0407.11.00.00", LocalDate.of(2027, 1, 1));
+
+        // Assert
+        assertEquals(Map.of("NZ", "2¢/doz"), rates);
+    }
+
+    @Test
+    void deleteFTAData_ShouldRebuildIndex() {
+        // Arrange
+        when(ftaRepository.existsById(1L)).thenReturn(true);
+        when(ftaRepository.findAll()).thenReturn(List.of());
+
+        // Act
+        ftaService.deleteFTAData(1L);
+
+        // Assert
+        verify(ftaRepository).deleteById(1L);
+        verify(ftaRepository).findAll();
+    }
 }
@@ -21,6 +21,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import app.account.Account;
 import app.account.AccountRepository;
+import app.favourites.AccountFavourite;
+import app.favourites.AccountFavouriteId;
+import app.favourites.AccountFavouriteRepository;
 import app.favourites.Favourites;
 import app.favourites.FavouritesRepository;
 
@@ -33,7 +36,7 @@ import app.favourites.FavouritesRepository;
  * 3. User removes items from favourites
  * 4. Multiple users have isolated favourites
  * 
- * Tests the ManyToMany relationship between Account and Favourites
+ * Tests the AccountFavourite join rows and the per-code Favourites counters
  */
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -50,6 +53,9 @@ public class FavouritesIntegrationTest {
     @Autowired
     private FavouritesRepository favouritesRepository;
 
+    @Autowired
+    private AccountFavouriteRepository accountFavouriteRepository;
+
     @Autowired
     private BCryptPasswordEncoder passwordEncoder;
 
@@ -62,6 +68,7 @@ public class FavouritesIntegrationTest {
     @BeforeEach
     void setUp() throws Exception {
         // Clean up
+        accountFavouriteRepository.deleteAll();
         favouritesRepository.deleteAll();
         accountRepository.findByEmail("favtest@test.com").ifPresent(accountRepository::delete);
 
@@ -99,15 +106,20 @@ public class FavouritesIntegrationTest {
      * - Improves user workflow efficiency
      */
     @Test
+    @SqlStatementBudget(4)
     public void testAddFavourite_Success() throws Exception {
         mockMvc.perform(post("/accounts/" + testUser.getUserID() + "/favourites")
                 .param("htsCode", "0407.11.00.00")
                 .header("Authorization", "Bearer " + authToken))
                 .andExpect(status().isOk());
 
-        // Verify favourite was saved
+        // Verify favourite was saved and counted
         Favourites savedFav = favouritesRepository.findById("0407.11.00.00").orElse(null);
         assertNotNull(savedFav, "Favourite should be saved");
+        assertEquals(1, savedFav.getFavouriteCount(), "Favourite should be counted once");
+        assertTrue(accountFavouriteRepository.existsById(
+                new AccountFavouriteId(testUser.getUserID(), "0407.11.00.00")),
+                "Favourite should be linked to user");
     }
 
     /**
@@ -126,18 +138,12 @@ public class FavouritesIntegrationTest {
     @Test
     public void testGetFavourites_ReturnsUserFavourites_Success() throws Exception {
         // Add favourites directly to database
-        Favourites fav1 = new Favourites();
-        fav1.setHtsCode("0407.11.00.00");
-        favouritesRepository.save(fav1);
-
-        Favourites fav2 = new Favourites();
-        fav2.setHtsCode("1905.90.10");
-        favouritesRepository.save(fav2);
+        favouritesRepository.save(new Favourites("0407.11.00.00", 1));
+        favouritesRepository.save(new Favourites("1905.90.10", 1));
 
         // Link to user
-        testUser.getFavourites().add(fav1);
-        testUser.getFavourites().add(fav2);
-        accountRepository.save(testUser);
+        accountFavouriteRepository.save(new AccountFavourite(testUser.getUserID(), "0407.11.00.00"));
+        accountFavouriteRepository.save(new AccountFavourite(testUser.getUserID(), "1905.90.10"));
 
         // Get favourites
         MvcResult result = mockMvc.perform(get("/accounts/" + testUser.getUserID() + "/favourites")
@@ -167,13 +173,10 @@ public class FavouritesIntegrationTest {
     @Test
     public void testRemoveFavourite_Success() throws Exception {
         // Create favourite
-        Favourites favourite = new Favourites();
-        favourite.setHtsCode("0407.11.00.00");
-        favourite = favouritesRepository.save(favourite);
+        Favourites favourite = favouritesRepository.save(new Favourites("0407.11.00.00", 1));
 
         // Link to user
-        testUser.getFavourites().add(favourite);
-        accountRepository.save(testUser);
+        accountFavouriteRepository.save(new AccountFavourite(testUser.getUserID(), favourite.getHtsCode()));
 
         // Remove favourite
         String htsCodeToRemove = favourite.getHtsCode();
@@ -182,11 +185,12 @@ public class FavouritesIntegrationTest {
                 .header("Authorization", "Bearer " + authToken))
                 .andExpect(status().isOk());
 
-        // Verify removed from user's favourites (favourite record still exists in DB)
-        Account updatedUser = accountRepository.findById(testUser.getUserID()).orElseThrow();
-        assertFalse(updatedUser.getFavourites().stream()
-                .anyMatch(f -> f.getHtsCode().equals(htsCodeToRemove)),
+        // Verify removed from user's favourites (counter record still exists in DB)
+        assertFalse(accountFavouriteRepository.existsById(
+                new AccountFavouriteId(testUser.getUserID(), htsCodeToRemove)),
                 "Favourite should be removed from user");
+        assertEquals(0, favouritesRepository.findById(htsCodeToRemove).orElseThrow().getFavouriteCount(),
+                "Favourite count should be decremented");
     }
 
     /**
@@ -201,6 +205,7 @@ public class FavouritesIntegrationTest {
      * - Better user experience: clean favourites list
      */
     @Test
+    @SqlStatementBudget(4)
     public void testAddDuplicateFavourite_HandledGracefully() throws Exception {
         // Add favourite first time
         mockMvc.perform(post("/accounts/" + testUser.getUserID() + "/favourites")
@@ -219,6 +224,10 @@ public class FavouritesIntegrationTest {
                 .filter(f -> f.getHtsCode().equals("0407.11.00.00"))
                 .count();
         assertEquals(1, count, "Should have exactly one favourite for this HTS code");
+        assertEquals(1, accountFavouriteRepository.countByAccountId(testUser.getUserID()),
+                "Should have exactly one link for this user");
+        assertEquals(1, favouritesRepository.findById("0407.11.00.00").orElseThrow().getFavouriteCount(),
+                "Duplicate add should not be counted twice");
     }
 
     /**
@@ -244,18 +253,12 @@ public class FavouritesIntegrationTest {
         user2 = accountRepository.save(user2);
 
         // Add favourite to user2
-        Favourites fav2 = new Favourites();
-        fav2.setHtsCode("9999.99.99.99");
-        fav2 = favouritesRepository.save(fav2);
-        user2.getFavourites().add(fav2);
-        accountRepository.save(user2);
+        favouritesRepository.save(new Favourites("9999.99.99.99", 1));
+        accountFavouriteRepository.save(new AccountFavourite(user2.getUserID(), "9999.99.99.99"));
 
         // Add favourite to testUser
-        Favourites fav1 = new Favourites();
-        fav1.setHtsCode("0407.11.00.00");
-        fav1 = favouritesRepository.save(fav1);
-        testUser.getFavourites().add(fav1);
-        accountRepository.save(testUser);
+        favouritesRepository.save(new Favourites("0407.11.00.00", 1));
+        accountFavouriteRepository.save(new AccountFavourite(testUser.getUserID(), "0407.11.00.00"));
 
         // Get testUser's favourites
         MvcResult result = mockMvc.perform(get("/accounts/" + testUser.getUserID() + "/favourites")
@@ -287,4 +290,38 @@ public class FavouritesIntegrationTest {
         mockMvc.perform(get("/accounts/" + testUser.getUserID() + "/favourites"))
                 .andExpect(status().isUnauthorized());
     }
+
+    /**
+     * Test 7: Bulk Add Favourites
+     * 
+     * What it tests:
+     * - POST /favourites/bulk links only codes not favourited yet
+     * - Counters are created or incremented once per new link
+     * - The statement count does not grow with the number of codes
+     * 
+     * Why it matters:
+     * - Importing a long watch list must not cost a round trip per code
+     * - Popularity counts stay exact when a list repeats known codes
+     */
+    @Test
+    @SqlStatementBudget(4)
+    public void testAddFavouritesBulk_UsesFixedNumberOfStatements() throws Exception {
+        // Flushed now, so the inserts are not counted against the request
+        favouritesRepository.saveAndFlush(new Favourites("0407.11.00.00", 1));
+        accountFavouriteRepository.saveAndFlush(new AccountFavourite(testUser.getUserID(), "0407.11.00.00"));
+        favouritesRepository.saveAndFlush(new Favourites("1704.90.35", 2));
+
+        mockMvc.perform(post("/accounts/" + testUser.getUserID() + "/favourites/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"0407.11.00.00\", \"1704.90.35\", \"0901.21.00\", \"0402.10.00\", \"0901.21.00\"]")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.added").value(3));
+
+        assertEquals(4, accountFavouriteRepository.countByAccountId(testUser.getUserID()));
+        assertEquals(1, favouritesRepository.findById("0407.11.00.00").orElseThrow().getFavouriteCount());
+        assertEquals(3, favouritesRepository.findById("1704.90.35").orElseThrow().getFavouriteCount());
+        assertEquals(1, favouritesRepository.findById("0901.21.00").orElseThrow().getFavouriteCount());
+        assertEquals(1, favouritesRepository.findById("0402.10.00").orElseThrow().getFavouriteCount());
+    }
 }
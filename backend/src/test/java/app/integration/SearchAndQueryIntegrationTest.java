@@ -269,4 +269,49 @@ public class SearchAndQueryIntegrationTest {
         mockMvc.perform(get("/product/category/search/0407"))
                 .andExpect(status().isUnauthorized());
     }
+
+    /**
+     * Test 7: Delete One Query From a User's History
+     * 
+     * What it tests:
+     * - DELETE /api/tariffs/queries/user/{userID}/query/{queryID} removes the query
+     * - The delete runs as one statement, without loading the query first
+     * 
+     * Why it matters:
+     * - Users can prune their search history
+     * - Guards against the delete regressing to load-then-delete
+     */
+    @Test
+    @SqlStatementBudget(1)
+    public void testDeleteQueryByUserIdAndQueryId_Success() throws Exception {
+        Query query = new Query();
+        query.setHtsCode("0407.11.00.00");
+        query.setAccount(testUser);
+        query = queryRepository.save(query);
+
+        mockMvc.perform(delete("/api/tariffs/queries/user/" + testUser.getUserID() + "/query/" + query.getQueryID())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNoContent());
+
+        assertFalse(queryRepository.existsById(query.getQueryID()), "Query should be deleted");
+    }
+
+    /**
+     * Test 8: Most Queried HTS Codes
+     * 
+     * What it tests:
+     * - GET /api/tariffs/most-queried returns the ranking with product details
+     * - The ranking and its product details are read in a single statement
+     * 
+     * Why it matters:
+     * - Shown on the home page to every user
+     * - Guards against an N+1 lookup of product details per code
+     */
+    @Test
+    @SqlStatementBudget(1)
+    public void testGetMostQueried_Success() throws Exception {
+        mockMvc.perform(get("/api/tariffs/most-queried")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+    }
 }
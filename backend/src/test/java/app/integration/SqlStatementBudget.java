@@ -0,0 +1,32 @@
+package app.integration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Fails the test if any HTTP request it makes executes more than
+ * {@link #value()} SQL statements. Only statements run while a request is
+ * being handled count, so test setup through repositories does not; changes
+ * the test left pending in the persistence context are flushed before the test
+ * body runs so they are not charged to its first request.
+ *
+ * <pre>
+ * &#64;Test
+ * &#64;SqlStatementBudget(4)
+ * void addFavourite() { mockMvc.perform(post(...)); }
+ * </pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+
+    /**
+     * @return Maximum statements a single request may execute
+     */
+    int value();
+}
@@ -0,0 +1,61 @@
+package app.integration;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import app.config.SqlStatementCounter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Enforces {@link SqlStatementBudget} using the per-request counts reported by
+ * the application's SQL statement filter.
+ */
+class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace
+            .create(SqlStatementBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        EntityManagerFactory emf = SpringExtension.getApplicationContext(context)
+                .getBean(EntityManagerFactory.class);
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (entityManager != null) {
+            entityManager.flush();
+        }
+        context.getStore(NAMESPACE).put(SqlStatementCounter.Recording.class, SqlStatementCounter.record());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        int budget = context.getRequiredTestMethod().getAnnotation(SqlStatementBudget.class).value();
+        List<SqlStatementCounter.RequestStatements> requests;
+        try (SqlStatementCounter.Recording recording = context.getStore(NAMESPACE)
+                .remove(SqlStatementCounter.Recording.class, SqlStatementCounter.Recording.class)) {
+            requests = recording.requests();
+        }
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+        if (requests.isEmpty()) {
+            throw new AssertionFailedError("@SqlStatementBudget is set but the test made no HTTP requests");
+        }
+
+        List<SqlStatementCounter.RequestStatements> overBudget = requests.stream()
+                .filter(request -> request.statements() > budget)
+                .toList();
+        if (!overBudget.isEmpty()) {
+            throw new AssertionFailedError(overBudget.stream()
+                    .map(request -> request.endpoint() + " executed " + request.statements() + " statements")
+                    .collect(Collectors.joining("; ", "SQL statement budget of " + budget + " exceeded: ", "")));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package app.product;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CatalogSnapshotTest {
+
+    private static CatalogSnapshot snapshot(String json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return new CatalogSnapshot(new ObjectMapper(), new ByteArrayResource(out.toByteArray()));
+    }
+
+    @Test
+    void products_ShouldMapArticlesWithCaptureDateAndCategory() throws IOException {
+        CatalogSnapshot snapshot = snapshot("""
+                {"capturedOn":"2025-03-01","categories":{"egg":[
+                  {"htsno":"0407.11.00.00","description":"Fertilized eggs","general":"2.8¢/doz.","special":"Free (AU)"}
+                ]}}""");
+
+        List<Product> products = snapshot.products();
+
+        assertEquals(1, products.size());
+        Product egg = products.get(0);
+        assertEquals("0407.11.00.00", egg.getHtsCode());
+        assertEquals("Fertilized eggs", egg.getDescription());
+        assertEquals("2.8¢/doz.", egg.getGeneral());
+        assertEquals("Free (AU)", egg.getSpecial());
+        assertEquals("egg", egg.getCategory());
+        assertEquals(LocalDate.of(2025, 3, 1), egg.getFetchDate());
+    }
+
+    @Test
+    void products_WhenCodeFoundByTwoKeywords_ShouldKeepFirstOnly() throws IOException {
+        CatalogSnapshot snapshot = snapshot("""
+                {"capturedOn":"2025-03-01","categories":{
+                  "sugar":[{"htsno":"1704.90.35","general":"5.5%"}],
+                  "milk":{"results":[{"htsno":"1704.90.35","general":"5.5%"},{"htsno":"0401.10.00.00"},{"indent":"0"}]}
+                }}""");
+
+        List<Product> products = snapshot.products();
+
+        assertEquals(List.of("1704.90.35", "0401.10.00.00"), products.stream().map(Product::getHtsCode).toList());
+        assertEquals("sugar", products.get(0).getCategory());
+        assertEquals("milk", products.get(1).getCategory());
+    }
+
+    @Test
+    void products_BundledSnapshot_ShouldHaveUniqueCodes() {
+        CatalogSnapshot snapshot = new CatalogSnapshot(new ObjectMapper(),
+                new ClassPathResource("seed/catalog-snapshot.json.gz"));
+
+        List<Product> products = snapshot.products();
+
+        assertFalse(products.isEmpty());
+        Set<String> codes = products.stream().map(Product::getHtsCode).collect(Collectors.toSet());
+        assertEquals(products.size(), codes.size());
+        assertTrue(codes.contains("0407.11.00.00"), "The seeder's egg history relies on this code");
+    }
+}
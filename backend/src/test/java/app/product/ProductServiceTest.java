@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
@@ -17,13 +18,19 @@ import java.util.HashMap;
 import java.util.HashSet;
 
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import app.config.CacheInvalidationBus;
+import app.config.RateLimiter;
+import app.config.ResponseCache;
 import app.exception.ProductNotFoundException;
+import app.exception.RateLimitExceededException;
+import app.exception.UpstreamUnavailableException;
 import app.fta.FTAService;
 import app.query.TariffApiClient;
 
@@ -39,6 +46,18 @@ public class ProductServiceTest {
     @Mock
     private FTAService ftaService;
 
+    @Spy
+    private TariffSeriesStore seriesStore = new TariffSeriesStore(mock(CacheInvalidationBus.class));
+
+    @Mock
+    private ResponseCache responseCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RateLimiter rateLimiter;
+
     @InjectMocks
     private ProductService productService;
 
@@ -125,6 +144,29 @@ public class ProductServiceTest {
         }
     }
 
+    @Test
+    void fetchDailyData_WhenRecordUpdated_ShouldPublishTariffChange() {
+        // Arrange
+        Map<String, Object> map = new HashMap<>();
+        map.put("htsno", "1704.90.35");
+        map.put("general", "6.0¢/t");
+        map.put("special", "Free (AU, SG)");
+
+        when(apiClient.searchTariffArticles(anyString())).thenReturn(List.of(map));
+        when(productRepository.findTopByHtsCodeOrderByFetchDateDesc(anyString())).thenReturn(Optional.of(existing));
+
+        // Act
+        productService.fetchExternal();
+
+        // Assert
+        ArgumentCaptor<TariffChange> captor = ArgumentCaptor.forClass(TariffChange.class);
+        verify(eventPublisher, times(5)).publishEvent(captor.capture());
+        TariffChange change = captor.getValue();
+        assertEquals("1704.90.35", change.htsCode());
+        assertEquals("6.0¢/t", change.general());
+        assertEquals("5.5¢/t", change.previousGeneral());
+    }
+
     @Test
     void fetchDailyData_WhenRecordIsSame_ShouldNotSaveData() {
         // Arrange
@@ -142,6 +184,36 @@ public class ProductServiceTest {
 
         // Assert
         verify(productRepository, never()).save(any(Product.class));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void fetchExternal_WhenOneKeywordFails_ShouldStillFetchTheOthers() {
+        // Arrange
+        Map<String, Object> map = new HashMap<>();
+        map.put("htsno", "1704.90.35");
+        map.put("general", "6.0¢/t");
+
+        when(apiClient.searchTariffArticles(anyString())).thenReturn(List.of(map));
+        when(apiClient.searchTariffArticles("sugar"))
+                .thenThrow(new UpstreamUnavailableException("Circuit open"));
+        when(productRepository.findTopByHtsCodeOrderByFetchDateDesc(anyString())).thenReturn(Optional.empty());
+
+        // Act
+        productService.fetchExternal();
+
+        // Assert
+        verify(productRepository, times(4)).save(any(Product.class));
+    }
+
+    @Test
+    void fetchExternalForKeyword_WhenUpstreamFails_ShouldThrowSoThePartitionIsRetried() {
+        // Arrange
+        when(apiClient.searchTariffArticles("milk")).thenThrow(new UpstreamUnavailableException("Circuit open"));
+
+        // Act & Assert
+        assertThrows(UpstreamUnavailableException.class, () -> productService.fetchExternal("milk"));
+        verify(productRepository, never()).save(any(Product.class));
     }
 
     // -------------------------------------------------------------------
@@ -227,6 +299,21 @@ public class ProductServiceTest {
         assertEquals("No product found with HTS code: 9999.99.99", exception.getMessage());
     }
 
+    @Test
+    void findProductByHtsCode_WhenOverRateLimit_ShouldNotCallApi() {
+        // Arrange
+        when(productRepository.findTopByHtsCodeOrderByFetchDateDesc("9999.99.99"))
+                .thenReturn(Optional.empty());
+        when(productRepository.findByCategoryIgnoreCaseOrHtsCodeStartingWith("9999.99.99", "9999.99.99"))
+                .thenReturn(Optional.empty());
+        doThrow(new RateLimitExceededException("Too many requests", 6))
+                .when(rateLimiter).check(RateLimiter.PRODUCT_FALLBACK);
+
+        // Act & Assert
+        assertThrows(RateLimitExceededException.class, () -> productService.findProductByHtsCode("9999.99.99"));
+        verify(apiClient, never()).searchTariffArticles(anyString());
+    }
+
     @Test
     void findProductByHtsCode_WhenNullHtsCode_ShouldHandleGracefully() {
         // Arrange
@@ -815,6 +902,99 @@ public class ProductServiceTest {
         assertEquals("OVERWRITTEN", result.get(LocalDate.of(2025, 4, 1)));
     }
 
+    @Test
+    void getPrices_ShouldReturnDatesInAscendingOrder() {
+        // Arrange
+        when(productRepository.findByHtsCode("1704.90.35"))
+                .thenReturn(Optional.of(List.of(products.get(1), products.get(0))));
+        when(ftaService.getFuturePrices("SG", "1704.90.35"))
+                .thenReturn(Map.of(LocalDate.of(2026, 1, 1), "4.0¢/t"));
+
+        // Act
+        Map<LocalDate, String> result = productService.getPrices("1704.90.35", "SG");
+
+        // Assert
+        assertEquals(List.of(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 12, 1), LocalDate.of(2026, 1, 1)),
+                List.copyOf(result.keySet()));
+    }
+
+    // -------------------------------------------------------------------
+    // --------------- testing getPriceSeries() method -------------------
+    // -------------------------------------------------------------------
+
+    @Test
+    void getPriceSeries_WhenCalledTwice_ShouldOnlyLoadHistoryOnce() {
+        // Arrange
+        when(productRepository.findByHtsCode("1704.90.35")).thenReturn(Optional.of(products));
+        when(ftaService.getFuturePrices("NZ", "1704.90.35")).thenReturn(Map.of());
+
+        // Act
+        productService.getPriceSeries("1704.90.35", "NZ", null, null, null);
+        List<TariffSeries.Point> result = productService.getPriceSeries("1704.90.35", "NZ", null, null, null);
+
+        // Assert
+        verify(productRepository, times(1)).findByHtsCode("1704.90.35");
+        assertEquals(List.of(
+                new TariffSeries.Point(LocalDate.of(2025, 4, 1), "5.5¢/t"),
+                new TariffSeries.Point(LocalDate.of(2025, 12, 1), "Free")), result);
+    }
+
+    @Test
+    void getPriceSeries_WithRange_ShouldOnlyReturnPointsInRange() {
+        // Arrange
+        when(productRepository.findByHtsCode("1704.90.35")).thenReturn(Optional.of(products));
+        when(ftaService.getFuturePrices("SG", "1704.90.35"))
+                .thenReturn(Map.of(LocalDate.of(2026, 1, 1), "4.0¢/t"));
+
+        // Act
+        List<TariffSeries.Point> result = productService.getPriceSeries("1704.90.35", "SG",
+                LocalDate.of(2025, 6, 1), LocalDate.of(2026, 1, 1), null);
+
+        // Assert
+        assertEquals(List.of(
+                new TariffSeries.Point(LocalDate.of(2025, 12, 1), "Free"),
+                new TariffSeries.Point(LocalDate.of(2026, 1, 1), "4.0¢/t")), result);
+    }
+
+    @Test
+    void getPriceSeries_WhenCodeIsUnknown_ShouldThrowWithoutStoringSeries() {
+        // Arrange
+        when(productRepository.findByHtsCode("9999.99.99")).thenReturn(Optional.of(List.of()));
+        when(ftaService.getFuturePrices("NZ", "9999.99.99")).thenReturn(Map.of());
+
+        // Act & Assert
+        assertThrows(ProductNotFoundException.class,
+                () -> productService.getPriceSeries("9999.99.99", "NZ", null, null, null));
+        assertThrows(ProductNotFoundException.class,
+                () -> productService.getPriceSeries("9999.99.99", "NZ", null, null, null));
+        verify(productRepository, times(2)).findByHtsCode("9999.99.99");
+        assertEquals(0, seriesStore.size());
+    }
+
+    @Test
+    void fetchExternal_WhenSeriesLoaded_ShouldAppendNewPoint() {
+        // Arrange
+        when(productRepository.findByHtsCode("1704.90.35")).thenReturn(Optional.of(products));
+        when(ftaService.getFuturePrices("NZ", "1704.90.35")).thenReturn(Map.of());
+        productService.getPriceSeries("1704.90.35", "NZ", null, null, null);
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("htsno", "1704.90.35");
+        map.put("general", "6.0¢/t");
+        map.put("special", "Free (AU)");
+        when(apiClient.searchTariffArticles(anyString())).thenReturn(List.of(map));
+        when(productRepository.findTopByHtsCodeOrderByFetchDateDesc(anyString())).thenReturn(Optional.of(existing));
+
+        // Act
+        productService.fetchExternal();
+        List<TariffSeries.Point> result = productService.getPriceSeries("1704.90.35", "NZ", null, null, null);
+
+        // Assert
+        verify(productRepository, times(1)).findByHtsCode("1704.90.35");
+        assertEquals(3, result.size());
+        assertEquals(new TariffSeries.Point(LocalDate.now(), "6.0¢/t"), result.get(2));
+    }
+
     // -------------------------------------------------------------------
     // ------------ testing getMapCountryToPrice() method ----------------
     // -------------------------------------------------------------------
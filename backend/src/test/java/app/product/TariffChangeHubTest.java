@@ -0,0 +1,152 @@
+package app.product;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import app.config.CacheInvalidationBus;
+
+public class TariffChangeHubTest {
+
+    private final CacheInvalidationBus changeBus = mock(CacheInvalidationBus.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private TariffChangeHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = new TariffChangeHub(new ObjectMapper().findAndRegisterModules(), changeBus, productRepository,
+                mock(PlatformTransactionManager.class), 4, 60_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    private static TariffChange change(String htsCode) {
+        return new TariffChange(htsCode, LocalDate.of(2025, 1, 1), "2%", "Free (AU)", "3%", null);
+    }
+
+    /**
+     * Emitter that records the names of events sent to it, optionally blocking
+     * every send until released to simulate a slow client.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // First line of the event is "event:<name>"
+            String firstLine = builder.build().iterator().next().getData().toString().split("\n")[0];
+            events.add(firstLine.substring(firstLine.indexOf(':') + 1));
+        }
+
+        void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, events.size());
+        }
+    }
+
+    @Test
+    void publish_ShouldOnlyReachSubscribersOfTheChangedCode() throws InterruptedException {
+        // Arrange
+        RecordingEmitter sugar = new RecordingEmitter(new CountDownLatch(0));
+        RecordingEmitter eggs = new RecordingEmitter(new CountDownLatch(0));
+        hub.subscribe(Set.of("1704.90.35"), sugar);
+        hub.subscribe(Set.of("0407.11.00.00"), eggs);
+        eggs.awaitEvents(1);
+
+        // Act
+        hub.publish(change("1704.90.35"));
+
+        // Assert
+        sugar.awaitEvents(2);
+        assertEquals(List.of("subscribed", "tariff-change"), sugar.events);
+        assertEquals(List.of("subscribed"), eggs.events);
+    }
+
+    @Test
+    void publish_WhenSubscriberBufferIsFull_ShouldDropOnlyThatSubscriber() throws InterruptedException {
+        // Arrange
+        CountDownLatch stuck = new CountDownLatch(1);
+        RecordingEmitter fast = new RecordingEmitter(new CountDownLatch(0));
+        hub.subscribe(Set.of("1704.90.35"), new RecordingEmitter(stuck));
+        hub.subscribe(Set.of("1704.90.35"), fast);
+        fast.awaitEvents(1);
+
+        // Act: one event in flight plus a full buffer of 4, so the sixth overflows
+        for (int i = 0; i < 6; i++) {
+            hub.publish(change("1704.90.35"));
+            fast.awaitEvents(i + 2);
+        }
+
+        // Assert
+        assertEquals(1, hub.getSubscriberCount());
+        stuck.countDown();
+    }
+
+    @Test
+    void forward_ShouldSendTheCodeAndDateToTheOtherInstances() {
+        hub.forward(change("1704.90.35"));
+
+        verify(changeBus).publish(TariffChangeHub.BUS_DOMAIN, "1704.90.35 2025-01-01");
+    }
+
+    @Test
+    void receive_WhenAnotherInstanceSavedAChange_ShouldRebuildAndBroadcastIt() throws InterruptedException {
+        // Arrange
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<String>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(changeBus).register(eq(TariffChangeHub.BUS_DOMAIN), handler.capture());
+        LocalDate date = LocalDate.of(2025, 1, 1);
+        when(productRepository.findTopByHtsCodeAndFetchDateLessThanEqualOrderByFetchDateDesc("1704.90.35", date))
+                .thenReturn(Optional.of(new Product("1704.90.35", date, "Candy", "2%", "Free (AU)", "sugar")));
+        when(productRepository.findTopByHtsCodeAndFetchDateLessThanEqualOrderByFetchDateDesc("1704.90.35",
+                date.minusDays(1)))
+                .thenReturn(Optional.of(new Product("1704.90.35", date.minusDays(7), "Candy", "3%", "", "sugar")));
+        RecordingEmitter sugar = new RecordingEmitter(new CountDownLatch(0));
+        hub.subscribe(Set.of("1704.90.35"), sugar);
+
+        // Act
+        handler.getValue().accept("1704.90.35 2025-01-01");
+        handler.getValue().accept("0407.11.00.00 2025-01-01");
+
+        // Assert
+        sugar.awaitEvents(2);
+        assertEquals(List.of("subscribed", "tariff-change"), sugar.events);
+        verify(productRepository, never())
+                .findTopByHtsCodeAndFetchDateLessThanEqualOrderByFetchDateDesc(eq("0407.11.00.00"), any());
+    }
+}
@@ -0,0 +1,110 @@
+package app.product;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class TariffSeriesTest {
+
+    private final RateDictionary dictionary = new RateDictionary();
+
+    @Test
+    void of_ShouldSortPointsByDate() {
+        // Act
+        TariffSeries series = TariffSeries.of(dictionary, Map.of(
+                LocalDate.of(2024, 1, 1), "2%",
+                LocalDate.of(2020, 1, 1), "5%",
+                LocalDate.of(2022, 6, 15), "3%"));
+
+        // Assert
+        assertEquals(List.of(
+                new TariffSeries.Point(LocalDate.of(2020, 1, 1), "5%"),
+                new TariffSeries.Point(LocalDate.of(2022, 6, 15), "3%"),
+                new TariffSeries.Point(LocalDate.of(2024, 1, 1), "2%")), series.range(null, null));
+    }
+
+    @Test
+    void with_WhenDateExists_ShouldReplaceRateAndLeaveOriginalUnchanged() {
+        // Arrange
+        TariffSeries series = TariffSeries.of(dictionary, Map.of(LocalDate.of(2020, 1, 1), "5%"));
+
+        // Act
+        TariffSeries updated = series.with(LocalDate.of(2020, 1, 1), "Free");
+
+        // Assert
+        assertEquals("Free", updated.range(null, null).get(0).rate());
+        assertEquals("5%", series.range(null, null).get(0).rate());
+        assertEquals(1, updated.size());
+    }
+
+    @Test
+    void with_ShouldInternRepeatedRates() {
+        // Act
+        TariffSeries.of(dictionary, Map.of(
+                LocalDate.of(2020, 1, 1), "Free",
+                LocalDate.of(2021, 1, 1), "Free",
+                LocalDate.of(2022, 1, 1), "Free"));
+
+        // Assert
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void downsample_ShouldDropRepeatedRatesFirst() {
+        // Arrange
+        List<TariffSeries.Point> points = List.of(
+                new TariffSeries.Point(LocalDate.of(2020, 1, 1), "5%"),
+                new TariffSeries.Point(LocalDate.of(2021, 1, 1), "5%"),
+                new TariffSeries.Point(LocalDate.of(2022, 1, 1), "3%"),
+                new TariffSeries.Point(LocalDate.of(2023, 1, 1), "3%"),
+                new TariffSeries.Point(LocalDate.of(2024, 1, 1), "3%"));
+
+        // Act
+        List<TariffSeries.Point> result = TariffSeries.downsample(points, 4);
+
+        // Assert
+        assertEquals(List.of(points.get(0), points.get(2), points.get(4)), result);
+    }
+
+    @Test
+    void downsample_WhenStillTooManyPoints_ShouldKeepEndpointsAndLimitSize() {
+        // Arrange
+        List<TariffSeries.Point> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            points.add(new TariffSeries.Point(LocalDate.of(2000, 1, 1).plusMonths(i), i + "%"));
+        }
+
+        // Act
+        List<TariffSeries.Point> result = TariffSeries.downsample(points, 10);
+
+        // Assert
+        assertTrue(result.size() <= 10);
+        assertEquals(points.get(0), result.get(0));
+        assertEquals(points.get(99), result.get(result.size() - 1));
+    }
+
+    @Test
+    void downsample_WhenMaxPointsIsTwo_ShouldKeepOnlyFirstAndLast() {
+        // Arrange
+        List<TariffSeries.Point> points = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            points.add(new TariffSeries.Point(LocalDate.of(2000, 1, 1).plusMonths(i), i + "%"));
+        }
+
+        // Act
+        List<TariffSeries.Point> result = TariffSeries.downsample(points, 2);
+
+        // Assert
+        assertEquals(List.of(points.get(0), points.get(4)), result);
+    }
+
+    @Test
+    void downsample_WhenMaxPointsTooSmall_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> TariffSeries.downsample(List.of(), 1));
+    }
+}
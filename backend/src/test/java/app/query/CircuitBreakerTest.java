@@ -0,0 +1,114 @@
+package app.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import app.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CircuitBreakerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private static CircuitBreaker breaker(Duration openDuration) {
+        return new CircuitBreaker(new SimpleMeterRegistry(), 3, openDuration);
+    }
+
+    private void fail(CircuitBreaker breaker) {
+        assertThrows(ResourceAccessException.class, () -> breaker.call(() -> {
+            calls.incrementAndGet();
+            throw new ResourceAccessException("Connection refused");
+        }));
+    }
+
+    private String succeed(CircuitBreaker breaker) {
+        return breaker.call(() -> {
+            calls.incrementAndGet();
+            return "results";
+        });
+    }
+
+    @Test
+    void call_AfterFailuresInARow_ShouldFailFastWithoutCallingUpstream() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        fail(breaker);
+        fail(breaker);
+        fail(breaker);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertThrows(UpstreamUnavailableException.class, () -> succeed(breaker));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void call_WhenFailuresAreNotInARow_ShouldStayClosed() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        fail(breaker);
+        fail(breaker);
+        succeed(breaker);
+        fail(breaker);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_WhenTrialSucceeds_ShouldClose() {
+        CircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker);
+        fail(breaker);
+        fail(breaker);
+
+        assertEquals("results", succeed(breaker));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_WhenTrialFails_ShouldOpenAgain() {
+        CircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker);
+        fail(breaker);
+        fail(breaker);
+
+        fail(breaker);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void call_WhileTrialInFlight_ShouldFailFast() {
+        CircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker);
+        fail(breaker);
+        fail(breaker);
+
+        String result = breaker.call(() -> {
+            assertThrows(UpstreamUnavailableException.class, () -> succeed(breaker));
+            return "trial";
+        });
+
+        assertEquals("trial", result);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_WhenCallsAreShedOrInvalid_ShouldNotCountThem() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++) {
+            assertThrows(UpstreamUnavailableException.class, () -> breaker.call(() -> {
+                throw new UpstreamUnavailableException("No HTS API capacity within 10000 ms");
+            }));
+            assertThrows(HttpClientErrorException.class, () -> breaker.call(() -> {
+                throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+}
@@ -0,0 +1,152 @@
+package app.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import app.config.Deadline;
+import app.exception.DeadlineExceededException;
+import app.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestHedgerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private RequestHedger hedger;
+
+    @BeforeEach
+    void setUp() {
+        hedger = new RequestHedger(meterRegistry, true, 0.95, Duration.ofMillis(20), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hedger.shutdown();
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < 20; i++) {
+            hedger.call(() -> "results");
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The first attempt takes a second, any later one answers at once.
+     */
+    private String slowFirstAttempt() {
+        if (attempts.incrementAndGet() == 1) {
+            sleep(1000);
+            return "first";
+        }
+        return "hedge";
+    }
+
+    @Test
+    void call_WhenAttemptIsSlow_ShouldUseTheHedgeThatAnswersFirst() {
+        warmUp();
+
+        assertEquals("hedge", hedger.call(this::slowFirstAttempt));
+        assertEquals(2, attempts.get());
+        assertEquals(1, meterRegistry.get("hts.upstream.hedges").tag("won", "true").counter().count());
+    }
+
+    @Test
+    void call_BeforeEnoughCallsAreTimed_ShouldNotHedge() {
+        assertEquals("first", hedger.call(this::slowFirstAttempt));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void call_InBackgroundLane_ShouldNotHedge() {
+        warmUp();
+
+        assertEquals("first", UpstreamScheduler.inBackground(() -> hedger.call(this::slowFirstAttempt)));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void call_WhenDeadlinePasses_ShouldGiveUpAndCancelTheAttempt() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        assertThrows(DeadlineExceededException.class, () -> Deadline.after(Duration.ofMillis(50))
+                .call(() -> hedger.call(() -> {
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return "too late";
+                })));
+
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void call_WhenDeadlineHasPassed_ShouldNotCallAtAll() {
+        Deadline expired = Deadline.after(Duration.ZERO);
+
+        assertThrows(DeadlineExceededException.class,
+                () -> expired.call(() -> hedger.call(attempts::incrementAndGet)));
+        assertEquals(0, attempts.get());
+    }
+
+    @Test
+    void call_WhenAttemptFails_ShouldRethrowItsException() {
+        ResourceAccessException thrown = assertThrows(ResourceAccessException.class, () -> hedger.call(() -> {
+            throw new ResourceAccessException("Connection refused");
+        }));
+
+        assertEquals("Connection refused", thrown.getMessage());
+    }
+
+    @Test
+    void call_ShouldRunTheAttemptUnderTheCallersDeadline() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+
+        assertSame(deadline, deadline.call(() -> hedger.call(Deadline::current)));
+    }
+
+    @Test
+    void call_WhenEveryThreadIsBusy_ShouldFailAtOnce() throws InterruptedException {
+        RequestHedger single = new RequestHedger(meterRegistry, true, 0.95, Duration.ofMillis(20), 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread busy = new Thread(() -> single.call(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        }));
+        busy.start();
+        try {
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            assertThrows(UpstreamUnavailableException.class, () -> single.call(attempts::incrementAndGet));
+            assertEquals(0, attempts.get());
+        } finally {
+            release.countDown();
+            busy.join(1000);
+            single.shutdown();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package app.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import app.product.Product;
+import app.product.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class StaleResponsesTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private StaleResponses staleResponses;
+
+    @BeforeEach
+    void setUp() {
+        staleResponses = new StaleResponses(productRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void serve_WhenSearchWasAnsweredBefore_ShouldReturnLastResponseMarkedStale() {
+        staleResponses.remember("sugar", List.of(Map.of("htsno", "1701", "description", "Cane or beet sugar")));
+
+        List<Map<String, Object>> served = staleResponses.serve("sugar");
+
+        assertEquals(1, served.size());
+        assertEquals("1701", served.get(0).get("htsno"));
+        assertNotNull(served.get(0).get(StaleResponses.STALE_AS_OF));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void serve_WhenSearchIsUnknown_ShouldReturnLatestSavedProductPerCode() {
+        when(productRepository.findByCategoryIgnoreCaseOrHtsCodeStartingWith("milk", "milk"))
+                .thenReturn(Optional.of(List.of(
+                        new Product("0401.10.00.00", LocalDate.of(2025, 1, 6), "Milk", "0.34 cents/liter", "",
+                                "milk"),
+                        new Product("0401.10.00.00", LocalDate.of(2025, 1, 13), "Milk", "0.5 cents/liter", "",
+                                "milk"))));
+
+        List<Map<String, Object>> served = staleResponses.serve("milk");
+
+        assertEquals(1, served.size());
+        assertEquals("0.5 cents/liter", served.get(0).get("general"));
+        assertEquals("2025-01-13T00:00:00Z", served.get(0).get(StaleResponses.STALE_AS_OF));
+    }
+
+    @Test
+    void takeStale_ShouldReturnServedSearchesUntilRefreshed() {
+        when(productRepository.findByCategoryIgnoreCaseOrHtsCodeStartingWith(anyString(), anyString()))
+                .thenReturn(Optional.empty());
+        staleResponses.serve("sugar");
+        staleResponses.serve("milk");
+        staleResponses.remember("milk", List.of());
+
+        assertEquals(List.of("sugar"), staleResponses.takeStale(10));
+        assertEquals(List.of(), staleResponses.takeStale(10));
+    }
+}
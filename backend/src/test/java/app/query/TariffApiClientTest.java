@@ -0,0 +1,116 @@
+package app.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import app.config.Deadline;
+import app.product.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class TariffApiClientTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+    private final CountDownLatch stopHanging = new CountDownLatch(1);
+    private HttpServer server;
+    private RequestHedger hedger;
+    private CircuitBreaker circuitBreaker;
+    private TariffApiClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverThreads);
+        server.start();
+        circuitBreaker = new CircuitBreaker(meterRegistry, 2, Duration.ofSeconds(30));
+        hedger = new RequestHedger(meterRegistry, false, 0.95, Duration.ofMillis(50), 4);
+        UpstreamScheduler scheduler = new UpstreamScheduler(meterRegistry, 1, 8, 1000, 0.5, Duration.ofSeconds(2),
+                Duration.ofSeconds(1), Duration.ofSeconds(1));
+        client = new TariffApiClient("http://localhost:" + server.getAddress().getPort(), Duration.ofSeconds(10),
+                meterRegistry, new ObjectMapper(), scheduler, circuitBreaker, hedger,
+                new StaleResponses(productRepository, meterRegistry), Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stopHanging.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+        hedger.shutdown();
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    /**
+     * Does not answer until the test is over.
+     */
+    private void hang(HttpExchange exchange) {
+        try {
+            stopHanging.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.close();
+    }
+
+    @Test
+    void searchTariffArticles_ShouldReturnTheArticlesInTheResponse() {
+        server.createContext("/reststop/search",
+                exchange -> respond(exchange, "{\"results\":[{\"htsno\":\"1701\",\"description\":\"Sugar\"}]}"));
+
+        List<Map<String, Object>> articles = client.searchTariffArticles("sugar");
+
+        assertEquals(1, articles.size());
+        assertEquals("1701", articles.get(0).get("htsno"));
+    }
+
+    @Test
+    void searchTariffArticles_WhenUpstreamHangs_ShouldGiveUpAtTheDeadlineAndOpenTheCircuit()
+            throws InterruptedException {
+        server.createContext("/reststop/search", this::hang);
+
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            Deadline.after(Duration.ofMillis(200)).call(() -> client.searchTariffArticles("sugar"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        }
+
+        // The attempts are recorded on their own threads once they are given up
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (circuitBreaker.state() != CircuitBreaker.State.OPEN && System.nanoTime() < waitUntil) {
+            Thread.sleep(10);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+    }
+}
@@ -4,16 +4,20 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import app.config.Deadline;
 import app.exception.TariffNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,9 +26,14 @@ class TariffServiceTest {
     @Mock
     private TariffApiClient apiClient;
 
-    @InjectMocks
     private TariffService tariffService;
 
+    @BeforeEach
+    void setUp() {
+        // Run parent code lookups on the calling thread
+        tariffService = new TariffService(apiClient, Runnable::run);
+    }
+
     // ==================== getNextLevelHtsCodes Tests ====================
 
     @Test
@@ -142,6 +151,18 @@ class TariffServiceTest {
         assertNull(result.get("Special countries"));
     }
 
+    @Test
+    void extractCountryTariffs_WhenItemIsStale_ShouldSayAsOfWhen() {
+        Map<String, Object> item = Map.of(
+            "general", "$2.50",
+            StaleResponses.STALE_AS_OF, "2025-01-13T00:00:00Z"
+        );
+
+        Map<String, Object> result = tariffService.extractCountryTariffs(item);
+
+        assertEquals("2025-01-13T00:00:00Z", result.get("Stale as of"));
+    }
+
     @Test
     void extractCountryTariffs_WhenSpecialHasNoParentheses_ShouldOnlyReturnGeneral() {
         Map<String, Object> item = Map.of(
@@ -369,4 +390,92 @@ class TariffServiceTest {
         Object descChain = result.get(0).get("descriptionChain");
         assertTrue(descChain instanceof List);
     }
-}
\ No newline at end of file
+
+    @Test
+    void extractTariffSummary_ShouldLookUpEachMissingParentOnceInParallel() {
+        when(apiClient.searchTariffArticles("1704.01")).thenReturn(List.of(
+            Map.of("htsno", "1704.01.10", "description", "Containing cocoa"),
+            Map.of("htsno", "1704.01.20", "description", "Other")
+        ));
+        when(apiClient.searchTariffArticles("1704")).thenReturn(List.of(
+            Map.of("htsno", "1704", "description", "Sugar confectionery")
+        ));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Map<String, Object>> result = new TariffService(apiClient, executor)
+                    .extractTariffSummary("1704.01");
+
+            assertEquals(2, result.size());
+            assertEquals(List.of("Sugar confectionery", "Containing cocoa"),
+                    result.stream()
+                            .filter(m -> "1704.01.10".equals(m.get("htsno")))
+                            .findFirst().orElseThrow()
+                            .get("descriptionChain"));
+            verify(apiClient, times(1)).searchTariffArticles("1704");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void extractTariffSummary_WhenDeadlinePasses_ShouldReturnPartialChains() {
+        when(apiClient.searchTariffArticles("1704.01")).thenReturn(List.of(
+            Map.of("htsno", "1704.01.10", "description", "Containing cocoa")
+        ));
+        when(apiClient.searchTariffArticles("1704")).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return List.of(Map.of("htsno", "1704", "description", "Sugar confectionery"));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            long start = System.nanoTime();
+            List<Map<String, Object>> result = Deadline.after(Duration.ofMillis(100))
+                    .call(() -> new TariffService(apiClient, executor).extractTariffSummary("1704.01"));
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+            assertEquals(1, result.size());
+            assertEquals(List.of("Containing cocoa"), result.get(0).get("descriptionChain"));
+            assertEquals(true, result.get(0).get(TariffService.PARTIAL));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ==================== streamTariffSummary Tests ====================
+
+    @Test
+    void streamTariffSummary_ShouldReportAllMatchesBeforeResolvingParents() {
+        when(apiClient.searchTariffArticles("1704.01")).thenReturn(List.of(
+            Map.of("htsno", "1704.01.10", "description", "Containing cocoa", "general", "1%"),
+            Map.of("htsno", "1704.01.20", "description", "Other", "general", "5%")
+        ));
+        when(apiClient.searchTariffArticles("1704")).thenReturn(List.of(
+            Map.of("htsno", "1704", "description", "Sugar confectionery")
+        ));
+
+        List<String> events = new java.util.ArrayList<>();
+        List<Map<String, Object>> result = tariffService.streamTariffSummary("1704.01",
+                new TariffService.SearchListener() {
+                    @Override
+                    public void onMatch(Map<String, Object> summary) {
+                        events.add("match " + summary.get("htsno") + " " + summary.get("descriptionChain"));
+                    }
+
+                    @Override
+                    public void onResolved(Map<String, Object> summary) {
+                        events.add("resolved " + summary.get("htsno") + " " + summary.get("descriptionChain"));
+                    }
+                }).join();
+
+        assertEquals(List.of(
+            "match 1704.01.10 [Containing cocoa]",
+            "match 1704.01.20 [Other]",
+            "resolved 1704.01.10 [Sugar confectionery, Containing cocoa]",
+            "resolved 1704.01.20 [Sugar confectionery, Other]"
+        ), events);
+        assertEquals(List.of("1704.01.20", "1704.01.10"),
+                result.stream().map(m -> m.get("htsno")).toList());
+    }
+}
@@ -0,0 +1,162 @@
+package app.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import app.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class UpstreamSchedulerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static UpstreamScheduler scheduler(int maxConcurrency, double ratePerSecond, Duration slowThreshold,
+            Duration queueTimeout) {
+        return new UpstreamScheduler(new SimpleMeterRegistry(), 1, maxConcurrency, ratePerSecond, 0.5,
+                slowThreshold, queueTimeout, Duration.ZERO);
+    }
+
+    private static UpstreamScheduler scheduler(int maxConcurrency) {
+        return scheduler(maxConcurrency, 1000, Duration.ofSeconds(10), Duration.ofSeconds(5));
+    }
+
+    /**
+     * Starts a call that stays in flight until the latch is released.
+     */
+    private CompletableFuture<Void> hold(UpstreamScheduler scheduler, CountDownLatch release, boolean background) {
+        return CompletableFuture.runAsync(() -> {
+            if (background) {
+                UpstreamScheduler.inBackground(() -> scheduler.call(() -> await(release)));
+            } else {
+                scheduler.call(() -> await(release));
+            }
+        }, executor);
+    }
+
+    private static Boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void call_ShouldServeInteractiveCallsAheadOfBackground() throws Exception {
+        UpstreamScheduler scheduler = scheduler(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = hold(scheduler, release, false);
+        waitUntil(() -> scheduler.inFlight() == 1);
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> ingest = CompletableFuture.runAsync(() -> UpstreamScheduler.inBackground(
+                () -> scheduler.call(() -> order.add("ingest"))), executor);
+        waitUntil(() -> scheduler.queued() == 1);
+        CompletableFuture<Void> search = CompletableFuture.runAsync(
+                () -> scheduler.call(() -> order.add("search")), executor);
+        waitUntil(() -> scheduler.queued() == 2);
+
+        release.countDown();
+        CompletableFuture.allOf(running, ingest, search).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("search", "ingest"), order);
+    }
+
+    @Test
+    void call_ShouldKeepPartOfTheLimitFreeFromBackgroundCalls() throws Exception {
+        UpstreamScheduler scheduler = scheduler(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> firstIngest = hold(scheduler, release, true);
+        waitUntil(() -> scheduler.inFlight() == 1);
+        CompletableFuture<Void> secondIngest = hold(scheduler, release, true);
+        waitUntil(() -> scheduler.queued() == 1);
+
+        // The ingest has its share; a search still gets through straight away
+        assertEquals("results", scheduler.call(() -> "results"));
+        assertEquals(1, scheduler.queued());
+
+        release.countDown();
+        CompletableFuture.allOf(firstIngest, secondIngest).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void call_WhenUpstreamFails_ShouldLowerTheLimit_AndRaiseItAgainOnSuccess() {
+        UpstreamScheduler scheduler = scheduler(8);
+
+        assertThrows(ResourceAccessException.class, () -> scheduler.call(() -> {
+            throw new ResourceAccessException("Read timed out");
+        }));
+        double lowered = scheduler.limit();
+        assertTrue(lowered < 8);
+
+        for (int i = 0; i < 20; i++) {
+            scheduler.call(() -> "results");
+        }
+        assertTrue(scheduler.limit() > lowered);
+    }
+
+    @Test
+    void call_WhenUpstreamIsSlow_ShouldLowerTheLimit() {
+        UpstreamScheduler scheduler = scheduler(8, 1000, Duration.ofMillis(1), Duration.ofSeconds(5));
+
+        scheduler.call(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "results";
+        });
+
+        assertTrue(scheduler.limit() < 8);
+    }
+
+    @Test
+    void call_WhenRequestIsRejectedAsInvalid_ShouldKeepTheLimit() {
+        UpstreamScheduler scheduler = scheduler(8);
+
+        assertThrows(HttpClientErrorException.class, () -> scheduler.call(() -> {
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+        }));
+
+        assertEquals(8, scheduler.limit());
+    }
+
+    @Test
+    void call_WhenRateBudgetIsUsedUp_ShouldFailAfterQueueTimeout() {
+        UpstreamScheduler scheduler = scheduler(8, 1, Duration.ofSeconds(10), Duration.ofMillis(100));
+        scheduler.call(() -> "results");
+
+        assertThrows(UpstreamUnavailableException.class, () -> scheduler.call(() -> "results"));
+        assertEquals(0, scheduler.queued());
+        assertEquals(0, scheduler.inFlight());
+    }
+}
@@ -20,6 +20,11 @@ api.interceptors.request.use(
         if (token) {
             config.headers.Authorization = `Bearer ${token}`;
         }
+        // Admins can set localStorage.serverTiming to see a per-phase latency
+        // breakdown of each response in the devtools Timing tab
+        if (localStorage.getItem('serverTiming')) {
+            config.headers['X-Server-Timing'] = '1';
+        }
         return config;
     },
     (error) => {
@@ -42,16 +42,15 @@ function PriceHistoryChart({ hts, origin }) {
                 throw new Error(`Invalid country: ${origin}`);
             }
 
-            const response = await api.get(`/product/price/${hts}/${countryCode}`);
+            // Series endpoint returns points already sorted by date
+            const response = await api.get(`/product/price/${hts}/${countryCode}/series`);
             console.log("Line chart data:", response.data);
 
-            const formattedData = Object.entries(response.data).map(([date, price]) => ({
+            const formattedData = response.data.map(({ date, rate }) => ({
                 date: new Date(date).getTime(),
-                price: extractNumericRate(price),
+                price: extractNumericRate(rate),
                 displayDate: new Date(date).toLocaleDateString()
             }));
-
-            formattedData.sort((a, b) => new Date(a.date) - new Date(b.date));
             console.log("Formatted Data:", formattedData);
 
             setChartData(formattedData);